@@ -0,0 +1,236 @@
+package dsa.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Small self-contained benchmark harness used by the benchmark suites.
+ * Each workload is warmed up, then measured for a number of iterations.
+ * Every operation is timed on its own so that latency percentiles can be
+ * reported next to the throughput, and the bytes allocated by the measuring
+ * thread are sampled around each iteration to give an allocation rate
+ * (the same number the JMH GC profiler reports as gc.alloc.rate.norm).
+ * @author Viet Dinh
+ *
+ */
+public class BenchmarkRunner {
+
+	/** Default number of warmup iterations */
+	public static final int DEFAULT_WARMUP = 3;
+
+	/** Default number of measured iterations */
+	public static final int DEFAULT_MEASUREMENT = 5;
+
+	// Upper bound on the number of latency samples we keep per workload
+	private static final int MAX_SAMPLES = 1 << 22;
+
+	private int warmupIterations;
+	private int measurementIterations;
+	private com.sun.management.ThreadMXBean threads;
+
+	/**
+	 * BenchmarkRunner constructor with default iterations
+	 */
+	public BenchmarkRunner() {
+		this(DEFAULT_WARMUP, DEFAULT_MEASUREMENT);
+	}
+
+	/**
+	 * BenchmarkRunner constructor with given iterations
+	 * @param warmupIterations number of warmup iterations
+	 * @param measurementIterations number of measured iterations
+	 */
+	public BenchmarkRunner(int warmupIterations, int measurementIterations) {
+		if (warmupIterations < 0 || measurementIterations < 1) {
+			throw new IllegalArgumentException("Invalid iteration count.");
+		}
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = measurementIterations;
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			threads = (com.sun.management.ThreadMXBean) bean;
+			if (!threads.isThreadAllocatedMemoryEnabled()) {
+				threads = null;
+			}
+		}
+	}
+
+	/**
+	 * A workload that can be measured by the runner
+	 * @author Viet Dinh
+	 *
+	 */
+	public interface Workload {
+		/**
+		 * Prepares the state for one iteration; this is not measured
+		 */
+		void setUp();
+
+		/**
+		 * Returns the number of operations performed in one iteration
+		 * @return number of operations per iteration
+		 */
+		int operations();
+
+		/**
+		 * Performs the operation with the given index
+		 * @param index index of the operation within the iteration
+		 */
+		void operation(int index);
+	}
+
+	/**
+	 * Runs the given workload and return the measured result
+	 * @param label label of the result
+	 * @param workload workload to run
+	 * @return result of the measurement
+	 */
+	public Result run(String label, Workload workload) {
+		for (int i = 0; i < warmupIterations; i++) {
+			workload.setUp();
+			int ops = workload.operations();
+			for (int j = 0; j < ops; j++) {
+				workload.operation(j);
+			}
+		}
+		long[] samples = new long[Math.min(MAX_SAMPLES, workload.operations() * measurementIterations)];
+		int count = 0;
+		long totalOps = 0;
+		long totalTime = 0;
+		long totalBytes = 0;
+		for (int i = 0; i < measurementIterations; i++) {
+			workload.setUp();
+			int ops = workload.operations();
+			long bytes = allocatedBytes();
+			long begin = System.nanoTime();
+			for (int j = 0; j < ops; j++) {
+				long start = System.nanoTime();
+				workload.operation(j);
+				long elapsed = System.nanoTime() - start;
+				if (count < samples.length) {
+					samples[count++] = elapsed;
+				}
+			}
+			totalTime += System.nanoTime() - begin;
+			totalBytes += allocatedBytes() - bytes;
+			totalOps += ops;
+		}
+		Arrays.sort(samples, 0, count);
+		return new Result(label, totalOps, totalTime, threads == null ? -1 : totalBytes,
+				percentile(samples, count, 0.50), percentile(samples, count, 0.90),
+				percentile(samples, count, 0.99), percentile(samples, count, 0.999),
+				count == 0 ? 0 : samples[count - 1]);
+	}
+
+	private long allocatedBytes() {
+		if (threads == null) {
+			return 0;
+		}
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static long percentile(long[] sorted, int count, double p) {
+		if (count == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(p * count) - 1;
+		return sorted[Math.max(0, Math.min(count - 1, index))];
+	}
+
+	/**
+	 * Result of a single measured workload
+	 * @author Viet Dinh
+	 *
+	 */
+	public static class Result {
+		private String label;
+		private long operations;
+		private long nanos;
+		private long allocatedBytes;
+		private long p50;
+		private long p90;
+		private long p99;
+		private long p999;
+		private long max;
+
+		/**
+		 * Result constructor
+		 * @param label label of the result
+		 * @param operations number of measured operations
+		 * @param nanos total measured time in nanoseconds
+		 * @param allocatedBytes bytes allocated while measuring, -1 if unknown
+		 * @param p50 median latency in nanoseconds
+		 * @param p90 90th percentile latency in nanoseconds
+		 * @param p99 99th percentile latency in nanoseconds
+		 * @param p999 99.9th percentile latency in nanoseconds
+		 * @param max maximum latency in nanoseconds
+		 */
+		public Result(String label, long operations, long nanos, long allocatedBytes,
+				long p50, long p90, long p99, long p999, long max) {
+			this.label = label;
+			this.operations = operations;
+			this.nanos = nanos;
+			this.allocatedBytes = allocatedBytes;
+			this.p50 = p50;
+			this.p90 = p90;
+			this.p99 = p99;
+			this.p999 = p999;
+			this.max = max;
+		}
+
+		/**
+		 * Return the label of the result
+		 * @return label
+		 */
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 * Return the throughput in operations per second
+		 * @return throughput
+		 */
+		public double getThroughput() {
+			return nanos == 0 ? 0 : operations * 1e9 / nanos;
+		}
+
+		/**
+		 * Return the mean time of one operation in nanoseconds
+		 * @return mean time per operation
+		 */
+		public double getNanosPerOperation() {
+			return operations == 0 ? 0 : (double) nanos / operations;
+		}
+
+		/**
+		 * Return the number of bytes allocated per operation, or -1 if unknown
+		 * @return bytes allocated per operation
+		 */
+		public double getBytesPerOperation() {
+			return allocatedBytes < 0 || operations == 0 ? -1 : (double) allocatedBytes / operations;
+		}
+
+		/**
+		 * Return the allocation rate in MB per second, or -1 if unknown
+		 * @return allocation rate
+		 */
+		public double getAllocationRate() {
+			return allocatedBytes < 0 || nanos == 0 ? -1 : allocatedBytes * 1e9 / nanos / (1024 * 1024);
+		}
+
+		/**
+		 * Return the header line matching toString()
+		 * @return header line
+		 */
+		public static String header() {
+			return String.format("%-60s %14s %10s %10s %10s %10s %12s %10s %10s", "benchmark", "ops/s",
+					"p50(ns)", "p90(ns)", "p99(ns)", "p99.9(ns)", "max(ns)", "B/op", "MB/s");
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-60s %14.1f %10d %10d %10d %10d %12d %10.1f %10.1f", label, getThroughput(),
+					p50, p90, p99, p999, max, getBytesPerOperation(), getAllocationRate());
+		}
+	}
+}
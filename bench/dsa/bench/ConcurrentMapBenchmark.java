@@ -0,0 +1,134 @@
+package dsa.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import dsa.map.ConcurrentSkipListMap;
+import dsa.map.Map;
+import dsa.map.hashing.ConcurrentSeparateChainingHashMap;
+import dsa.map.hashing.LinearProbingHashMap;
+
+/**
+ * Measures how get/put throughput scales with the number of threads for
+ * ConcurrentSeparateChainingHashMap and ConcurrentSkipListMap, against a
+ * LinearProbingHashMap guarded by a single external lock.
+ *
+ * Usage: java dsa.bench.ConcurrentMapBenchmark [--threads 1,2,4,8,16,32] [--keys 1e6]
+ *        [--reads 90] [--millis 2000] [--warmup-millis 1000] [--maps concurrent,skiplist,locked]
+ *
+ * Each thread performs random gets (--reads percent of the operations) and
+ * puts on a prefilled map for --millis milliseconds. The scaling column is the
+ * throughput relative to the single thread run of the same map.
+ * @author Viet Dinh
+ *
+ */
+public class ConcurrentMapBenchmark {
+
+	private static final String[] MAPS = {"concurrent", "skiplist", "locked"};
+
+	/**
+	 * Runs the concurrent map benchmark
+	 * @param args command line arguments, see the class comment
+	 * @throws InterruptedException if interrupted while waiting for the worker threads
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		Options options = new Options(args);
+		int[] threadCounts = options.getInts("--threads", new int[] {1, 2, 4, 8, 16, 32});
+		int keys = options.getInt("--keys", 1000000);
+		int reads = options.getInt("--reads", 90);
+		int millis = options.getInt("--millis", 2000);
+		int warmupMillis = options.getInt("--warmup-millis", 1000);
+		String maps = options.get("--maps", null);
+
+		System.out.println(String.format("%-40s %8s %16s %8s", "Benchmark", "threads", "ops/s", "scaling"));
+		for (String name : MAPS) {
+			if (maps != null && !("," + maps + ",").contains("," + name + ",")) {
+				continue;
+			}
+			double single = 0;
+			for (int threads : threadCounts) {
+				Map<Integer, Integer> map = create(name, keys);
+				boolean locked = name.equals("locked");
+				run(map, locked, threads, keys, reads, warmupMillis);
+				double throughput = run(map, locked, threads, keys, reads, millis);
+				if (single == 0) {
+					single = throughput / threads;
+				}
+				System.out.println(String.format("%-40s %8d %16.0f %8.2f", name + "/reads=" + reads + "%/" + keys,
+						threads, throughput, throughput / single));
+			}
+		}
+	}
+
+	private static Map<Integer, Integer> create(String name, int keys) {
+		Map<Integer, Integer> map;
+		if (name.equals("locked")) {
+			map = new LinearProbingHashMap<Integer, Integer>();
+		} else if (name.equals("skiplist")) {
+			map = new ConcurrentSkipListMap<Integer, Integer>();
+		} else {
+			map = new ConcurrentSeparateChainingHashMap<Integer, Integer>();
+		}
+		for (int i = 0; i < keys; i++) {
+			map.put(i, i);
+		}
+		return map;
+	}
+
+	// Runs the given number of threads for the given time and returns the operations per second
+	private static double run(Map<Integer, Integer> map, boolean locked, int threads, int keys, int reads, int millis)
+			throws InterruptedException {
+		AtomicBoolean stop = new AtomicBoolean();
+		CountDownLatch start = new CountDownLatch(1);
+		long[] operations = new long[threads];
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			int id = t;
+			workers[t] = new Thread(() -> {
+				SplittableRandom random = new SplittableRandom(id);
+				long done = 0;
+				long sink = 0;
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				while (!stop.get()) {
+					// Check the clock flag every 256 operations only
+					for (int i = 0; i < 256; i++) {
+						Integer key = random.nextInt(keys);
+						boolean read = random.nextInt(100) < reads;
+						if (locked) {
+							synchronized (map) {
+								sink += read ? value(map.get(key)) : value(map.put(key, key));
+							}
+						} else {
+							sink += read ? value(map.get(key)) : value(map.put(key, key));
+						}
+					}
+					done += 256;
+				}
+				operations[id] = done + (sink == 42 ? 1 : 0);
+			});
+			workers[t].start();
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		Thread.sleep(millis);
+		stop.set(true);
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		long elapsed = System.nanoTime() - begin;
+		long total = 0;
+		for (long count : operations) {
+			total += count;
+		}
+		return total * 1e9 / elapsed;
+	}
+
+	private static int value(Integer value) {
+		return value == null ? 0 : value;
+	}
+}
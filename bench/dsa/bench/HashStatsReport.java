@@ -0,0 +1,89 @@
+package dsa.bench;
+
+import java.util.function.Supplier;
+
+import dsa.bench.KeyStreams.Distribution;
+import dsa.bench.Rosters.IdRange;
+import dsa.bench.Rosters.Pattern;
+import dsa.data.Student;
+import dsa.map.hashing.AbstractHashMap;
+import dsa.map.hashing.FlatLinearProbingHashMap;
+import dsa.map.hashing.LinearProbingHashMap;
+import dsa.map.hashing.PowerOfTwoHashStrategy;
+import dsa.map.hashing.RobinHoodHashMap;
+import dsa.map.hashing.SeparateChainingHashMap;
+
+/**
+ * Prints the AbstractHashMap.stats snapshot of every hash map after loading
+ * it with Integer keys of each distribution and with a Student roster, to
+ * show how the hash strategy and the keys' hashCode() shape the probes.
+ *
+ * Usage: java dsa.bench.HashStatsReport [--size 100000] [--sample 1]
+ *        [--maps LinearProbingHashMap,SeparateChainingHashMap] [--seed 42]
+ * @author Viet Dinh
+ *
+ */
+public class HashStatsReport {
+
+	/**
+	 * A hash map implementation to report on
+	 * @author Viet Dinh
+	 *
+	 */
+	private static class MapFactory {
+		private String name;
+		private Supplier<AbstractHashMap<Object, Object>> supplier;
+
+		public MapFactory(String name, Supplier<AbstractHashMap<Object, Object>> supplier) {
+			this.name = name;
+			this.supplier = supplier;
+		}
+	}
+
+	private static final MapFactory[] MAPS = {
+		new MapFactory("LinearProbingHashMap", () -> new LinearProbingHashMap<Object, Object>()),
+		new MapFactory("LinearProbingHashMap-pow2",
+				() -> new LinearProbingHashMap<Object, Object>(16, new PowerOfTwoHashStrategy(), 0.5)),
+		new MapFactory("FlatLinearProbingHashMap", () -> new FlatLinearProbingHashMap<Object, Object>()),
+		new MapFactory("RobinHoodHashMap", () -> new RobinHoodHashMap<Object, Object>()),
+		new MapFactory("SeparateChainingHashMap", () -> new SeparateChainingHashMap<Object, Object>()),
+	};
+
+	/**
+	 * Runs the report
+	 * @param args command line arguments, see the class comment
+	 */
+	public static void main(String[] args) {
+		Options options = new Options(args);
+		int n = options.getInt("--size", 100000);
+		int sample = options.getInt("--sample", 1);
+		String maps = options.get("--maps", null);
+		long seed = options.getInt("--seed", 42);
+
+		Student[] students = Rosters.generate(Pattern.RANDOM, IdRange.WIDE, n, seed);
+		for (MapFactory factory : MAPS) {
+			if (maps != null && !("," + maps + ",").contains("," + factory.name + ",")) {
+				continue;
+			}
+			for (Distribution distribution : Distribution.values()) {
+				AbstractHashMap<Object, Object> map = factory.supplier.get();
+				for (Integer key : KeyStreams.universe(distribution, n)) {
+					map.put(key, key);
+				}
+				report(factory.name + "/" + distribution.name().toLowerCase() + "/" + n, map, sample);
+			}
+			AbstractHashMap<Object, Object> map = factory.supplier.get();
+			for (Student student : students) {
+				map.put(student, student);
+			}
+			report(factory.name + "/students/" + n, map, sample);
+		}
+	}
+
+	private static void report(String label, AbstractHashMap<Object, Object> map, int sample) {
+		long start = System.nanoTime();
+		String stats = map.stats(sample).toString();
+		long elapsed = System.nanoTime() - start;
+		System.out.println(String.format("%s (collected in %.3fms)%n%s%n", label, elapsed / 1e6, stats));
+	}
+}
@@ -0,0 +1,162 @@
+package dsa.bench;
+
+import java.util.Random;
+
+/**
+ * Seeded key stream generators for the benchmarks.
+ * A stream is an array of indices into a key universe, so the benchmarks can
+ * look up keys from a pre-boxed array and never measure the boxing itself.
+ * @author Viet Dinh
+ *
+ */
+public class KeyStreams {
+
+	/** Default Zipfian skew, the same constant used by YCSB */
+	public static final double DEFAULT_SKEW = 0.99;
+
+	/**
+	 * Key distributions supported by the benchmarks
+	 * @author Viet Dinh
+	 *
+	 */
+	public enum Distribution {
+		/** Every key is equally likely */
+		UNIFORM,
+		/** A few hot keys receive most of the accesses */
+		ZIPFIAN,
+		/** Keys are visited in ascending order */
+		SEQUENTIAL,
+		/** Ascending keys that share their low bits, bad for both hashing and unbalanced trees */
+		ADVERSARIAL
+	}
+
+	private KeyStreams() {
+		// utility class
+	}
+
+	/**
+	 * Creates the key universe for the given distribution
+	 * @param distribution key distribution
+	 * @param n number of distinct keys
+	 * @return array of distinct boxed keys
+	 */
+	public static Integer[] universe(Distribution distribution, int n) {
+		Integer[] keys = new Integer[n];
+		if (distribution == Distribution.ADVERSARIAL) {
+			// Largest shift that keeps i << shift positive and distinct for every i < n
+			int shift = Math.max(0, Integer.numberOfLeadingZeros(Math.max(1, n - 1)) - 1);
+			for (int i = 0; i < n; i++) {
+				keys[i] = i << shift;
+			}
+		} else {
+			for (int i = 0; i < n; i++) {
+				keys[i] = i;
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns the order in which the universe is inserted into a map
+	 * @param distribution key distribution
+	 * @param n number of distinct keys
+	 * @param seed random seed
+	 * @return permutation of 0..n-1
+	 */
+	public static int[] insertionOrder(Distribution distribution, int n, long seed) {
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		if (distribution == Distribution.UNIFORM || distribution == Distribution.ZIPFIAN) {
+			shuffle(order, new Random(seed));
+		}
+		return order;
+	}
+
+	/**
+	 * Returns a stream of indices drawn from the given distribution
+	 * @param distribution key distribution
+	 * @param n number of distinct keys
+	 * @param length length of the stream
+	 * @param seed random seed
+	 * @return stream of indices in the range 0..n-1
+	 */
+	public static int[] stream(Distribution distribution, int n, int length, long seed) {
+		int[] stream = new int[length];
+		Random rand = new Random(seed);
+		switch (distribution) {
+		case UNIFORM:
+			for (int i = 0; i < length; i++) {
+				stream[i] = rand.nextInt(n);
+			}
+			break;
+		case ZIPFIAN:
+			Zipfian zipf = new Zipfian(n, DEFAULT_SKEW);
+			for (int i = 0; i < length; i++) {
+				stream[i] = zipf.next(rand);
+			}
+			break;
+		default:
+			for (int i = 0; i < length; i++) {
+				stream[i] = i % n;
+			}
+			break;
+		}
+		return stream;
+	}
+
+	/**
+	 * Shuffles the given array in place
+	 * @param data array to shuffle
+	 * @param rand random source
+	 */
+	public static void shuffle(int[] data, Random rand) {
+		for (int i = data.length - 1; i > 0; i--) {
+			int j = rand.nextInt(i + 1);
+			int temp = data[i];
+			data[i] = data[j];
+			data[j] = temp;
+		}
+	}
+
+	/**
+	 * Zipfian generator from Gray et al., "Quickly Generating Billion-Record
+	 * Synthetic Databases". The zeta constant is computed once in O(n), every
+	 * sample after that is O(1).
+	 * @author Viet Dinh
+	 *
+	 */
+	private static class Zipfian {
+		private int n;
+		private double theta;
+		private double alpha;
+		private double zetan;
+		private double eta;
+
+		public Zipfian(int n, double theta) {
+			this.n = n;
+			this.theta = theta;
+			double zeta2 = 1.0 + Math.pow(0.5, theta);
+			zetan = 0;
+			for (int i = 1; i <= n; i++) {
+				zetan += 1.0 / Math.pow(i, theta);
+			}
+			alpha = 1.0 / (1.0 - theta);
+			eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta2 / zetan);
+		}
+
+		public int next(Random rand) {
+			double u = rand.nextDouble();
+			double uz = u * zetan;
+			if (uz < 1.0) {
+				return 0;
+			}
+			if (uz < 1.0 + Math.pow(0.5, theta)) {
+				return Math.min(1, n - 1);
+			}
+			int rank = (int) (n * Math.pow(eta * u - eta + 1, alpha));
+			return Math.min(rank, n - 1);
+		}
+	}
+}
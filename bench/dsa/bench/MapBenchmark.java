@@ -0,0 +1,254 @@
+package dsa.bench;
+
+import java.util.function.Supplier;
+
+import dsa.bench.BenchmarkRunner.Result;
+import dsa.bench.BenchmarkRunner.Workload;
+import dsa.bench.KeyStreams.Distribution;
+import dsa.map.CompactSkipListMap;
+import dsa.map.ConcurrentSkipListMap;
+import dsa.map.IndexableSkipListMap;
+import dsa.map.Map;
+import dsa.map.Map.Entry;
+import dsa.map.SearchTableMap;
+import dsa.map.SkipListMap;
+import dsa.map.UnorderedArrayMap;
+import dsa.map.UnorderedLinkedMap;
+import dsa.map.hashing.AbstractHashMap;
+import dsa.map.hashing.ConcurrentSeparateChainingHashMap;
+import dsa.map.hashing.CuckooHashMap;
+import dsa.map.hashing.FixedWidthCodec;
+import dsa.map.hashing.FlatLinearProbingHashMap;
+import dsa.map.hashing.IntObjectHashMap;
+import dsa.map.hashing.LinearProbingHashMap;
+import dsa.map.hashing.OffHeapHashMap;
+import dsa.map.hashing.PowerOfTwoHashStrategy;
+import dsa.map.hashing.RobinHoodHashMap;
+import dsa.map.hashing.SeparateChainingHashMap;
+import dsa.map.hashing.SwissHashMap;
+import dsa.map.search_tree.AVLTreeMap;
+import dsa.map.search_tree.BinarySearchTreeMap;
+import dsa.map.search_tree.RedBlackTreeMap;
+import dsa.map.search_tree.SplayTreeMap;
+
+/**
+ * Benchmarks get, put, putAll, remove and entrySet over every dsa.map
+ * implementation with uniform, Zipfian, sequential and adversarial key streams.
+ * The putAll workload loads all n keys with a single call, so its time per
+ * operation is the time of the whole load.
+ *
+ * Usage: java dsa.bench.MapBenchmark [--sizes 1000,100000] [--maps LinearProbingHashMap,AVLTreeMap]
+ *        [--warmup 3] [--iterations 5] [--slow-limit 20000] [--seed 42]
+ *
+ * The maps with linear lookups (UnorderedArrayMap, UnorderedLinkedMap and
+ * SearchTableMap) are only run up to --slow-limit keys.
+ * @author Viet Dinh
+ *
+ */
+public class MapBenchmark {
+
+	private static final String[] WORKLOADS = {"put", "putAll", "get", "remove", "entrySet"};
+
+	// Full scans are much longer than single operations, so do fewer of them
+	private static final int SCANS_PER_ITERATION = 20;
+
+	/**
+	 * A map implementation under test
+	 * @author Viet Dinh
+	 *
+	 */
+	private static class MapFactory {
+		private String name;
+		private Supplier<Map<Integer, Integer>> supplier;
+		private boolean linear;
+
+		public MapFactory(String name, Supplier<Map<Integer, Integer>> supplier, boolean linear) {
+			this.name = name;
+			this.supplier = supplier;
+			this.linear = linear;
+		}
+	}
+
+	private static final MapFactory[] MAPS = {
+		new MapFactory("LinearProbingHashMap", () -> new LinearProbingHashMap<Integer, Integer>(), false),
+		new MapFactory("LinearProbingHashMap-incremental",
+				() -> incremental(new LinearProbingHashMap<Integer, Integer>()), false),
+		new MapFactory("LinearProbingHashMap-pow2",
+				() -> new LinearProbingHashMap<Integer, Integer>(16, new PowerOfTwoHashStrategy(), 0.5), false),
+		new MapFactory("FlatLinearProbingHashMap", () -> new FlatLinearProbingHashMap<Integer, Integer>(), false),
+		new MapFactory("FlatLinearProbingHashMap-pow2",
+				() -> new FlatLinearProbingHashMap<Integer, Integer>(16, new PowerOfTwoHashStrategy(), 0.5), false),
+		new MapFactory("IntObjectHashMap", () -> new IntObjectHashMap<Integer>(), false),
+		new MapFactory("OffHeapHashMap",
+				() -> new OffHeapHashMap<Integer, Integer>(FixedWidthCodec.INTEGER, FixedWidthCodec.INTEGER), false),
+		new MapFactory("SwissHashMap", () -> new SwissHashMap<Integer, Integer>(), false),
+		new MapFactory("CuckooHashMap", () -> new CuckooHashMap<Integer, Integer>(), false),
+		new MapFactory("RobinHoodHashMap", () -> new RobinHoodHashMap<Integer, Integer>(), false),
+		new MapFactory("SeparateChainingHashMap", () -> new SeparateChainingHashMap<Integer, Integer>(), false),
+		new MapFactory("ConcurrentSeparateChainingHashMap",
+				() -> new ConcurrentSeparateChainingHashMap<Integer, Integer>(), false),
+		new MapFactory("SkipListMap", () -> new SkipListMap<Integer, Integer>(), false),
+		new MapFactory("CompactSkipListMap", () -> new CompactSkipListMap<Integer, Integer>(), false),
+		new MapFactory("IndexableSkipListMap", () -> new IndexableSkipListMap<Integer, Integer>(), false),
+		new MapFactory("ConcurrentSkipListMap", () -> new ConcurrentSkipListMap<Integer, Integer>(), false),
+		new MapFactory("SearchTableMap", () -> new SearchTableMap<Integer, Integer>(), true),
+		new MapFactory("UnorderedArrayMap", () -> new UnorderedArrayMap<Integer, Integer>(), true),
+		new MapFactory("UnorderedLinkedMap", () -> new UnorderedLinkedMap<Integer, Integer>(), true),
+		new MapFactory("BinarySearchTreeMap", () -> new BinarySearchTreeMap<Integer, Integer>(), false),
+		new MapFactory("AVLTreeMap", () -> new AVLTreeMap<Integer, Integer>(), false),
+		new MapFactory("RedBlackTreeMap", () -> new RedBlackTreeMap<Integer, Integer>(), false),
+		new MapFactory("SplayTreeMap", () -> new SplayTreeMap<Integer, Integer>(), false),
+	};
+
+	private static Map<Integer, Integer> incremental(AbstractHashMap<Integer, Integer> map) {
+		map.setIncrementalResize(true);
+		return map;
+	}
+
+	/**
+	 * Runs the map benchmarks
+	 * @param args command line arguments, see the class comment
+	 */
+	public static void main(String[] args) {
+		Options options = new Options(args);
+		int[] sizes = options.getInts("--sizes", new int[] {1000, 100000});
+		String maps = options.get("--maps", null);
+		int slowLimit = options.getInt("--slow-limit", 20000);
+		long seed = options.getInt("--seed", 42);
+		BenchmarkRunner runner = new BenchmarkRunner(options.getInt("--warmup", BenchmarkRunner.DEFAULT_WARMUP),
+				options.getInt("--iterations", BenchmarkRunner.DEFAULT_MEASUREMENT));
+
+		System.out.println(Result.header());
+		for (int n : sizes) {
+			for (MapFactory factory : MAPS) {
+				if (maps != null && !("," + maps + ",").contains("," + factory.name + ",")) {
+					continue;
+				}
+				if (factory.linear && n > slowLimit) {
+					continue;
+				}
+				for (Distribution distribution : Distribution.values()) {
+					for (String workload : WORKLOADS) {
+						String label = factory.name + "." + workload + "/" + distribution.name().toLowerCase() + "/" + n;
+						try {
+							System.out.println(runner.run(label, workload(factory, workload, distribution, n, seed)));
+						} catch (StackOverflowError e) {
+							// Recursive lookUp in an unbalanced tree on adversarial input
+							System.out.println(String.format("%-60s FAILED: %s", label, e.getClass().getSimpleName()));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static Workload workload(MapFactory factory, String name, Distribution distribution, int n, long seed) {
+		Integer[] keys = KeyStreams.universe(distribution, n);
+		int[] order = KeyStreams.insertionOrder(distribution, n, seed);
+		switch (name) {
+		case "put":
+			return new MapWorkload(factory, keys, order, false) {
+				@Override
+				public void operation(int index) {
+					Integer key = keys[order[index]];
+					map.put(key, key);
+				}
+			};
+		case "putAll":
+			Integer[] batch = new Integer[n];
+			for (int i = 0; i < n; i++) {
+				batch[i] = keys[order[i]];
+			}
+			return new MapWorkload(factory, keys, order, false) {
+				@Override
+				public int operations() {
+					return 1;
+				}
+
+				@Override
+				public void operation(int index) {
+					map.putAll(batch, batch);
+				}
+			};
+		case "get":
+			int[] stream = KeyStreams.stream(distribution, n, n, seed + 1);
+			return new MapWorkload(factory, keys, order, true) {
+				@Override
+				public void operation(int index) {
+					map.get(keys[stream[index]]);
+				}
+			};
+		case "remove":
+			int[] removals = KeyStreams.insertionOrder(distribution, n, seed + 2);
+			return new MapWorkload(factory, keys, order, true) {
+				@Override
+				public void setUp() {
+					// every iteration needs a full map to remove from
+					map = null;
+					super.setUp();
+				}
+
+				@Override
+				public void operation(int index) {
+					map.remove(keys[removals[index]]);
+				}
+			};
+		default:
+			return new MapWorkload(factory, keys, order, true) {
+				@Override
+				public int operations() {
+					return SCANS_PER_ITERATION;
+				}
+
+				@Override
+				public void operation(int index) {
+					long sum = 0;
+					for (Entry<Integer, Integer> entry : map.entrySet()) {
+						sum += entry.getValue();
+					}
+					sink = sum;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Base workload that owns the map under test
+	 * @author Viet Dinh
+	 *
+	 */
+	private abstract static class MapWorkload implements Workload {
+		protected MapFactory factory;
+		protected Integer[] keys;
+		protected int[] order;
+		protected Map<Integer, Integer> map;
+		protected long sink;
+		private boolean prefill;
+
+		public MapWorkload(MapFactory factory, Integer[] keys, int[] order, boolean prefill) {
+			this.factory = factory;
+			this.keys = keys;
+			this.order = order;
+			this.prefill = prefill;
+		}
+
+		@Override
+		public void setUp() {
+			// Read-only workloads build the map once and reuse it across iterations
+			if (prefill && map != null) {
+				return;
+			}
+			map = factory.supplier.get();
+			if (prefill) {
+				for (int i = 0; i < order.length; i++) {
+					map.put(keys[order[i]], keys[order[i]]);
+				}
+			}
+		}
+
+		@Override
+		public int operations() {
+			return order.length;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package dsa.bench;
+
+/**
+ * Minimal "--name value" command line parser shared by the benchmarks
+ * @author Viet Dinh
+ *
+ */
+public class Options {
+
+	private String[] args;
+
+	/**
+	 * Options constructor
+	 * @param args command line arguments
+	 */
+	public Options(String[] args) {
+		if (args.length % 2 != 0) {
+			throw new IllegalArgumentException("Options must be given as --name value pairs.");
+		}
+		this.args = args;
+	}
+
+	/**
+	 * Return the value of the given option
+	 * @param name option name, including the leading dashes
+	 * @param defaultValue value to return if the option is missing
+	 * @return value of the option
+	 */
+	public String get(String name, String defaultValue) {
+		for (int i = 0; i < args.length; i += 2) {
+			if (args[i].equals(name)) {
+				return args[i + 1];
+			}
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Return the integer value of the given option
+	 * @param name option name
+	 * @param defaultValue value to return if the option is missing
+	 * @return value of the option
+	 */
+	public int getInt(String name, int defaultValue) {
+		String value = get(name, null);
+		return value == null ? defaultValue : (int) parseSize(value);
+	}
+
+	/**
+	 * Return the comma separated integer values of the given option
+	 * @param name option name
+	 * @param defaultValue value to return if the option is missing
+	 * @return values of the option
+	 */
+	public int[] getInts(String name, int[] defaultValue) {
+		String value = get(name, null);
+		if (value == null) {
+			return defaultValue;
+		}
+		String[] parts = value.split(",");
+		int[] ret = new int[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			ret[i] = (int) parseSize(parts[i].trim());
+		}
+		return ret;
+	}
+
+	// Accepts plain integers as well as scientific notation such as 1e6
+	private static double parseSize(String value) {
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Not a number: " + value);
+		}
+	}
+}
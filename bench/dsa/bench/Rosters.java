@@ -0,0 +1,119 @@
+package dsa.bench;
+
+import java.util.Random;
+
+import dsa.data.Student;
+
+/**
+ * Seeded Student roster generators for the sorting benchmarks
+ * @author Viet Dinh
+ *
+ */
+public class Rosters {
+
+	/** Upper bound (exclusive) of ids in a wide id range */
+	public static final int WIDE_RANGE = 100000000;
+
+	/**
+	 * Order of the generated roster
+	 * @author Viet Dinh
+	 *
+	 */
+	public enum Pattern {
+		/** Ids drawn at random */
+		RANDOM,
+		/** Ids in ascending order */
+		SORTED,
+		/** Ids in descending order */
+		REVERSED,
+		/** Ids drawn at random from a small set of distinct values */
+		DUPLICATES,
+		/** Ids ascending over the first half and descending over the second */
+		ORGAN_PIPE
+	}
+
+	/**
+	 * Range of the generated Identifiable.getId() values
+	 * @author Viet Dinh
+	 *
+	 */
+	public enum IdRange {
+		/** Ids in 0..WIDE_RANGE-1, large for counting sort and eight radix digits */
+		WIDE,
+		/** Ids in 0..n/10, small for counting sort and few radix digits */
+		NARROW
+	}
+
+	private Rosters() {
+		// utility class
+	}
+
+	/**
+	 * Generates a roster of n students
+	 * @param pattern order of the ids
+	 * @param range range of the ids
+	 * @param n number of students
+	 * @param seed random seed
+	 * @return roster of students
+	 */
+	public static Student[] generate(Pattern pattern, IdRange range, int n, long seed) {
+		Random rand = new Random(seed);
+		int bound = range == IdRange.WIDE ? WIDE_RANGE : Math.max(1, n / 10 + 1);
+		int[] ids = new int[n];
+		switch (pattern) {
+		case RANDOM:
+			for (int i = 0; i < n; i++) {
+				ids[i] = rand.nextInt(bound);
+			}
+			break;
+		case DUPLICATES:
+			int distinct = Math.min(bound, Math.max(1, n / 100));
+			int[] values = new int[distinct];
+			for (int i = 0; i < distinct; i++) {
+				values[i] = rand.nextInt(bound);
+			}
+			for (int i = 0; i < n; i++) {
+				ids[i] = values[rand.nextInt(distinct)];
+			}
+			break;
+		default:
+			for (int i = 0; i < n; i++) {
+				ids[i] = (int) ((long) i * bound / n);
+			}
+			if (pattern == Pattern.REVERSED) {
+				reverse(ids, 0, n);
+			} else if (pattern == Pattern.ORGAN_PIPE) {
+				// Take every other value for the rising half, the rest for the falling half
+				int[] pipe = new int[n];
+				int front = 0;
+				int back = n - 1;
+				for (int i = 0; i < n; i++) {
+					if (i % 2 == 0) {
+						pipe[front++] = ids[i];
+					} else {
+						pipe[back--] = ids[i];
+					}
+				}
+				ids = pipe;
+			}
+			break;
+		}
+		Student[] roster = new Student[n];
+		for (int i = 0; i < n; i++) {
+			// GPA rises with the id over 0 to 4. StudentGPAComparator sorts by descending
+			// GPA and truncates the difference to an int, so GPAs less than 1.0 apart
+			// compare equal: the GPA runs mostly sort ties and do not follow the pattern
+			double gpa = bound == 1 ? 0 : 4.0 * ids[i] / (bound - 1);
+			roster[i] = new Student("First" + i, "Last" + i, ids[i], 3 + rand.nextInt(18), gpa, "unity" + i);
+		}
+		return roster;
+	}
+
+	private static void reverse(int[] data, int from, int to) {
+		for (int i = from, j = to - 1; i < j; i++, j--) {
+			int temp = data[i];
+			data[i] = data[j];
+			data[j] = temp;
+		}
+	}
+}
@@ -0,0 +1,223 @@
+package dsa.bench;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.function.Function;
+
+import dsa.bench.BenchmarkRunner.Result;
+import dsa.bench.BenchmarkRunner.Workload;
+import dsa.bench.Rosters.IdRange;
+import dsa.bench.Rosters.Pattern;
+import dsa.data.Student;
+import dsa.data.StudentGPAComparator;
+import dsa.data.StudentIDComparator;
+import dsa.sorter.BubbleSorter;
+import dsa.sorter.CountingSorter;
+import dsa.sorter.InsertionSorter;
+import dsa.sorter.MergeSorter;
+import dsa.sorter.QuickSorter;
+import dsa.sorter.RadixSorter;
+import dsa.sorter.SelectionSorter;
+import dsa.sorter.Sorter;
+
+/**
+ * Benchmarks every dsa.sorter.Sorter on Student rosters, the same way
+ * StudentManager.sort() uses them.
+ *
+ * Usage: java dsa.bench.SortBenchmark [--sizes 1e2,1e3,1e4,1e5,1e6,1e7] [--sorters MergeSorter,RadixSorter]
+ *        [--quadratic-limit 20000] [--warmup 3] [--iterations 5] [--seed 42]
+ *        [--baseline file] [--save-baseline file] [--tolerance 0.25]
+ *
+ * Comparison sorters are run with both StudentIDComparator and StudentGPAComparator.
+ * StudentGPAComparator truncates GPA differences to an int, so the GPA runs
+ * mostly measure sorting ties rather than the roster pattern.
+ * CountingSorter and RadixSorter sort by Identifiable.getId() and are run once.
+ * The quadratic sorters are only run up to --quadratic-limit students.
+ *
+ * With --baseline, the run fails (exit status 1) if any benchmark's mean time
+ * per sort is slower than its stored baseline by more than --tolerance.
+ * @author Viet Dinh
+ *
+ */
+public class SortBenchmark {
+
+	// Sort enough copies per iteration that small inputs are above timer resolution
+	private static final int ELEMENTS_PER_ITERATION = 10000;
+
+	/**
+	 * A sorter under test
+	 * @author Viet Dinh
+	 *
+	 */
+	private static class SorterFactory {
+		private String name;
+		private Function<Comparator<Student>, Sorter<Student>> creator;
+		private boolean quadratic;
+		private boolean keyBased;
+
+		public SorterFactory(String name, Function<Comparator<Student>, Sorter<Student>> creator,
+				boolean quadratic, boolean keyBased) {
+			this.name = name;
+			this.creator = creator;
+			this.quadratic = quadratic;
+			this.keyBased = keyBased;
+		}
+	}
+
+	private static final SorterFactory[] SORTERS = {
+		new SorterFactory("BubbleSorter", c -> new BubbleSorter<Student>(c), true, false),
+		new SorterFactory("SelectionSorter", c -> new SelectionSorter<Student>(c), true, false),
+		new SorterFactory("InsertionSorter", c -> new InsertionSorter<Student>(c), true, false),
+		new SorterFactory("MergeSorter", c -> new MergeSorter<Student>(c), false, false),
+		new SorterFactory("QuickSorter-first",
+				c -> new QuickSorter<Student>(c, QuickSorter.FIRST_ELEMENT_SELECTOR), false, false),
+		new SorterFactory("QuickSorter-last",
+				c -> new QuickSorter<Student>(c, QuickSorter.LAST_ELEMENT_SELECTOR), false, false),
+		new SorterFactory("QuickSorter-middle",
+				c -> new QuickSorter<Student>(c, QuickSorter.MIDDLE_ELEMENT_SELECTOR), false, false),
+		new SorterFactory("QuickSorter-random",
+				c -> new QuickSorter<Student>(c, QuickSorter.RANDOM_ELEMENT_SELECTOR), false, false),
+		new SorterFactory("CountingSorter", c -> new CountingSorter<Student>(), false, true),
+		new SorterFactory("RadixSorter", c -> new RadixSorter<Student>(), false, true),
+	};
+
+	/**
+	 * Runs the sorting benchmarks
+	 * @param args command line arguments, see the class comment
+	 */
+	public static void main(String[] args) {
+		Options options = new Options(args);
+		int[] sizes = options.getInts("--sizes", new int[] {100, 1000, 10000, 100000});
+		String sorters = options.get("--sorters", null);
+		int quadraticLimit = options.getInt("--quadratic-limit", 20000);
+		long seed = options.getInt("--seed", 42);
+		String baselineFile = options.get("--baseline", null);
+		String saveFile = options.get("--save-baseline", null);
+		double tolerance = Double.parseDouble(options.get("--tolerance", "0.25"));
+		BenchmarkRunner runner = new BenchmarkRunner(options.getInt("--warmup", BenchmarkRunner.DEFAULT_WARMUP),
+				options.getInt("--iterations", BenchmarkRunner.DEFAULT_MEASUREMENT));
+
+		Properties baseline = baselineFile == null ? null : load(baselineFile);
+		Properties current = new Properties();
+		int regressions = 0;
+
+		System.out.println(Result.header());
+		for (int n : sizes) {
+			for (Pattern pattern : Pattern.values()) {
+				for (IdRange range : IdRange.values()) {
+					Student[] template = Rosters.generate(pattern, range, n, seed);
+					for (SorterFactory factory : SORTERS) {
+						if (sorters != null && !("," + sorters + ",").contains("," + factory.name + ",")) {
+							continue;
+						}
+						if (factory.quadratic && n > quadraticLimit) {
+							continue;
+						}
+						for (String comparatorName : factory.keyBased ? new String[] {"id"} : new String[] {"id", "gpa"}) {
+							Comparator<Student> comparator = comparatorName.equals("id")
+									? new StudentIDComparator() : new StudentGPAComparator();
+							String label = factory.name + "/" + comparatorName + "/" + pattern.name().toLowerCase()
+									+ "/" + range.name().toLowerCase() + "/" + n;
+							SortWorkload workload = new SortWorkload(factory.creator.apply(comparator), template);
+							Result result;
+							try {
+								result = runner.run(label, workload);
+							} catch (StackOverflowError | OutOfMemoryError e) {
+								// Deep quicksort recursion, or counting sort over a wide id range
+								System.out.println(String.format("%-60s FAILED: %s", label, e.getClass().getSimpleName()));
+								continue;
+							}
+							String line = result.toString();
+							if (!workload.isSorted(factory.keyBased ? new StudentIDComparator() : comparator)) {
+								line += "  UNSORTED";
+							}
+							current.setProperty(label, Double.toString(result.getNanosPerOperation()));
+							if (baseline != null && baseline.getProperty(label) != null) {
+								double expected = Double.parseDouble(baseline.getProperty(label));
+								if (result.getNanosPerOperation() > expected * (1 + tolerance)) {
+									line += String.format("  REGRESSION (baseline %.1f ns/sort)", expected);
+									regressions++;
+								}
+							}
+							System.out.println(line);
+						}
+					}
+				}
+			}
+		}
+		if (saveFile != null) {
+			save(current, saveFile);
+		}
+		if (regressions > 0) {
+			System.out.println(regressions + " benchmark(s) regressed past the baseline");
+			System.exit(1);
+		}
+	}
+
+	private static Properties load(String file) {
+		Properties properties = new Properties();
+		try (InputStream in = new FileInputStream(file)) {
+			properties.load(in);
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Cannot read baseline: " + e.getMessage());
+		}
+		return properties;
+	}
+
+	private static void save(Properties properties, String file) {
+		try (OutputStream out = new FileOutputStream(file)) {
+			properties.store(out, "SortBenchmark baseline, mean nanoseconds per sort");
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Cannot write baseline: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Sorts fresh copies of a template roster, one copy per operation
+	 * @author Viet Dinh
+	 *
+	 */
+	private static class SortWorkload implements Workload {
+		private Sorter<Student> sorter;
+		private Student[] template;
+		private Student[][] copies;
+
+		public SortWorkload(Sorter<Student> sorter, Student[] template) {
+			this.sorter = sorter;
+			this.template = template;
+			this.copies = new Student[Math.max(1, ELEMENTS_PER_ITERATION / Math.max(1, template.length))][];
+		}
+
+		@Override
+		public void setUp() {
+			for (int i = 0; i < copies.length; i++) {
+				copies[i] = template.clone();
+			}
+		}
+
+		@Override
+		public int operations() {
+			return copies.length;
+		}
+
+		@Override
+		public void operation(int index) {
+			sorter.sort(copies[index]);
+		}
+
+		public boolean isSorted(Comparator<Student> comparator) {
+			Student[] sorted = copies[copies.length - 1];
+			for (int i = 1; i < sorted.length; i++) {
+				if (comparator.compare(sorted[i - 1], sorted[i]) > 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package dsa.bench.graph;
+
+import dsa.Weighted;
+
+/**
+ * Edge data for the generated graphs, holding only a weight
+ * @author Viet Dinh
+ *
+ */
+public class EdgeWeight implements Weighted {
+
+	private int weight;
+
+	/**
+	 * EdgeWeight constructor
+	 * @param weight weight of the edge
+	 */
+	public EdgeWeight(int weight) {
+		this.weight = weight;
+	}
+
+	@Override
+	public int getWeight() {
+		return weight;
+	}
+
+	@Override
+	public String toString() {
+		return Integer.toString(weight);
+	}
+}
@@ -0,0 +1,192 @@
+package dsa.bench.graph;
+
+import java.util.function.Supplier;
+
+import dsa.bench.BenchmarkRunner;
+import dsa.bench.BenchmarkRunner.Result;
+import dsa.bench.BenchmarkRunner.Workload;
+import dsa.bench.Options;
+import dsa.graph.AdjacencyListGraph;
+import dsa.graph.AdjacencyMapGraph;
+import dsa.graph.AdjacencyMatrixGraph;
+import dsa.graph.EdgeListGraph;
+import dsa.graph.Graph;
+import dsa.graph.Graph.Vertex;
+import dsa.graph.GraphTraversalUtil;
+import dsa.graph.MinimumSpanningTreeUtil;
+import dsa.graph.ShortestPathUtil;
+
+/**
+ * Benchmarks graph construction, BFS, DFS, Dijkstra, Kruskal and Prim-Jarnik
+ * on every Graph representation over the synthetic graphs of GraphGenerator.
+ *
+ * Usage: java dsa.bench.graph.GraphBenchmark [--edges 1e3,1e4,1e5] [--generators er,rmat,grid,complete]
+ *        [--graphs AdjacencyListGraph,AdjacencyMapGraph] [--algorithms bfs,dijkstra]
+ *        [--matrix-limit 4000] [--edge-list-limit 50000] [--warmup 2] [--iterations 3] [--seed 42]
+ *
+ * Sizes are given in edges, from 1e3 up to 1e7. AdjacencyMatrixGraph grows its
+ * matrix on every inserted vertex and is only run up to --matrix-limit vertices;
+ * EdgeListGraph scans every edge for each incidence query and is only run up to
+ * --edge-list-limit edges.
+ * @author Viet Dinh
+ *
+ */
+public class GraphBenchmark {
+
+	private static final String[] ALGORITHMS = {"construct", "bfs", "dfs", "dijkstra", "kruskal", "primJarnik"};
+
+	// Average degree of the random graphs
+	private static final int EDGES_PER_VERTEX = 8;
+
+	/**
+	 * A graph representation under test
+	 * @author Viet Dinh
+	 *
+	 */
+	private static class GraphFactory {
+		private String name;
+		private Supplier<Graph<Integer, EdgeWeight>> supplier;
+
+		public GraphFactory(String name, Supplier<Graph<Integer, EdgeWeight>> supplier) {
+			this.name = name;
+			this.supplier = supplier;
+		}
+	}
+
+	private static final GraphFactory[] GRAPHS = {
+		new GraphFactory("AdjacencyListGraph", () -> new AdjacencyListGraph<Integer, EdgeWeight>()),
+		new GraphFactory("AdjacencyMapGraph", () -> new AdjacencyMapGraph<Integer, EdgeWeight>()),
+		new GraphFactory("AdjacencyMatrixGraph", () -> new AdjacencyMatrixGraph<Integer, EdgeWeight>()),
+		new GraphFactory("EdgeListGraph", () -> new EdgeListGraph<Integer, EdgeWeight>()),
+	};
+
+	/**
+	 * Runs the graph benchmarks
+	 * @param args command line arguments, see the class comment
+	 * @throws InterruptedException if interrupted while waiting for the benchmark thread
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		// DFS in GraphTraversalUtil is recursive, so give it a deep stack
+		Thread thread = new Thread(null, () -> run(new Options(args)), "graph-benchmark", 1L << 30);
+		thread.start();
+		thread.join();
+	}
+
+	private static void run(Options options) {
+		int[] sizes = options.getInts("--edges", new int[] {1000, 10000, 100000});
+		String generators = options.get("--generators", "er,rmat,grid,complete");
+		String graphs = options.get("--graphs", null);
+		String algorithms = options.get("--algorithms", null);
+		int matrixLimit = options.getInt("--matrix-limit", 4000);
+		int edgeListLimit = options.getInt("--edge-list-limit", 50000);
+		long seed = options.getInt("--seed", 42);
+		BenchmarkRunner runner = new BenchmarkRunner(options.getInt("--warmup", 2), options.getInt("--iterations", 3));
+
+		System.out.println(Result.header());
+		for (int m : sizes) {
+			for (String generator : generators.split(",")) {
+				GraphGenerator input = generate(generator.trim(), m, seed);
+				for (GraphFactory factory : GRAPHS) {
+					if (!selected(graphs, factory.name)) {
+						continue;
+					}
+					if (factory.name.equals("AdjacencyMatrixGraph") && input.numVertices() > matrixLimit) {
+						continue;
+					}
+					if (factory.name.equals("EdgeListGraph") && input.numEdges() > edgeListLimit) {
+						continue;
+					}
+					for (String algorithm : ALGORITHMS) {
+						if (!selected(algorithms, algorithm)) {
+							continue;
+						}
+						String label = factory.name + "." + algorithm + "/" + generator.trim() + "/"
+								+ input.numVertices() + "v/" + input.numEdges() + "e";
+						try {
+							System.out.println(runner.run(label, new GraphWorkload(factory, input, algorithm)));
+						} catch (StackOverflowError | OutOfMemoryError e) {
+							System.out.println(String.format("%-60s FAILED: %s", label, e.getClass().getSimpleName()));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean selected(String list, String name) {
+		return list == null || ("," + list + ",").contains("," + name + ",");
+	}
+
+	private static GraphGenerator generate(String generator, int m, long seed) {
+		switch (generator) {
+		case "er":
+			return GraphGenerator.erdosRenyi(Math.max(2, m / EDGES_PER_VERTEX), m, seed);
+		case "rmat":
+			int scale = Math.max(1, 31 - Integer.numberOfLeadingZeros(Math.max(2, m / EDGES_PER_VERTEX)));
+			return GraphGenerator.rmat(scale, m, seed);
+		case "grid":
+			int side = Math.max(2, (int) Math.sqrt(m / 2.0));
+			return GraphGenerator.grid(side, side, seed);
+		case "complete":
+			return GraphGenerator.complete(Math.max(2, (int) Math.sqrt(2.0 * m)), seed);
+		default:
+			throw new IllegalArgumentException("Unknown generator: " + generator);
+		}
+	}
+
+	/**
+	 * Runs one algorithm, once per iteration, on a loaded graph
+	 * @author Viet Dinh
+	 *
+	 */
+	private static class GraphWorkload implements Workload {
+		private GraphFactory factory;
+		private GraphGenerator input;
+		private String algorithm;
+		private Graph<Integer, EdgeWeight> graph;
+		private Vertex<Integer>[] vertices;
+
+		public GraphWorkload(GraphFactory factory, GraphGenerator input, String algorithm) {
+			this.factory = factory;
+			this.input = input;
+			this.algorithm = algorithm;
+		}
+
+		@Override
+		public void setUp() {
+			if (graph == null && !algorithm.equals("construct")) {
+				graph = factory.supplier.get();
+				vertices = input.load(graph);
+			}
+		}
+
+		@Override
+		public int operations() {
+			return 1;
+		}
+
+		@Override
+		public void operation(int index) {
+			switch (algorithm) {
+			case "construct":
+				input.load(factory.supplier.get());
+				break;
+			case "bfs":
+				GraphTraversalUtil.breadthFirstSearch(graph, vertices[0]);
+				break;
+			case "dfs":
+				GraphTraversalUtil.depthFirstSearch(graph, vertices[0]);
+				break;
+			case "dijkstra":
+				ShortestPathUtil.dijkstra(graph, vertices[0]);
+				break;
+			case "kruskal":
+				MinimumSpanningTreeUtil.kruskal(graph);
+				break;
+			default:
+				MinimumSpanningTreeUtil.primJarnik(graph);
+				break;
+			}
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package dsa.bench.graph;
+
+import java.util.Random;
+
+import dsa.graph.Graph;
+import dsa.graph.Graph.Vertex;
+
+/**
+ * Reproducible, seeded synthetic graph generators.
+ * A generator produces a plain edge list that can be loaded into any of the
+ * Graph representations, so every representation is measured on exactly the
+ * same graph. Vertex elements are the indices 0..n-1 and every edge carries
+ * an EdgeWeight in 1..MAX_WEIGHT.
+ *
+ * All generators produce connected graphs, which Kruskal's algorithm in
+ * MinimumSpanningTreeUtil requires. The random generators may produce
+ * parallel edges.
+ * @author Viet Dinh
+ *
+ */
+public class GraphGenerator {
+
+	/** Largest weight given to a generated edge */
+	public static final int MAX_WEIGHT = 100;
+
+	private int numVertices;
+	private int[] from;
+	private int[] to;
+	private int[] weight;
+	private int numEdges;
+
+	private GraphGenerator(int numVertices, int capacity) {
+		this.numVertices = numVertices;
+		from = new int[capacity];
+		to = new int[capacity];
+		weight = new int[capacity];
+		numEdges = 0;
+	}
+
+	private void addEdge(int u, int v, Random rand) {
+		from[numEdges] = u;
+		to[numEdges] = v;
+		weight[numEdges] = 1 + rand.nextInt(MAX_WEIGHT);
+		numEdges++;
+	}
+
+	// Random recursive tree so the graph is connected before the remaining edges are added
+	private void addSpanningTree(Random rand) {
+		for (int v = 1; v < numVertices; v++) {
+			addEdge(rand.nextInt(v), v, rand);
+		}
+	}
+
+	/**
+	 * Erdos-Renyi G(n, m) graph: a random spanning tree plus uniformly random edges
+	 * @param n number of vertices
+	 * @param m number of edges, at least n - 1
+	 * @param seed random seed
+	 * @return generated graph
+	 */
+	public static GraphGenerator erdosRenyi(int n, int m, long seed) {
+		checkEdges(n, m);
+		Random rand = new Random(seed);
+		GraphGenerator g = new GraphGenerator(n, m);
+		g.addSpanningTree(rand);
+		while (g.numEdges < m) {
+			int u = rand.nextInt(n);
+			int v = rand.nextInt(n);
+			if (u != v) {
+				g.addEdge(u, v, rand);
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * R-MAT power-law graph (Chakrabarti, Zhan, Faloutsos) with the usual
+	 * (a, b, c, d) = (0.57, 0.19, 0.19, 0.05) quadrant probabilities
+	 * @param scale the graph has 2^scale vertices
+	 * @param m number of edges, at least 2^scale - 1
+	 * @param seed random seed
+	 * @return generated graph
+	 */
+	public static GraphGenerator rmat(int scale, int m, long seed) {
+		int n = 1 << scale;
+		checkEdges(n, m);
+		Random rand = new Random(seed);
+		GraphGenerator g = new GraphGenerator(n, m);
+		g.addSpanningTree(rand);
+		while (g.numEdges < m) {
+			int u = 0;
+			int v = 0;
+			for (int bit = scale - 1; bit >= 0; bit--) {
+				double p = rand.nextDouble();
+				if (p < 0.57) {
+					continue;
+				} else if (p < 0.76) {
+					v |= 1 << bit;
+				} else if (p < 0.95) {
+					u |= 1 << bit;
+				} else {
+					u |= 1 << bit;
+					v |= 1 << bit;
+				}
+			}
+			if (u != v) {
+				g.addEdge(u, v, rand);
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * Road-like 2D grid where every vertex is connected to its right and lower neighbor
+	 * @param rows number of rows
+	 * @param cols number of columns
+	 * @param seed random seed
+	 * @return generated graph
+	 */
+	public static GraphGenerator grid(int rows, int cols, long seed) {
+		Random rand = new Random(seed);
+		GraphGenerator g = new GraphGenerator(rows * cols, rows * (cols - 1) + cols * (rows - 1));
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				int v = r * cols + c;
+				if (c + 1 < cols) {
+					g.addEdge(v, v + 1, rand);
+				}
+				if (r + 1 < rows) {
+					g.addEdge(v, v + cols, rand);
+				}
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * Complete dense graph on n vertices
+	 * @param n number of vertices
+	 * @param seed random seed
+	 * @return generated graph
+	 */
+	public static GraphGenerator complete(int n, long seed) {
+		Random rand = new Random(seed);
+		GraphGenerator g = new GraphGenerator(n, (int) ((long) n * (n - 1) / 2));
+		for (int u = 0; u < n; u++) {
+			for (int v = u + 1; v < n; v++) {
+				g.addEdge(u, v, rand);
+			}
+		}
+		return g;
+	}
+
+	private static void checkEdges(int n, int m) {
+		if (n < 1 || m < n - 1) {
+			throw new IllegalArgumentException("A connected graph on " + n + " vertices needs at least " + (n - 1) + " edges.");
+		}
+	}
+
+	/**
+	 * Inserts the generated vertices and edges into the given empty graph
+	 * @param graph graph to load
+	 * @return the inserted vertices, indexed by their element
+	 */
+	@SuppressWarnings("unchecked")
+	public Vertex<Integer>[] load(Graph<Integer, EdgeWeight> graph) {
+		Vertex<Integer>[] vertices = (Vertex<Integer>[]) new Vertex[numVertices];
+		for (int i = 0; i < numVertices; i++) {
+			vertices[i] = graph.insertVertex(i);
+		}
+		for (int i = 0; i < numEdges; i++) {
+			graph.insertEdge(vertices[from[i]], vertices[to[i]], new EdgeWeight(weight[i]));
+		}
+		return vertices;
+	}
+
+	/**
+	 * Return the number of generated vertices
+	 * @return number of vertices
+	 */
+	public int numVertices() {
+		return numVertices;
+	}
+
+	/**
+	 * Return the number of generated edges
+	 * @return number of edges
+	 */
+	public int numEdges() {
+		return numEdges;
+	}
+}
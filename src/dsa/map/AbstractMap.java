@@ -1,6 +1,7 @@
 package dsa.map;
 
 import java.util.Iterator;
+import java.util.function.BiConsumer;
 
 /**
  * Abstract Map 
@@ -91,7 +92,7 @@ public abstract class AbstractMap<K, V> implements Map<K, V> {
 	        
 	        @Override
 	        public void remove() {
-	            throw new UnsupportedOperationException("The remove operation is not supported yet.");
+	            it.remove();
 	        }
 	   }
 	
@@ -123,7 +124,7 @@ public abstract class AbstractMap<K, V> implements Map<K, V> {
         
         @Override
         public void remove() {
-            throw new UnsupportedOperationException("The remove operation is not supported yet.");
+            it.remove();
         }
 	}
 
@@ -137,6 +138,76 @@ public abstract class AbstractMap<K, V> implements Map<K, V> {
 		return new KeyIterator(entrySet().iterator());
 	}
 	
+	@Override
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		for(Entry<K, V> entry : entrySet()) {
+			action.accept(entry.getKey(), entry.getValue());
+		}
+	}
+	
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		if(map == this) {
+			return;
+		}
+		ensureCapacity(size() + map.size());
+		for(Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+	
+	@Override
+	public void putAll(K[] keys, V[] values) {
+		checkLengths(keys, values);
+		ensureCapacity(size() + keys.length);
+		for(int i = 0; i < keys.length; i++) {
+			put(keys[i], values[i]);
+		}
+	}
+	
+	@Override
+	public int getAll(K[] keys, V[] values) {
+		if(values.length < keys.length) {
+			throw new IllegalArgumentException("The values array is shorter than the keys array.");
+		}
+		int found = 0;
+		for(int i = 0; i < keys.length; i++) {
+			values[i] = get(keys[i]);
+			if(values[i] != null) {
+				found++;
+			}
+		}
+		return found;
+	}
+	
+	@Override
+	public int removeAll(Iterable<? extends K> keys) {
+		int removed = 0;
+		for(K key : keys) {
+			if(remove(key) != null) {
+				removed++;
+			}
+		}
+		return removed;
+	}
+	
+	@Override
+	public void ensureCapacity(int expectedSize) {
+		// Nothing to size by default
+	}
+	
+	/**
+	 * Check that the key and value arrays of a bulk operation have the same length
+	 * @param keys keys
+	 * @param values values
+	 * @throws IllegalArgumentException if the arrays have different lengths
+	 */
+	protected static void checkLengths(Object[] keys, Object[] values) {
+		if(keys.length != values.length) {
+			throw new IllegalArgumentException("Keys and values must have the same length.");
+		}
+	}
+	
 	@Override
 	public Iterable<V> values() {
 		return new ValueIterable();
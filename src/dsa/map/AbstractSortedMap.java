@@ -1,5 +1,6 @@
 package dsa.map;
 
+import java.util.Arrays;
 import java.util.Comparator;
 
 /**
@@ -35,6 +36,212 @@ public abstract class AbstractSortedMap<K extends Comparable<K>, V> extends Abst
 		return compare.compare(key1, key2);
 	}
 
+	/**
+	 * Return the entry with the smallest key
+	 * @return first entry, or null if the map is empty
+	 */
+	public abstract Entry<K, V> firstEntry();
+
+	/**
+	 * Return the entry with the largest key
+	 * @return last entry, or null if the map is empty
+	 */
+	public abstract Entry<K, V> lastEntry();
+
+	/**
+	 * Return the entry with the largest key less than or equal to the given key
+	 * @param key key
+	 * @return floor entry, or null if there is none
+	 */
+	public abstract Entry<K, V> floorEntry(K key);
+
+	/**
+	 * Return the entry with the largest key strictly less than the given key
+	 * @param key key
+	 * @return lower entry, or null if there is none
+	 */
+	public abstract Entry<K, V> lowerEntry(K key);
+
+	/**
+	 * Return the entry with the smallest key greater than or equal to the given key
+	 * @param key key
+	 * @return ceiling entry, or null if there is none
+	 */
+	public abstract Entry<K, V> ceilingEntry(K key);
+
+	/**
+	 * Return the entry with the smallest key strictly greater than the given key
+	 * @param key key
+	 * @return higher entry, or null if there is none
+	 */
+	public abstract Entry<K, V> higherEntry(K key);
+
+	/**
+	 * Return a live view of the entries with keys between from and to, in
+	 * increasing key order. Its iterators seek to the first entry of the range
+	 * and stream from there, so visiting k entries costs O(log n + k) rather
+	 * than the size of the map. They support removal and fail fast on any
+	 * other insertion or removal
+	 * @param from lowest key, or null for no lower bound
+	 * @param fromInclusive true if an entry with key from is in the range
+	 * @param to highest key, or null for no upper bound
+	 * @param toInclusive true if an entry with key to is in the range
+	 * @return live view of the entries in the range
+	 */
+	public abstract Iterable<Entry<K, V>> entryRange(K from, boolean fromInclusive, K to, boolean toInclusive);
+
+	/**
+	 * Return a live view of the same entries as entryRange, in decreasing key
+	 * order. Its iterators seek to the last entry of the range
+	 * @param from lowest key, or null for no lower bound
+	 * @param fromInclusive true if an entry with key from is in the range
+	 * @param to highest key, or null for no upper bound
+	 * @param toInclusive true if an entry with key to is in the range
+	 * @return live view of the entries in the range, last key first
+	 */
+	public abstract Iterable<Entry<K, V>> descendingEntryRange(K from, boolean fromInclusive, K to, boolean toInclusive);
+
+	/**
+	 * Return a live view of the entries with keys greater than or equal to
+	 * low and strictly less than high, in increasing key order
+	 * @param low lowest key of the range
+	 * @param high key after the range
+	 * @return live view of the entries in the range
+	 */
+	public Iterable<Entry<K, V>> entriesBetween(K low, K high) {
+		return entryRange(low, true, high, false);
+	}
+
+	/**
+	 * Return a live view of every entry in decreasing key order
+	 * @return live view of the entries, last key first
+	 */
+	public Iterable<Entry<K, V>> descendingEntrySet() {
+		return descendingEntryRange(null, false, null, false);
+	}
+
+	/**
+	 * Return a live view of every entry in increasing key order
+	 * @return live view of the entries
+	 */
+	@Override
+	public Iterable<Entry<K, V>> entrySet() {
+		return entryRange(null, false, null, false);
+	}
+
+	/**
+	 * Adds every entry of the given map. The entries are sorted once and
+	 * handed to bulkPut, which sorted maps override to build in one pass
+	 * @param map map whose entries are added
+	 */
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		if(map == this) {
+			return;
+		}
+		Entry<K, V>[] entries = newEntries(map.size());
+		int n = 0;
+		for(Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			entries[n++] = new MapEntry<K, V>(entry.getKey(), entry.getValue());
+		}
+		bulkPut(sortEntries(entries, n));
+	}
+	
+	/**
+	 * Adds the entry keys[i], values[i] for every index i. The entries are
+	 * sorted once and handed to bulkPut, which sorted maps override to build
+	 * in one pass
+	 * @param keys keys to add
+	 * @param values values of the keys, at the same indexes
+	 * @throws IllegalArgumentException if the arrays have different lengths
+	 */
+	@Override
+	public void putAll(K[] keys, V[] values) {
+		checkLengths(keys, values);
+		Entry<K, V>[] entries = newEntries(keys.length);
+		for(int i = 0; i < keys.length; i++) {
+			entries[i] = new MapEntry<K, V>(keys[i], values[i]);
+		}
+		bulkPut(sortEntries(entries, keys.length));
+	}
+	
+	/**
+	 * Adds entries given in strictly increasing key order. By default each
+	 * one is put on its own
+	 * @param sorted entries sorted by key, without duplicate keys
+	 */
+	protected void bulkPut(Entry<K, V>[] sorted) {
+		for(Entry<K, V> entry : sorted) {
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+	
+	/**
+	 * Merges the entries of the map, in key order, with entries to add, in strictly
+	 * increasing key order. The entry to add wins when a key is in both
+	 * @param existing entries of the map in key order
+	 * @param existingSize number of entries of the map
+	 * @param sorted entries to add, sorted by key without duplicates
+	 * @return every entry in strictly increasing key order
+	 */
+	protected Entry<K, V>[] mergeEntries(Iterable<Entry<K, V>> existing, int existingSize, Entry<K, V>[] sorted) {
+		Entry<K, V>[] merged = newEntries(existingSize + sorted.length);
+		int n = 0;
+		int j = 0;
+		for(Entry<K, V> entry : existing) {
+			while(j < sorted.length && compare(sorted[j].getKey(), entry.getKey()) < 0) {
+				merged[n++] = sorted[j++];
+			}
+			if(j < sorted.length && compare(sorted[j].getKey(), entry.getKey()) == 0) {
+				merged[n++] = sorted[j++];
+			} else {
+				merged[n++] = entry;
+			}
+		}
+		while(j < sorted.length) {
+			merged[n++] = sorted[j++];
+		}
+		return n == merged.length ? merged : Arrays.copyOf(merged, n);
+	}
+	
+	// Sorts the first n entries by key unless they already are, and keeps only
+	// the last entry of every key, as repeated puts would
+	private Entry<K, V>[] sortEntries(Entry<K, V>[] entries, int n) {
+		boolean sorted = true;
+		for(int i = 1; i < n && sorted; i++) {
+			sorted = compare(entries[i - 1].getKey(), entries[i].getKey()) < 0;
+		}
+		if(!sorted) {
+			// Arrays.sort is stable on objects, so equal keys keep their input order
+			Arrays.sort(entries, 0, n, new EntryOrder());
+			int m = 0;
+			for(int i = 0; i < n; i++) {
+				if(i + 1 < n && compare(entries[i].getKey(), entries[i + 1].getKey()) == 0) {
+					continue;
+				}
+				entries[m++] = entries[i];
+			}
+			n = m;
+		}
+		return n == entries.length ? entries : Arrays.copyOf(entries, n);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private Entry<K, V>[] newEntries(int length) {
+		return (Entry<K, V>[]) new Entry[length];
+	}
+	
+	/**
+	 * Comparator of entries by key
+	 * @author Viet Dinh
+	 *
+	 */
+	private class EntryOrder implements Comparator<Entry<K, V>> {
+		public int compare(Entry<K, V> first, Entry<K, V> second) {
+			return AbstractSortedMap.this.compare(first.getKey(), second.getKey());
+		}
+	}
+	
 	/**
 	 * Comparator for the two element
 	 * @author Viet Dinh
@@ -0,0 +1,466 @@
+package dsa.map;
+
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+/**
+ * Skip list map with one node per key.
+ * Every node keeps its forward links in an array sized to its own height, so
+ * a key whose tower is h levels tall costs one object and h links instead of
+ * the h quad-nodes of SkipListMap, and a search steps through array slots
+ * rather than down pointers. The value is stored once, so put and get never
+ * walk up a tower. The bottom level also links backward for descending
+ * iteration.
+ *
+ * Towers are capped at a maximum level, and a node reaches each next level
+ * with the promotion probability p, giving 1 / (1 - p) links per node on
+ * average. A lower probability saves memory at the cost of longer runs on
+ * each level of a search.
+ * @author Viet Dinh
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class CompactSkipListMap<K extends Comparable<K>, V> extends AbstractSortedMap<K, V> {
+
+	/** Default maximum tower height, enough for 2^32 keys at probability 1/2 */
+	public static final int DEFAULT_MAX_LEVEL = 32;
+
+	/** Default probability of a tower growing by one more level */
+	public static final double DEFAULT_PROBABILITY = 0.5;
+
+	private static final int MAX_LEVEL_LIMIT = 64;
+
+	private final int maxLevel;
+	private final double probability;
+	private Random coinToss;
+
+	// Sentinel before the first node, as tall as the maximum level
+	private Node<K, V> head;
+	// Last node, or null if the map is empty
+	private Node<K, V> tail;
+	// Number of levels in use, at least 1
+	private int level;
+	private int size;
+
+	// Number of insertions and removals, checked by the iterators to fail fast
+	private int modCount;
+
+	// Last node before the key on every level, filled by the searches of put
+	// and remove and kept to avoid allocating it on every call
+	private Node<K, V>[] update;
+
+	/**
+	 * CompactSkipListMap constructor without comparator
+	 */
+	public CompactSkipListMap() {
+		this(null);
+	}
+
+	/**
+	 * CompactSkipListMap constructor with given comparator
+	 * @param compare comparator
+	 */
+	public CompactSkipListMap(Comparator<K> compare) {
+		this(compare, DEFAULT_MAX_LEVEL, DEFAULT_PROBABILITY);
+	}
+
+	/**
+	 * CompactSkipListMap constructor with given comparator, maximum tower
+	 * height and promotion probability
+	 * @param compare comparator
+	 * @param maxLevel maximum tower height, from 1 to 64
+	 * @param probability probability of a tower growing by one more level
+	 * @throws IllegalArgumentException if the maximum level is out of range, or
+	 *         the probability is not at least 0 and less than 1
+	 */
+	@SuppressWarnings("unchecked")
+	public CompactSkipListMap(Comparator<K> compare, int maxLevel, double probability) {
+		super(compare);
+		if(maxLevel < 1 || maxLevel > MAX_LEVEL_LIMIT) {
+			throw new IllegalArgumentException("Max level must be between 1 and " + MAX_LEVEL_LIMIT + ".");
+		}
+		if(!(probability >= 0 && probability < 1)) {
+			throw new IllegalArgumentException("Probability must be at least 0 and less than 1.");
+		}
+		this.maxLevel = maxLevel;
+		this.probability = probability;
+		coinToss = new Random();
+		update = (Node<K, V>[]) new Node[maxLevel];
+		clear();
+	}
+
+	/**
+	 * Node holding one key, its value and a forward link for every level of
+	 * its tower
+	 * @author Viet Dinh
+	 *
+	 * @param <K> key
+	 * @param <V> value
+	 */
+	private static class Node<K, V> extends MapEntry<K, V> {
+		private final Node<K, V>[] next;
+		// Previous node of the bottom level, or null for the first node
+		private Node<K, V> prev;
+
+		@SuppressWarnings("unchecked")
+		public Node(K key, V value, int height) {
+			super(key, value);
+			next = (Node<K, V>[]) new Node[height];
+		}
+	}
+
+	private void clear() {
+		head = new Node<K, V>(null, null, maxLevel);
+		tail = null;
+		level = 1;
+		size = 0;
+	}
+
+	/**
+	 * Return the maximum tower height
+	 * @return maximum level
+	 */
+	public int getMaxLevel() {
+		return maxLevel;
+	}
+
+	/**
+	 * Return the probability of a tower growing by one more level
+	 * @return promotion probability
+	 */
+	public double getProbability() {
+		return probability;
+	}
+
+	// Draws a tower height: 1 always, and each next level with the probability
+	private int randomLevel() {
+		int height = 1;
+		while(height < maxLevel && coinToss.nextDouble() < probability) {
+			height++;
+		}
+		return height;
+	}
+
+	// Last node whose key is less than the given key, or the head if there is
+	// none. Fills the given array with the last such node of every level in use
+	private Node<K, V> findPredecessor(K key, Node<K, V>[] update) {
+		Node<K, V> x = head;
+		// Node known not to be less than the key, so lower levels skip comparing it
+		Node<K, V> checked = null;
+		for(int i = level - 1; i >= 0; i--) {
+			Node<K, V> n = x.next[i];
+			while(n != null && n != checked && compare(n.getKey(), key) < 0) {
+				x = n;
+				n = x.next[i];
+			}
+			checked = n;
+			if(update != null) {
+				update[i] = x;
+			}
+		}
+		return x;
+	}
+
+	@Override
+	public V get(K key) {
+		Node<K, V> n = findPredecessor(key, null).next[0];
+		if(n != null && compare(n.getKey(), key) == 0) {
+			return n.getValue();
+		}
+		return null;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		Node<K, V> n = findPredecessor(key, update).next[0];
+		if(n != null && compare(n.getKey(), key) == 0) {
+			return n.setValue(value);
+		}
+		int height = randomLevel();
+		if(height > level) {
+			for(int i = level; i < height; i++) {
+				update[i] = head;
+			}
+			level = height;
+		}
+		Node<K, V> node = new Node<K, V>(key, value, height);
+		for(int i = 0; i < height; i++) {
+			node.next[i] = update[i].next[i];
+			update[i].next[i] = node;
+		}
+		node.prev = update[0] == head ? null : update[0];
+		if(node.next[0] != null) {
+			node.next[0].prev = node;
+		} else {
+			tail = node;
+		}
+		size++;
+		modCount++;
+		return null;
+	}
+
+	@Override
+	public V remove(K key) {
+		Node<K, V> n = findPredecessor(key, update).next[0];
+		if(n == null || compare(n.getKey(), key) != 0) {
+			return null;
+		}
+		// The node follows the predecessor of every level of its tower
+		for(int i = 0; i < n.next.length; i++) {
+			update[i].next[i] = n.next[i];
+		}
+		if(n.next[0] != null) {
+			n.next[0].prev = n.prev;
+		} else {
+			tail = n.prev;
+		}
+		while(level > 1 && head.next[level - 1] == null) {
+			level--;
+		}
+		size--;
+		modCount++;
+		return n.getValue();
+	}
+
+	/**
+	 * Adds entries given in strictly increasing key order. An empty map, or
+	 * one with fewer entries than are added, is rebuilt in one pass by
+	 * appending every node at the end of each level of its tower
+	 * @param sorted entries sorted by key, without duplicate keys
+	 */
+	@Override
+	protected void bulkPut(Entry<K, V>[] sorted) {
+		if(sorted.length == 0) {
+			return;
+		}
+		if(size > sorted.length) {
+			super.bulkPut(sorted);
+			return;
+		}
+		Entry<K, V>[] all = size == 0 ? sorted : mergeEntries(entrySet(), size, sorted);
+		clear();
+		Node<K, V>[] last = update;
+		for(int i = 0; i < maxLevel; i++) {
+			last[i] = head;
+		}
+		Node<K, V> prev = null;
+		for(Entry<K, V> entry : all) {
+			int height = randomLevel();
+			Node<K, V> node = new Node<K, V>(entry.getKey(), entry.getValue(), height);
+			for(int i = 0; i < height; i++) {
+				last[i].next[i] = node;
+				last[i] = node;
+			}
+			node.prev = prev;
+			prev = node;
+			if(height > level) {
+				level = height;
+			}
+		}
+		tail = prev;
+		size = all.length;
+		modCount++;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	// Node of the largest key below the given key, or equal to it if inclusive
+	private Node<K, V> floor(K key, boolean inclusive) {
+		Node<K, V> p = findPredecessor(key, null);
+		if(inclusive) {
+			Node<K, V> n = p.next[0];
+			if(n != null && compare(n.getKey(), key) == 0) {
+				return n;
+			}
+		}
+		return p == head ? null : p;
+	}
+
+	// Node of the smallest key above the given key, or equal to it if inclusive
+	private Node<K, V> ceiling(K key, boolean inclusive) {
+		Node<K, V> n = findPredecessor(key, null).next[0];
+		if(!inclusive && n != null && compare(n.getKey(), key) == 0) {
+			n = n.next[0];
+		}
+		return n;
+	}
+
+	@Override
+	public Entry<K, V> firstEntry() {
+		return head.next[0];
+	}
+
+	@Override
+	public Entry<K, V> lastEntry() {
+		return tail;
+	}
+
+	@Override
+	public Entry<K, V> floorEntry(K key) {
+		return floor(key, true);
+	}
+
+	@Override
+	public Entry<K, V> lowerEntry(K key) {
+		return floor(key, false);
+	}
+
+	@Override
+	public Entry<K, V> ceilingEntry(K key) {
+		return ceiling(key, true);
+	}
+
+	@Override
+	public Entry<K, V> higherEntry(K key) {
+		return ceiling(key, false);
+	}
+
+	/**
+	 * Return a live view of the entries with keys between from and to, in key
+	 * order. Its iterators search the towers for the first entry in expected
+	 * O(log n) and then walk the bottom level
+	 * @param from lowest key, or null for no lower bound
+	 * @param fromInclusive true if an entry with key from is in the range
+	 * @param to highest key, or null for no upper bound
+	 * @param toInclusive true if an entry with key to is in the range
+	 * @return live view of the entries in the range
+	 */
+	@Override
+	public Iterable<Entry<K, V>> entryRange(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		return new RangeIterable(from, fromInclusive, to, toInclusive, false);
+	}
+
+	@Override
+	public Iterable<Entry<K, V>> descendingEntryRange(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		return new RangeIterable(from, fromInclusive, to, toInclusive, true);
+	}
+
+	@Override
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		int expectedModCount = modCount;
+		for(Node<K, V> current = head.next[0]; current != null; current = current.next[0]) {
+			action.accept(current.getKey(), current.getValue());
+			if(modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+
+	/**
+	 * Range Iterable that returns the range iterator
+	 * @author Viet Dinh
+	 *
+	 */
+	private class RangeIterable implements Iterable<Entry<K, V>> {
+		private K from;
+		private boolean fromInclusive;
+		private K to;
+		private boolean toInclusive;
+		private boolean descending;
+
+		public RangeIterable(K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending) {
+			this.from = from;
+			this.fromInclusive = fromInclusive;
+			this.to = to;
+			this.toInclusive = toInclusive;
+			this.descending = descending;
+		}
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			if(descending) {
+				return new RangeIterator(to == null ? tail : floor(to, toInclusive), from, fromInclusive, true);
+			}
+			return new RangeIterator(from == null ? head.next[0] : ceiling(from, fromInclusive), to, toInclusive, false);
+		}
+	}
+
+	/**
+	 * Iterator over the bottom level of the skip list, forward or backward
+	 * from a starting node until a key bound
+	 * @author Viet Dinh
+	 *
+	 */
+	private class RangeIterator implements Iterator<Entry<K, V>> {
+		// Next node to return, or null at the end of the list
+		private Node<K, V> cursor;
+		// Key where the iteration ends, or null to run to the end of the list
+		private K end;
+		private boolean endInclusive;
+		private boolean descending;
+		private Node<K, V> lastReturned;
+		private int expectedModCount = modCount;
+
+		public RangeIterator(Node<K, V> cursor, K end, boolean endInclusive, boolean descending) {
+			this.cursor = cursor;
+			this.end = end;
+			this.endInclusive = endInclusive;
+			this.descending = descending;
+		}
+
+		private void checkForComodification() {
+			if(modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			checkForComodification();
+			if(cursor == null) {
+				return false;
+			}
+			if(end == null) {
+				return true;
+			}
+			int comp = compare(cursor.getKey(), end);
+			if(descending) {
+				comp = -comp;
+			}
+			return comp < 0 || (comp == 0 && endInclusive);
+		}
+
+		@Override
+		public Entry<K, V> next() {
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = cursor;
+			cursor = descending ? cursor.prev : cursor.next[0];
+			return lastReturned;
+		}
+
+		@Override
+		public void remove() {
+			if(lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			checkForComodification();
+			// The cursor is past the removed node, whose links are left as they were
+			CompactSkipListMap.this.remove(lastReturned.getKey());
+			lastReturned = null;
+			expectedModCount = modCount;
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(this.getClass().getSimpleName() + "[");
+		for(Node<K, V> cursor = head.next[0]; cursor != null; cursor = cursor.next[0]) {
+			sb.append(cursor.getKey());
+			if(cursor.next[0] != null) {
+				sb.append(", ");
+			}
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+}
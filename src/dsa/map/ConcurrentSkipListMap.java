@@ -0,0 +1,887 @@
+package dsa.map;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Thread-safe skip list map without locks.
+ * The entries live in a singly linked bottom list of nodes, and the towers
+ * above them are index nodes that only point right and down, so every link
+ * can be changed with a single compare-and-set and no thread ever waits
+ * for another.
+ *
+ * A node is removed in three steps: its value is set to null, which is the
+ * moment it leaves the map, then a marker node is appended after it so that
+ * no insertion can be linked behind it, and finally its predecessor is
+ * pointed past both. Any thread that runs into a half removed node finishes
+ * the job before going on, and index nodes of removed nodes are unlinked by
+ * the searches that pass them.
+ *
+ * Tower heights are drawn from ThreadLocalRandom, so threads never share a
+ * random generator. Iterators and views are weakly consistent: they never
+ * throw ConcurrentModificationException and return entries as they were
+ * when read. size counts with a LongAdder and is exact only when no other
+ * thread is writing. Null keys and values are not allowed.
+ * @author Viet Dinh
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class ConcurrentSkipListMap<K extends Comparable<K>, V> extends AbstractSortedMap<K, V> {
+
+	// Value of the node at the start of the bottom list
+	private static final Object BASE_HEADER = new Object();
+
+	// Tallest tower, one level per halving of the probability
+	private static final int MAX_LEVEL = 31;
+
+	private static final VarHandle HEAD;
+	private static final VarHandle NODE_VALUE;
+	private static final VarHandle NODE_NEXT;
+	private static final VarHandle INDEX_RIGHT;
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			HEAD = lookup.findVarHandle(ConcurrentSkipListMap.class, "head", HeadIndex.class);
+			NODE_VALUE = lookup.findVarHandle(Node.class, "value", Object.class);
+			NODE_NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+			INDEX_RIGHT = lookup.findVarHandle(Index.class, "right", Index.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// Top left index node; its levels go down to the bottom list header
+	private volatile HeadIndex<K, V> head;
+
+	private final LongAdder count;
+
+	/**
+	 * ConcurrentSkipListMap constructor without comparator
+	 */
+	public ConcurrentSkipListMap() {
+		this(null);
+	}
+
+	/**
+	 * ConcurrentSkipListMap constructor with given comparator
+	 * @param compare comparator
+	 */
+	public ConcurrentSkipListMap(Comparator<K> compare) {
+		super(compare);
+		head = new HeadIndex<K, V>(new Node<K, V>(null, BASE_HEADER, null), null, null, 1);
+		count = new LongAdder();
+	}
+
+	/**
+	 * Node of the bottom list. A null value means the node is removed; a
+	 * marker is a node whose value is itself, appended after a removed node
+	 * @author Viet Dinh
+	 *
+	 * @param <K> key
+	 * @param <V> value
+	 */
+	private static final class Node<K, V> {
+		private final K key;
+		private volatile Object value;
+		private volatile Node<K, V> next;
+
+		public Node(K key, Object value, Node<K, V> next) {
+			this.key = key;
+			this.value = value;
+			this.next = next;
+		}
+
+		// Creates a marker in front of the given node
+		public Node(Node<K, V> next) {
+			this.key = null;
+			this.value = this;
+			this.next = next;
+		}
+
+		public boolean casValue(Object expected, Object value) {
+			return NODE_VALUE.compareAndSet(this, expected, value);
+		}
+
+		public boolean casNext(Node<K, V> expected, Node<K, V> next) {
+			return NODE_NEXT.compareAndSet(this, expected, next);
+		}
+
+		public boolean isBaseHeader() {
+			return value == BASE_HEADER;
+		}
+
+		// Appends a marker, so that nothing can be linked after this removed node
+		public boolean appendMarker(Node<K, V> f) {
+			return casNext(f, new Node<K, V>(f));
+		}
+
+		// Helps unlink this removed node, which follows b and precedes f
+		public void helpDelete(Node<K, V> b, Node<K, V> f) {
+			if(f == next && this == b.next) {
+				if(f == null || f.value != f) {
+					casNext(f, new Node<K, V>(f));
+				} else {
+					b.casNext(this, f.next);
+				}
+			}
+		}
+
+		// Value if the node is a live entry, null otherwise
+		@SuppressWarnings("unchecked")
+		public V validValue() {
+			Object v = value;
+			if(v == this || v == BASE_HEADER) {
+				return null;
+			}
+			return (V) v;
+		}
+
+		// Copy of the key and value, or null if the node is removed
+		public Entry<K, V> snapshot() {
+			V v = validValue();
+			return v == null ? null : new MapEntry<K, V>(key, v);
+		}
+	}
+
+	/**
+	 * Index node of a tower. The node and the level below never change
+	 * @author Viet Dinh
+	 *
+	 * @param <K> key
+	 * @param <V> value
+	 */
+	private static class Index<K, V> {
+		private final Node<K, V> node;
+		private final Index<K, V> down;
+		private volatile Index<K, V> right;
+
+		public Index(Node<K, V> node, Index<K, V> down, Index<K, V> right) {
+			this.node = node;
+			this.down = down;
+			this.right = right;
+		}
+
+		public boolean casRight(Index<K, V> expected, Index<K, V> right) {
+			return INDEX_RIGHT.compareAndSet(this, expected, right);
+		}
+
+		public boolean indexesDeletedNode() {
+			return node.value == null;
+		}
+
+		// Links newSucc between this index and succ, unless this node was removed
+		public boolean link(Index<K, V> succ, Index<K, V> newSucc) {
+			newSucc.right = succ;
+			return node.value != null && casRight(succ, newSucc);
+		}
+
+		// Unlinks succ, unless this node was removed
+		public boolean unlink(Index<K, V> succ) {
+			return node.value != null && casRight(succ, succ.right);
+		}
+	}
+
+	/**
+	 * Index node of the head tower, which knows its level
+	 * @author Viet Dinh
+	 *
+	 * @param <K> key
+	 * @param <V> value
+	 */
+	private static final class HeadIndex<K, V> extends Index<K, V> {
+		private final int level;
+
+		public HeadIndex(Node<K, V> node, Index<K, V> down, Index<K, V> right, int level) {
+			super(node, down, right);
+			this.level = level;
+		}
+	}
+
+	private boolean casHead(HeadIndex<K, V> expected, HeadIndex<K, V> h) {
+		return HEAD.compareAndSet(this, expected, h);
+	}
+
+	// Node at the start of the bottom list, the same for every head
+	private Node<K, V> baseHeader() {
+		Index<K, V> h = head;
+		return h.node;
+	}
+
+	// Bottom node whose key is less than the given key, found through the
+	// towers; index nodes of removed nodes met on the way are unlinked
+	private Node<K, V> findPredecessor(K key) {
+		while(true) {
+			Index<K, V> q = head;
+			Index<K, V> r = q.right;
+			while(true) {
+				if(r != null) {
+					Node<K, V> n = r.node;
+					if(n.value == null) {
+						if(!q.unlink(r)) {
+							break;
+						}
+						r = q.right;
+						continue;
+					}
+					if(compare(key, n.key) > 0) {
+						q = r;
+						r = r.right;
+						continue;
+					}
+				}
+				Index<K, V> d = q.down;
+				if(d == null) {
+					return q.node;
+				}
+				q = d;
+				r = d.right;
+			}
+		}
+	}
+
+	// Live node with the given key, or null; removed nodes on the way are unlinked
+	private Node<K, V> findNode(K key) {
+		outer: while(true) {
+			Node<K, V> b = findPredecessor(key);
+			Node<K, V> n = b.next;
+			while(true) {
+				if(n == null) {
+					break outer;
+				}
+				Node<K, V> f = n.next;
+				// Inconsistent read, b changed meanwhile
+				if(n != b.next) {
+					break;
+				}
+				Object v = n.value;
+				if(v == null) {
+					n.helpDelete(b, f);
+					break;
+				}
+				// b was removed
+				if(b.value == null || v == n) {
+					break;
+				}
+				int c = compare(key, n.key);
+				if(c == 0) {
+					return n;
+				}
+				if(c < 0) {
+					break outer;
+				}
+				b = n;
+				n = f;
+			}
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(K key) {
+		if(key == null) {
+			return null;
+		}
+		// Same walk as findNode, keeping the value it read along with the node
+		outer: while(true) {
+			Node<K, V> b = findPredecessor(key);
+			Node<K, V> n = b.next;
+			while(true) {
+				if(n == null) {
+					break outer;
+				}
+				Node<K, V> f = n.next;
+				if(n != b.next) {
+					break;
+				}
+				Object v = n.value;
+				if(v == null) {
+					n.helpDelete(b, f);
+					break;
+				}
+				if(b.value == null || v == n) {
+					break;
+				}
+				int c = compare(key, n.key);
+				if(c == 0) {
+					return (V) v;
+				}
+				if(c < 0) {
+					break outer;
+				}
+				b = n;
+				n = f;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Adds the entry, or replaces the value of the key if it already exists
+	 * @param key key
+	 * @param value value
+	 * @return original value of the key, or null if it did not exist
+	 * @throws IllegalArgumentException if the key or the value is null
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public V put(K key, V value) {
+		if(key == null) {
+			throw new IllegalArgumentException("Key cannot be null.");
+		}
+		if(value == null) {
+			throw new IllegalArgumentException("Value cannot be null.");
+		}
+		Node<K, V> z;
+		outer: while(true) {
+			Node<K, V> b = findPredecessor(key);
+			Node<K, V> n = b.next;
+			while(true) {
+				if(n != null) {
+					Node<K, V> f = n.next;
+					if(n != b.next) {
+						break;
+					}
+					Object v = n.value;
+					if(v == null) {
+						n.helpDelete(b, f);
+						break;
+					}
+					if(b.value == null || v == n) {
+						break;
+					}
+					int c = compare(key, n.key);
+					if(c > 0) {
+						b = n;
+						n = f;
+						continue;
+					}
+					if(c == 0) {
+						if(n.casValue(v, value)) {
+							return (V) v;
+						}
+						// Lost a race with another writer of the key
+						break;
+					}
+				}
+				z = new Node<K, V>(key, value, n);
+				if(!b.casNext(n, z)) {
+					break;
+				}
+				break outer;
+			}
+		}
+		count.increment();
+		addIndex(z, key);
+		return null;
+	}
+
+	// Draws a tower height, one level with probability 1/2, two with 1/4 and so on
+	private static int randomLevel() {
+		int rnd = ThreadLocalRandom.current().nextInt();
+		int level = 1;
+		while((rnd & 1) != 0 && level < MAX_LEVEL) {
+			level++;
+			rnd >>>= 1;
+		}
+		return level;
+	}
+
+	// Builds a tower for the new node z, with half of the nodes getting none
+	private void addIndex(Node<K, V> z, K key) {
+		if(ThreadLocalRandom.current().nextBoolean()) {
+			return;
+		}
+		int level = randomLevel();
+		Index<K, V> idx = null;
+		HeadIndex<K, V> h = head;
+		int max = h.level;
+		if(level <= max) {
+			for(int i = 1; i <= level; i++) {
+				idx = new Index<K, V>(z, idx, null);
+			}
+		} else {
+			// Grow the head by one level only, however tall the tower came out
+			level = max + 1;
+			@SuppressWarnings("unchecked")
+			Index<K, V>[] idxs = (Index<K, V>[]) new Index[level + 1];
+			for(int i = 1; i <= level; i++) {
+				idxs[i] = idx = new Index<K, V>(z, idx, null);
+			}
+			while(true) {
+				h = head;
+				int oldLevel = h.level;
+				// Another thread grew the head already
+				if(level <= oldLevel) {
+					break;
+				}
+				HeadIndex<K, V> newh = h;
+				Node<K, V> oldbase = baseHeader();
+				for(int j = oldLevel + 1; j <= level; j++) {
+					newh = new HeadIndex<K, V>(oldbase, newh, idxs[j], j);
+				}
+				if(casHead(h, newh)) {
+					h = newh;
+					level = oldLevel;
+					idx = idxs[level];
+					break;
+				}
+			}
+		}
+		// Link the index nodes of the tower from the top level down
+		int insertionLevel = level;
+		splice: while(true) {
+			int j = h.level;
+			Index<K, V> q = h;
+			Index<K, V> r = q.right;
+			Index<K, V> t = idx;
+			while(true) {
+				if(q == null || t == null) {
+					break splice;
+				}
+				if(r != null) {
+					Node<K, V> n = r.node;
+					int c = compare(key, n.key);
+					if(n.value == null) {
+						if(!q.unlink(r)) {
+							break;
+						}
+						r = q.right;
+						continue;
+					}
+					if(c > 0) {
+						q = r;
+						r = r.right;
+						continue;
+					}
+				}
+				if(j == insertionLevel) {
+					if(!q.link(r, t)) {
+						break;
+					}
+					// The node was removed meanwhile, so clean up its tower
+					if(t.node.value == null) {
+						findNode(key);
+						break splice;
+					}
+					if(--insertionLevel == 0) {
+						break splice;
+					}
+				}
+				if(--j >= insertionLevel && j < level) {
+					t = t.down;
+				}
+				q = q.down;
+				r = q.right;
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V remove(K key) {
+		if(key == null) {
+			return null;
+		}
+		outer: while(true) {
+			Node<K, V> b = findPredecessor(key);
+			Node<K, V> n = b.next;
+			while(true) {
+				if(n == null) {
+					break outer;
+				}
+				Node<K, V> f = n.next;
+				if(n != b.next) {
+					break;
+				}
+				Object v = n.value;
+				if(v == null) {
+					n.helpDelete(b, f);
+					break;
+				}
+				if(b.value == null || v == n) {
+					break;
+				}
+				int c = compare(key, n.key);
+				if(c < 0) {
+					break outer;
+				}
+				if(c > 0) {
+					b = n;
+					n = f;
+					continue;
+				}
+				if(!n.casValue(v, null)) {
+					break;
+				}
+				count.decrement();
+				if(!n.appendMarker(f) || !b.casNext(n, f)) {
+					// Let a search finish unlinking it
+					findNode(key);
+				} else {
+					// Unlink the index nodes of the tower
+					findPredecessor(key);
+				}
+				return (V) v;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public int size() {
+		long s = count.sum();
+		return s < 0 ? 0 : s > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) s;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return findFirst() == null;
+	}
+
+	// First live node, or null if the map is empty
+	private Node<K, V> findFirst() {
+		Node<K, V> b = baseHeader();
+		while(true) {
+			Node<K, V> n = b.next;
+			if(n == null) {
+				return null;
+			}
+			if(n.value != null) {
+				return n;
+			}
+			n.helpDelete(b, n.next);
+		}
+	}
+
+	// Last live node, or null if the map is empty. The towers lead to the end
+	// of the list, which is walked from the last index node of the bottom level
+	private Node<K, V> findLast() {
+		Index<K, V> q = head;
+		while(true) {
+			Index<K, V> r = q.right;
+			if(r != null) {
+				if(r.indexesDeletedNode()) {
+					q.unlink(r);
+					q = head;
+				} else {
+					q = r;
+				}
+				continue;
+			}
+			Index<K, V> d = q.down;
+			if(d != null) {
+				q = d;
+				continue;
+			}
+			Node<K, V> b = q.node;
+			Node<K, V> n = b.next;
+			while(true) {
+				if(n == null) {
+					return b.isBaseHeader() ? null : b;
+				}
+				Node<K, V> f = n.next;
+				if(n != b.next) {
+					break;
+				}
+				Object v = n.value;
+				if(v == null) {
+					n.helpDelete(b, f);
+					break;
+				}
+				if(b.value == null || v == n) {
+					break;
+				}
+				b = n;
+				n = f;
+			}
+			q = head;
+		}
+	}
+
+	// Live node nearest to the key: the largest key below it when lower,
+	// the smallest key above it otherwise, or the key itself when inclusive
+	private Node<K, V> findNear(K key, boolean lower, boolean inclusive) {
+		while(true) {
+			Node<K, V> b = findPredecessor(key);
+			Node<K, V> n = b.next;
+			while(true) {
+				if(n == null) {
+					return !lower || b.isBaseHeader() ? null : b;
+				}
+				Node<K, V> f = n.next;
+				if(n != b.next) {
+					break;
+				}
+				Object v = n.value;
+				if(v == null) {
+					n.helpDelete(b, f);
+					break;
+				}
+				if(b.value == null || v == n) {
+					break;
+				}
+				int c = compare(key, n.key);
+				if((c == 0 && inclusive) || (c < 0 && !lower)) {
+					return n;
+				}
+				if(c <= 0 && lower) {
+					return b.isBaseHeader() ? null : b;
+				}
+				b = n;
+				n = f;
+			}
+		}
+	}
+
+	// Copy of the entry of the node nearest to the key; retried if the node is
+	// removed between finding it and reading its value
+	private Entry<K, V> nearEntry(K key, boolean lower, boolean inclusive) {
+		while(true) {
+			Node<K, V> n = findNear(key, lower, inclusive);
+			if(n == null) {
+				return null;
+			}
+			Entry<K, V> entry = n.snapshot();
+			if(entry != null) {
+				return entry;
+			}
+		}
+	}
+
+	/**
+	 * Return a copy of the entry with the smallest key; setting its value
+	 * does not change the map
+	 * @return first entry, or null if the map is empty
+	 */
+	@Override
+	public Entry<K, V> firstEntry() {
+		while(true) {
+			Node<K, V> n = findFirst();
+			if(n == null) {
+				return null;
+			}
+			Entry<K, V> entry = n.snapshot();
+			if(entry != null) {
+				return entry;
+			}
+		}
+	}
+
+	/**
+	 * Return a copy of the entry with the largest key; setting its value
+	 * does not change the map
+	 * @return last entry, or null if the map is empty
+	 */
+	@Override
+	public Entry<K, V> lastEntry() {
+		while(true) {
+			Node<K, V> n = findLast();
+			if(n == null) {
+				return null;
+			}
+			Entry<K, V> entry = n.snapshot();
+			if(entry != null) {
+				return entry;
+			}
+		}
+	}
+
+	@Override
+	public Entry<K, V> floorEntry(K key) {
+		return nearEntry(key, true, true);
+	}
+
+	@Override
+	public Entry<K, V> lowerEntry(K key) {
+		return nearEntry(key, true, false);
+	}
+
+	@Override
+	public Entry<K, V> ceilingEntry(K key) {
+		return nearEntry(key, false, true);
+	}
+
+	@Override
+	public Entry<K, V> higherEntry(K key) {
+		return nearEntry(key, false, false);
+	}
+
+	/**
+	 * Return a weakly consistent view of the entries with keys between from
+	 * and to, in key order. Its iterators search the towers for the first
+	 * entry and then walk the bottom list, returning copies of the entries
+	 * @param from lowest key, or null for no lower bound
+	 * @param fromInclusive true if an entry with key from is in the range
+	 * @param to highest key, or null for no upper bound
+	 * @param toInclusive true if an entry with key to is in the range
+	 * @return view of the entries in the range
+	 */
+	@Override
+	public Iterable<Entry<K, V>> entryRange(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		return new RangeIterable(from, fromInclusive, to, toInclusive, false);
+	}
+
+	/**
+	 * Return a weakly consistent view of the same entries as entryRange, in
+	 * decreasing key order. The bottom list only links forward, so each step
+	 * searches the towers for the next lower key in expected O(log n)
+	 * @param from lowest key, or null for no lower bound
+	 * @param fromInclusive true if an entry with key from is in the range
+	 * @param to highest key, or null for no upper bound
+	 * @param toInclusive true if an entry with key to is in the range
+	 * @return view of the entries in the range, last key first
+	 */
+	@Override
+	public Iterable<Entry<K, V>> descendingEntryRange(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		return new RangeIterable(from, fromInclusive, to, toInclusive, true);
+	}
+
+	/**
+	 * Performs the given action on every entry without locking. Entries added
+	 * or removed during the scan may or may not be seen
+	 * @param action action to perform on each key and value
+	 */
+	@Override
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		for(Node<K, V> n = findFirst(); n != null; n = n.next) {
+			V v = n.validValue();
+			if(v != null) {
+				action.accept(n.key, v);
+			}
+		}
+	}
+
+	/**
+	 * Range Iterable that returns the range iterator
+	 * @author Viet Dinh
+	 *
+	 */
+	private class RangeIterable implements Iterable<Entry<K, V>> {
+		private K from;
+		private boolean fromInclusive;
+		private K to;
+		private boolean toInclusive;
+		private boolean descending;
+
+		public RangeIterable(K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending) {
+			this.from = from;
+			this.fromInclusive = fromInclusive;
+			this.to = to;
+			this.toInclusive = toInclusive;
+			this.descending = descending;
+		}
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			if(descending) {
+				return new RangeIterator(from, fromInclusive, to == null ? findLast() : findNear(to, true, toInclusive), true);
+			}
+			return new RangeIterator(to, toInclusive, from == null ? findFirst() : findNear(from, false, fromInclusive), false);
+		}
+	}
+
+	/**
+	 * Weakly consistent iterator over the bottom list, forward or backward
+	 * from a starting node until a key bound. The next entry is read ahead,
+	 * so an entry removed after hasNext may still be returned
+	 * @author Viet Dinh
+	 *
+	 */
+	private class RangeIterator implements Iterator<Entry<K, V>> {
+		// Key where the iteration ends, or null to run to the end of the list
+		private K end;
+		private boolean endInclusive;
+		private boolean descending;
+		private Node<K, V> nextNode;
+		private Entry<K, V> nextEntry;
+		private Entry<K, V> lastReturned;
+
+		public RangeIterator(K end, boolean endInclusive, Node<K, V> start, boolean descending) {
+			this.end = end;
+			this.endInclusive = endInclusive;
+			this.descending = descending;
+			advanceFrom(start);
+		}
+
+		// Moves to the first live node in range from n, in the iteration direction
+		private void advanceFrom(Node<K, V> n) {
+			while(n != null) {
+				Entry<K, V> entry = n.snapshot();
+				if(entry != null) {
+					if(!inRange(n.key)) {
+						break;
+					}
+					nextNode = n;
+					nextEntry = entry;
+					return;
+				}
+				// Removed since it was found
+				n = descending ? findNear(n.key, true, false) : n.next;
+			}
+			nextNode = null;
+			nextEntry = null;
+		}
+
+		private boolean inRange(K key) {
+			if(end == null) {
+				return true;
+			}
+			int comp = compare(key, end);
+			if(descending) {
+				comp = -comp;
+			}
+			return comp < 0 || (comp == 0 && endInclusive);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextEntry != null;
+		}
+
+		@Override
+		public Entry<K, V> next() {
+			if(nextEntry == null) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = nextEntry;
+			Node<K, V> n = nextNode;
+			advanceFrom(descending ? findNear(n.key, true, false) : n.next);
+			return lastReturned;
+		}
+
+		@Override
+		public void remove() {
+			if(lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			ConcurrentSkipListMap.this.remove(lastReturned.getKey());
+			lastReturned = null;
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(this.getClass().getSimpleName() + "[");
+		boolean first = true;
+		for(Node<K, V> n = findFirst(); n != null; n = n.next) {
+			if(n.validValue() != null) {
+				if(!first) {
+					sb.append(", ");
+				}
+				sb.append(n.key);
+				first = false;
+			}
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+}
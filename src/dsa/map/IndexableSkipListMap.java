@@ -0,0 +1,606 @@
+package dsa.map;
+
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+/**
+ * Skip list map that can find entries by position.
+ * Nodes are laid out as in CompactSkipListMap, and every forward link also
+ * stores its span: the number of bottom level steps it jumps over. Summing
+ * the spans of the links followed by a search gives the position of the key
+ * it reaches, and following the links whose spans still fit reaches the
+ * entry at a given position, so getByIndex, rankOf and entriesByIndex run
+ * in expected O(log n) like get.
+ *
+ * A link to the end of a level spans the entries after its node. put and
+ * remove update the spans of every level on their way, and the positions are
+ * counted from 0 in increasing key order.
+ * @author Viet Dinh
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class IndexableSkipListMap<K extends Comparable<K>, V> extends AbstractSortedMap<K, V> {
+
+	/** Default maximum tower height, enough for 2^32 keys at probability 1/2 */
+	public static final int DEFAULT_MAX_LEVEL = 32;
+
+	/** Default probability of a tower growing by one more level */
+	public static final double DEFAULT_PROBABILITY = 0.5;
+
+	private static final int MAX_LEVEL_LIMIT = 64;
+
+	private final int maxLevel;
+	private final double probability;
+	private Random coinToss;
+
+	// Sentinel before the first node, as tall as the maximum level, at rank 0
+	private Node<K, V> head;
+	// Last node, or null if the map is empty
+	private Node<K, V> tail;
+	// Number of levels in use, at least 1
+	private int level;
+	private int size;
+
+	// Number of insertions and removals, checked by the iterators to fail fast
+	private int modCount;
+
+	// Last node before the key on every level and its rank, counting the
+	// first node as 1, filled by findPredecessor
+	private Node<K, V>[] update;
+	private int[] rank;
+
+	/**
+	 * IndexableSkipListMap constructor without comparator
+	 */
+	public IndexableSkipListMap() {
+		this(null);
+	}
+
+	/**
+	 * IndexableSkipListMap constructor with given comparator
+	 * @param compare comparator
+	 */
+	public IndexableSkipListMap(Comparator<K> compare) {
+		this(compare, DEFAULT_MAX_LEVEL, DEFAULT_PROBABILITY);
+	}
+
+	/**
+	 * IndexableSkipListMap constructor with given comparator, maximum tower
+	 * height and promotion probability
+	 * @param compare comparator
+	 * @param maxLevel maximum tower height, from 1 to 64
+	 * @param probability probability of a tower growing by one more level
+	 * @throws IllegalArgumentException if the maximum level is out of range, or
+	 *         the probability is not at least 0 and less than 1
+	 */
+	@SuppressWarnings("unchecked")
+	public IndexableSkipListMap(Comparator<K> compare, int maxLevel, double probability) {
+		super(compare);
+		if(maxLevel < 1 || maxLevel > MAX_LEVEL_LIMIT) {
+			throw new IllegalArgumentException("Max level must be between 1 and " + MAX_LEVEL_LIMIT + ".");
+		}
+		if(!(probability >= 0 && probability < 1)) {
+			throw new IllegalArgumentException("Probability must be at least 0 and less than 1.");
+		}
+		this.maxLevel = maxLevel;
+		this.probability = probability;
+		coinToss = new Random();
+		update = (Node<K, V>[]) new Node[maxLevel];
+		rank = new int[maxLevel];
+		clear();
+	}
+
+	/**
+	 * Node holding one key, its value, and a forward link and its span for
+	 * every level of its tower
+	 * @author Viet Dinh
+	 *
+	 * @param <K> key
+	 * @param <V> value
+	 */
+	private static class Node<K, V> extends MapEntry<K, V> {
+		private final Node<K, V>[] next;
+		private final int[] span;
+		// Previous node of the bottom level, or null for the first node
+		private Node<K, V> prev;
+
+		@SuppressWarnings("unchecked")
+		public Node(K key, V value, int height) {
+			super(key, value);
+			next = (Node<K, V>[]) new Node[height];
+			span = new int[height];
+		}
+	}
+
+	private void clear() {
+		head = new Node<K, V>(null, null, maxLevel);
+		tail = null;
+		level = 1;
+		size = 0;
+	}
+
+	/**
+	 * Return the maximum tower height
+	 * @return maximum level
+	 */
+	public int getMaxLevel() {
+		return maxLevel;
+	}
+
+	/**
+	 * Return the probability of a tower growing by one more level
+	 * @return promotion probability
+	 */
+	public double getProbability() {
+		return probability;
+	}
+
+	// Draws a tower height: 1 always, and each next level with the probability
+	private int randomLevel() {
+		int height = 1;
+		while(height < maxLevel && coinToss.nextDouble() < probability) {
+			height++;
+		}
+		return height;
+	}
+
+	// Last node whose key is less than the given key, or the head if there is
+	// none. Fills update and rank with the last such node of every level in use
+	private Node<K, V> findPredecessor(K key) {
+		Node<K, V> x = head;
+		int traversed = 0;
+		for(int i = level - 1; i >= 0; i--) {
+			Node<K, V> n = x.next[i];
+			while(n != null && compare(n.getKey(), key) < 0) {
+				traversed += x.span[i];
+				x = n;
+				n = x.next[i];
+			}
+			update[i] = x;
+			rank[i] = traversed;
+		}
+		return x;
+	}
+
+	// Node at the given rank, counting the first node as 1
+	private Node<K, V> nodeAt(int target) {
+		Node<K, V> x = head;
+		int traversed = 0;
+		for(int i = level - 1; i >= 0; i--) {
+			while(x.next[i] != null && traversed + x.span[i] <= target) {
+				traversed += x.span[i];
+				x = x.next[i];
+			}
+			if(traversed == target) {
+				return x;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public V get(K key) {
+		Node<K, V> n = findPredecessor(key).next[0];
+		if(n != null && compare(n.getKey(), key) == 0) {
+			return n.getValue();
+		}
+		return null;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		Node<K, V> n = findPredecessor(key).next[0];
+		if(n != null && compare(n.getKey(), key) == 0) {
+			return n.setValue(value);
+		}
+		int height = randomLevel();
+		if(height > level) {
+			// The new levels of the head link to the end, over every entry
+			for(int i = level; i < height; i++) {
+				update[i] = head;
+				rank[i] = 0;
+				head.span[i] = size;
+			}
+			level = height;
+		}
+		Node<K, V> node = new Node<K, V>(key, value, height);
+		for(int i = 0; i < height; i++) {
+			// rank[0] - rank[i] entries lie between the predecessor of level i and the new node
+			node.next[i] = update[i].next[i];
+			update[i].next[i] = node;
+			node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+			update[i].span[i] = rank[0] - rank[i] + 1;
+		}
+		// Links above the new tower now jump over one more entry
+		for(int i = height; i < level; i++) {
+			update[i].span[i]++;
+		}
+		node.prev = update[0] == head ? null : update[0];
+		if(node.next[0] != null) {
+			node.next[0].prev = node;
+		} else {
+			tail = node;
+		}
+		size++;
+		modCount++;
+		return null;
+	}
+
+	@Override
+	public V remove(K key) {
+		Node<K, V> n = findPredecessor(key).next[0];
+		if(n == null || compare(n.getKey(), key) != 0) {
+			return null;
+		}
+		for(int i = 0; i < level; i++) {
+			if(update[i].next[i] == n) {
+				update[i].span[i] += n.span[i] - 1;
+				update[i].next[i] = n.next[i];
+			} else {
+				update[i].span[i]--;
+			}
+		}
+		if(n.next[0] != null) {
+			n.next[0].prev = n.prev;
+		} else {
+			tail = n.prev;
+		}
+		while(level > 1 && head.next[level - 1] == null) {
+			level--;
+		}
+		size--;
+		modCount++;
+		return n.getValue();
+	}
+
+	/**
+	 * Adds entries given in strictly increasing key order. An empty map, or
+	 * one with fewer entries than are added, is rebuilt in one pass by
+	 * appending every node at the end of each level of its tower
+	 * @param sorted entries sorted by key, without duplicate keys
+	 */
+	@Override
+	protected void bulkPut(Entry<K, V>[] sorted) {
+		if(sorted.length == 0) {
+			return;
+		}
+		if(size > sorted.length) {
+			super.bulkPut(sorted);
+			return;
+		}
+		Entry<K, V>[] all = size == 0 ? sorted : mergeEntries(entrySet(), size, sorted);
+		clear();
+		Node<K, V>[] last = update;
+		for(int i = 0; i < maxLevel; i++) {
+			last[i] = head;
+			rank[i] = 0;
+		}
+		Node<K, V> prev = null;
+		int r = 0;
+		for(Entry<K, V> entry : all) {
+			r++;
+			int height = randomLevel();
+			Node<K, V> node = new Node<K, V>(entry.getKey(), entry.getValue(), height);
+			for(int i = 0; i < height; i++) {
+				last[i].next[i] = node;
+				last[i].span[i] = r - rank[i];
+				last[i] = node;
+				rank[i] = r;
+			}
+			node.prev = prev;
+			prev = node;
+			if(height > level) {
+				level = height;
+			}
+		}
+		// The last node of every level links to the end
+		for(int i = 0; i < maxLevel; i++) {
+			last[i].span[i] = r - rank[i];
+		}
+		tail = prev;
+		size = all.length;
+		modCount++;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	private void checkIndex(int index) {
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index is invalid: " + index + " (size=" + size() + ")");
+		}
+	}
+
+	/**
+	 * Return the entry at the given position in increasing key order, that is
+	 * the entry with the index + 1 smallest key, in expected O(log n)
+	 * @param index position, from 0
+	 * @return entry at the position
+	 * @throws IndexOutOfBoundsException if the index is negative or not less than the size
+	 */
+	public Entry<K, V> getByIndex(int index) {
+		checkIndex(index);
+		return nodeAt(index + 1);
+	}
+
+	/**
+	 * Return the position of the given key in increasing key order, in
+	 * expected O(log n)
+	 * @param key key
+	 * @return position of the key, from 0, or -1 if the key does not exist
+	 */
+	public int rankOf(K key) {
+		Node<K, V> x = head;
+		int traversed = 0;
+		for(int i = level - 1; i >= 0; i--) {
+			Node<K, V> n = x.next[i];
+			while(n != null && compare(n.getKey(), key) <= 0) {
+				traversed += x.span[i];
+				x = n;
+				n = x.next[i];
+			}
+			// The key may be reached on any level, not only the bottom one
+			if(x != head && compare(x.getKey(), key) == 0) {
+				return traversed - 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Return the number of keys strictly less than the given key, which is
+	 * the position the key has, or would have if it were added
+	 * @param key key
+	 * @return number of smaller keys
+	 */
+	public int countBelow(K key) {
+		findPredecessor(key);
+		return rank[0];
+	}
+
+	/**
+	 * Return a live view of the entries at positions from, inclusive, to to,
+	 * exclusive, in increasing key order. Its iterators find the first entry
+	 * in expected O(log n) and walk the bottom level from there; they support
+	 * removal and fail fast on any other insertion or removal
+	 * @param from first position
+	 * @param to position after the last one
+	 * @return live view of the entries at the positions
+	 * @throws IndexOutOfBoundsException if from is negative, to is greater than
+	 *         the size, or from is greater than to
+	 */
+	public Iterable<Entry<K, V>> entriesByIndex(int from, int to) {
+		if(from < 0 || to > size || from > to) {
+			throw new IndexOutOfBoundsException("Index range is invalid: [" + from + ", " + to + ") (size=" + size() + ")");
+		}
+		return new IndexRangeIterable(from, to);
+	}
+
+	// Node of the largest key below the given key, or equal to it if inclusive
+	private Node<K, V> floor(K key, boolean inclusive) {
+		Node<K, V> p = findPredecessor(key);
+		if(inclusive) {
+			Node<K, V> n = p.next[0];
+			if(n != null && compare(n.getKey(), key) == 0) {
+				return n;
+			}
+		}
+		return p == head ? null : p;
+	}
+
+	// Node of the smallest key above the given key, or equal to it if inclusive
+	private Node<K, V> ceiling(K key, boolean inclusive) {
+		Node<K, V> n = findPredecessor(key).next[0];
+		if(!inclusive && n != null && compare(n.getKey(), key) == 0) {
+			n = n.next[0];
+		}
+		return n;
+	}
+
+	@Override
+	public Entry<K, V> firstEntry() {
+		return head.next[0];
+	}
+
+	@Override
+	public Entry<K, V> lastEntry() {
+		return tail;
+	}
+
+	@Override
+	public Entry<K, V> floorEntry(K key) {
+		return floor(key, true);
+	}
+
+	@Override
+	public Entry<K, V> lowerEntry(K key) {
+		return floor(key, false);
+	}
+
+	@Override
+	public Entry<K, V> ceilingEntry(K key) {
+		return ceiling(key, true);
+	}
+
+	@Override
+	public Entry<K, V> higherEntry(K key) {
+		return ceiling(key, false);
+	}
+
+	/**
+	 * Return a live view of the entries with keys between from and to, in key
+	 * order. Its iterators search the towers for the first entry in expected
+	 * O(log n) and then walk the bottom level
+	 * @param from lowest key, or null for no lower bound
+	 * @param fromInclusive true if an entry with key from is in the range
+	 * @param to highest key, or null for no upper bound
+	 * @param toInclusive true if an entry with key to is in the range
+	 * @return live view of the entries in the range
+	 */
+	@Override
+	public Iterable<Entry<K, V>> entryRange(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		return new RangeIterable(from, fromInclusive, to, toInclusive, false);
+	}
+
+	@Override
+	public Iterable<Entry<K, V>> descendingEntryRange(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		return new RangeIterable(from, fromInclusive, to, toInclusive, true);
+	}
+
+	@Override
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		int expectedModCount = modCount;
+		for(Node<K, V> current = head.next[0]; current != null; current = current.next[0]) {
+			action.accept(current.getKey(), current.getValue());
+			if(modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+
+	/**
+	 * Range Iterable that returns the range iterator
+	 * @author Viet Dinh
+	 *
+	 */
+	private class RangeIterable implements Iterable<Entry<K, V>> {
+		private K from;
+		private boolean fromInclusive;
+		private K to;
+		private boolean toInclusive;
+		private boolean descending;
+
+		public RangeIterable(K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending) {
+			this.from = from;
+			this.fromInclusive = fromInclusive;
+			this.to = to;
+			this.toInclusive = toInclusive;
+			this.descending = descending;
+		}
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			if(descending) {
+				return new RangeIterator(to == null ? tail : floor(to, toInclusive), from, fromInclusive, true, -1);
+			}
+			return new RangeIterator(from == null ? head.next[0] : ceiling(from, fromInclusive), to, toInclusive, false, -1);
+		}
+	}
+
+	/**
+	 * Index Range Iterable that returns the range iterator over positions
+	 * @author Viet Dinh
+	 *
+	 */
+	private class IndexRangeIterable implements Iterable<Entry<K, V>> {
+		private int from;
+		private int to;
+
+		public IndexRangeIterable(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			// The positions are resolved when the iteration starts
+			int count = Math.max(0, Math.min(to, size) - from);
+			Node<K, V> start = count == 0 ? null : nodeAt(from + 1);
+			return new RangeIterator(start, null, false, false, count);
+		}
+	}
+
+	/**
+	 * Iterator over the bottom level of the skip list, forward or backward
+	 * from a starting node until a key bound or a number of entries
+	 * @author Viet Dinh
+	 *
+	 */
+	private class RangeIterator implements Iterator<Entry<K, V>> {
+		// Next node to return, or null at the end of the list
+		private Node<K, V> cursor;
+		// Key where the iteration ends, or null to run to the end of the list
+		private K end;
+		private boolean endInclusive;
+		private boolean descending;
+		// Entries left to return, or -1 for no limit
+		private int remaining;
+		private Node<K, V> lastReturned;
+		private int expectedModCount = modCount;
+
+		public RangeIterator(Node<K, V> cursor, K end, boolean endInclusive, boolean descending, int remaining) {
+			this.cursor = cursor;
+			this.end = end;
+			this.endInclusive = endInclusive;
+			this.descending = descending;
+			this.remaining = remaining;
+		}
+
+		private void checkForComodification() {
+			if(modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			checkForComodification();
+			if(cursor == null || remaining == 0) {
+				return false;
+			}
+			if(end == null) {
+				return true;
+			}
+			int comp = compare(cursor.getKey(), end);
+			if(descending) {
+				comp = -comp;
+			}
+			return comp < 0 || (comp == 0 && endInclusive);
+		}
+
+		@Override
+		public Entry<K, V> next() {
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = cursor;
+			cursor = descending ? cursor.prev : cursor.next[0];
+			if(remaining > 0) {
+				remaining--;
+			}
+			return lastReturned;
+		}
+
+		@Override
+		public void remove() {
+			if(lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			checkForComodification();
+			// The cursor is past the removed node, whose links are left as they were
+			IndexableSkipListMap.this.remove(lastReturned.getKey());
+			lastReturned = null;
+			expectedModCount = modCount;
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(this.getClass().getSimpleName() + "[");
+		for(Node<K, V> cursor = head.next[0]; cursor != null; cursor = cursor.next[0]) {
+			sb.append(cursor.getKey());
+			if(cursor.next[0] != null) {
+				sb.append(", ");
+			}
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+}
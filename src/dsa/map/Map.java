@@ -1,5 +1,6 @@
 package dsa.map;
 
+import java.util.function.BiConsumer;
 
 /**
  * Map interface
@@ -51,6 +52,46 @@ public interface Map<K, V> extends Iterable<K> {
 	 * @return iterable of the value
 	 */
 	Iterable<V> values();
+	/**
+	 * Performs the given action on every key and value of the map
+	 * @param action action to perform on each key and value
+	 */
+	void forEach(BiConsumer<? super K, ? super V> action);
+	/**
+	 * Adds every entry of the given map, replacing the values of keys that
+	 * already exist. The map is sized once for all of the new entries
+	 * @param map map whose entries are added
+	 */
+	void putAll(Map<? extends K, ? extends V> map);
+	/**
+	 * Adds the entry keys[i], values[i] for every index i, replacing the values
+	 * of keys that already exist. A key repeated in the array takes its last value
+	 * @param keys keys to add
+	 * @param values values of the keys, at the same indexes
+	 * @throws IllegalArgumentException if the arrays have different lengths
+	 */
+	void putAll(K[] keys, V[] values);
+	/**
+	 * Writes the value of keys[i] into values[i] for every index i, or null if
+	 * the key does not exist
+	 * @param keys keys to look up
+	 * @param values array that receives the values, at least as long as keys
+	 * @return number of non-null values written
+	 * @throws IllegalArgumentException if the values array is shorter than the keys array
+	 */
+	int getAll(K[] keys, V[] values);
+	/**
+	 * Removes the entry of every given key that exists
+	 * @param keys keys to remove
+	 * @return number of entries removed
+	 */
+	int removeAll(Iterable<? extends K> keys);
+	/**
+	 * Prepares the map to hold the given number of entries without growing.
+	 * Maps without a capacity ignore it
+	 * @param expectedSize expected number of entries
+	 */
+	void ensureCapacity(int expectedSize);
 	
 	/**
 	 * Interface for entry
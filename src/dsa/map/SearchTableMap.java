@@ -1,7 +1,9 @@
 package dsa.map;
 
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import dsa.list.ArrayBasedList;
 
@@ -15,6 +17,9 @@ import dsa.list.ArrayBasedList;
 public class SearchTableMap<K extends Comparable<K>, V> extends AbstractSortedMap<K, V> {
 
 	private ArrayBasedList<Entry<K, V>> list;
+	
+	// Number of insertions, removals and bulk loads, checked by the iterators to fail fast
+	private int modCount;
 
 	/**
 	 * SearchTableMap constructor with null comparator
@@ -59,7 +64,7 @@ public class SearchTableMap<K extends Comparable<K>, V> extends AbstractSortedMa
 			} else if(i < 0) {
 				list.add(-1 * (i + 1), m);
 			}
-			
+			modCount++;
 			return null;
 		}
 		V temp = list.get(index).getValue();
@@ -93,6 +98,22 @@ public class SearchTableMap<K extends Comparable<K>, V> extends AbstractSortedMa
 		}
 	}
 
+	/**
+	 * Merges the sorted entries with the table in one pass, instead of
+	 * shifting the table once for every new key
+	 * @param sorted entries sorted by key, without duplicate keys
+	 */
+	@Override
+	protected void bulkPut(Entry<K, V>[] sorted) {
+		Entry<K, V>[] all = list.isEmpty() ? sorted : mergeEntries(list, list.size(), sorted);
+		ArrayBasedList<Entry<K, V>> merged = new ArrayBasedList<Entry<K, V>>(Math.max(1, all.length));
+		for(Entry<K, V> entry : all) {
+			merged.addLast(entry);
+		}
+		list = merged;
+		modCount++;
+	}
+
 	@Override
 	public int size() {
 		return list.size();
@@ -107,13 +128,81 @@ public class SearchTableMap<K extends Comparable<K>, V> extends AbstractSortedMa
 		return list.get(index).getValue();
 	}
 
-	@Override
-	public Iterable<Entry<K, V>> entrySet() {
-		ArrayBasedList<Entry<K, V>> set = new ArrayBasedList<Entry<K, V>>();
-		for(Entry<K, V> m : list) {
-			set.addLast(m);
+	// Index of the first entry with a key greater than the given key, or
+	// equal to it if inclusive; size() if there is none
+	private int ceilingIndex(K key, boolean inclusive) {
+		int low = 0;
+		int high = list.size();
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			int comp = compare(list.get(mid).getKey(), key);
+			if(comp < 0 || (comp == 0 && !inclusive)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
 		}
-		return set;
+		return low;
+	}
+	
+	// Index of the last entry with a key less than the given key, or equal
+	// to it if inclusive; -1 if there is none
+	private int floorIndex(K key, boolean inclusive) {
+		return ceilingIndex(key, !inclusive) - 1;
+	}
+	
+	private Entry<K, V> entryAt(int index) {
+		return index >= 0 && index < list.size() ? list.get(index) : null;
+	}
+	
+	@Override
+	public Entry<K, V> firstEntry() {
+		return entryAt(0);
+	}
+	
+	@Override
+	public Entry<K, V> lastEntry() {
+		return entryAt(list.size() - 1);
+	}
+	
+	@Override
+	public Entry<K, V> floorEntry(K key) {
+		return entryAt(floorIndex(key, true));
+	}
+	
+	@Override
+	public Entry<K, V> lowerEntry(K key) {
+		return entryAt(floorIndex(key, false));
+	}
+	
+	@Override
+	public Entry<K, V> ceilingEntry(K key) {
+		return entryAt(ceilingIndex(key, true));
+	}
+	
+	@Override
+	public Entry<K, V> higherEntry(K key) {
+		return entryAt(ceilingIndex(key, false));
+	}
+	
+	/**
+	 * Return a live view of the entries with keys between from and to, in key
+	 * order. Its iterators find both ends of the range by binary search and
+	 * then walk the table between them
+	 * @param from lowest key, or null for no lower bound
+	 * @param fromInclusive true if an entry with key from is in the range
+	 * @param to highest key, or null for no upper bound
+	 * @param toInclusive true if an entry with key to is in the range
+	 * @return live view of the entries in the range
+	 */
+	@Override
+	public Iterable<Entry<K, V>> entryRange(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		return new RangeIterable(from, fromInclusive, to, toInclusive, false);
+	}
+	
+	@Override
+	public Iterable<Entry<K, V>> descendingEntryRange(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		return new RangeIterable(from, fromInclusive, to, toInclusive, true);
 	}
 
 	@Override
@@ -124,6 +213,7 @@ public class SearchTableMap<K extends Comparable<K>, V> extends AbstractSortedMa
 		}
 		V temp = get(key);
 		list.remove(index);
+		modCount++;
 		return temp;
 	}
 	
@@ -140,4 +230,91 @@ public class SearchTableMap<K extends Comparable<K>, V> extends AbstractSortedMa
 		sb.append("]");
 		return sb.toString();
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Range Iterable that returns the range iterator
+	 * @author Viet Dinh
+	 *
+	 */
+	private class RangeIterable implements Iterable<Entry<K, V>> {
+		private K from;
+		private boolean fromInclusive;
+		private K to;
+		private boolean toInclusive;
+		private boolean descending;
+		
+		public RangeIterable(K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending) {
+			this.from = from;
+			this.fromInclusive = fromInclusive;
+			this.to = to;
+			this.toInclusive = toInclusive;
+			this.descending = descending;
+		}
+		
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			int low = from == null ? 0 : ceilingIndex(from, fromInclusive);
+			int high = to == null ? list.size() : floorIndex(to, toInclusive) + 1;
+			return new RangeIterator(low, high, descending);
+		}
+	}
+	
+	/**
+	 * Iterator over the indexes from low, inclusive, to high, exclusive, in
+	 * either direction
+	 * @author Viet Dinh
+	 *
+	 */
+	private class RangeIterator implements Iterator<Entry<K, V>> {
+		private int low;
+		private int high;
+		private int cursor;
+		private boolean descending;
+		private int lastReturned = -1;
+		private int expectedModCount = modCount;
+		
+		public RangeIterator(int low, int high, boolean descending) {
+			this.low = low;
+			this.high = high;
+			this.descending = descending;
+			cursor = descending ? high - 1 : low;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			if(modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			return descending ? cursor >= low : cursor < high;
+		}
+		
+		@Override
+		public Entry<K, V> next() {
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = cursor;
+			cursor += descending ? -1 : 1;
+			return list.get(lastReturned);
+		}
+		
+		@Override
+		public void remove() {
+			if(lastReturned < 0) {
+				throw new IllegalStateException();
+			}
+			if(modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			list.remove(lastReturned);
+			modCount++;
+			expectedModCount = modCount;
+			// The entries after the removed one move down by one
+			high--;
+			if(!descending) {
+				cursor--;
+			}
+			lastReturned = -1;
+		}
+	}
+}
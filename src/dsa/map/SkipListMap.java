@@ -1,10 +1,11 @@
 package dsa.map;
 
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Random;
-
-import dsa.list.ArrayBasedList;
-import dsa.list.List;
+import java.util.function.BiConsumer;
 
 /**
  * SkipListMap implementation
@@ -19,6 +20,9 @@ public class SkipListMap<K extends Comparable<K>, V> extends AbstractSortedMap<K
 	private SkipListEntry<K, V> start;
 	private int size;
 	private int height;
+	
+	// Number of insertions and removals, checked by the iterators to fail fast
+	private int modCount;
 
 	/**
 	 * SkipListMap constructor without null comparator
@@ -170,13 +174,14 @@ public class SkipListMap<K extends Comparable<K>, V> extends AbstractSortedMap<K
 			p = p.above;
 		} while (coinToss.nextInt(100) + 1 <= 50  );
 		size += 1;
+		modCount++;
 		return null;
 	}
 	
     @Override
     public V remove(K key) {
         SkipListEntry<K, V> temp = lookUp(key);
-        if(!isSentinel(temp)) {
+        if(!isSentinel(temp) && compare(temp.getKey(), key) == 0) {
         	SkipListEntry<K, V> pred = temp.getPrevious();
         	SkipListEntry<K, V> succ = temp.getNext();
         	pred.setNext(succ);
@@ -184,6 +189,7 @@ public class SkipListMap<K extends Comparable<K>, V> extends AbstractSortedMap<K
         	temp.setPrevious(null);
         	temp.setNext(null);
         	size--;
+        	modCount++;
         	while(temp.getAbove() != null) {
         		temp = temp.above;
             	pred = temp.getPrevious();
@@ -204,20 +210,211 @@ public class SkipListMap<K extends Comparable<K>, V> extends AbstractSortedMap<K
 		return size;
 	}
 	
-   @Override
-    public Iterable<Entry<K, V>> entrySet() {
-        List<Entry<K, V>> set = new ArrayBasedList<Entry<K, V>>();
-        SkipListEntry<K, V> current = start;
-        while(current.below != null){
-            current = current.below;
-        }
-        current = current.next;
-        while(!isSentinel(current)) {
-            set.addLast(current);
-            current = current.next;
-        }
-        return set;
-    }
+	// First entry of the bottom level, or the +INFINITY sentinel if the map is empty
+	private SkipListEntry<K, V> first() {
+		SkipListEntry<K, V> current = start;
+		while(current.below != null) {
+			current = current.below;
+		}
+		return current.next;
+	}
+	
+	// Last entry of the bottom level, or the -INFINITY sentinel if the map is empty
+	private SkipListEntry<K, V> last() {
+		SkipListEntry<K, V> current = start;
+		while(true) {
+			while(!isSentinel(current.next)) {
+				current = current.next;
+			}
+			if(current.below == null) {
+				return current;
+			}
+			current = current.below;
+		}
+	}
+	
+	// Bottom entry of the largest key below the given key, or equal to it if
+	// inclusive; the -INFINITY sentinel if there is none
+	private SkipListEntry<K, V> floor(K key, boolean inclusive) {
+		SkipListEntry<K, V> p = lookUp(key);
+		if(!inclusive && !isSentinel(p) && compare(p.getKey(), key) == 0) {
+			p = p.prev;
+		}
+		return p;
+	}
+	
+	// Bottom entry of the smallest key above the given key, or equal to it if
+	// inclusive; the +INFINITY sentinel if there is none
+	private SkipListEntry<K, V> ceiling(K key, boolean inclusive) {
+		SkipListEntry<K, V> p = lookUp(key);
+		if(isSentinel(p)) {
+			return p.next;
+		}
+		int comp = compare(p.getKey(), key);
+		return comp < 0 || (comp == 0 && !inclusive) ? p.next : p;
+	}
+	
+	private Entry<K, V> entryOf(SkipListEntry<K, V> entry) {
+		return isSentinel(entry) ? null : entry;
+	}
+	
+	@Override
+	public Entry<K, V> firstEntry() {
+		return entryOf(first());
+	}
+	
+	@Override
+	public Entry<K, V> lastEntry() {
+		return entryOf(last());
+	}
+	
+	@Override
+	public Entry<K, V> floorEntry(K key) {
+		return entryOf(floor(key, true));
+	}
+	
+	@Override
+	public Entry<K, V> lowerEntry(K key) {
+		return entryOf(floor(key, false));
+	}
+	
+	@Override
+	public Entry<K, V> ceilingEntry(K key) {
+		return entryOf(ceiling(key, true));
+	}
+	
+	@Override
+	public Entry<K, V> higherEntry(K key) {
+		return entryOf(ceiling(key, false));
+	}
+	
+	/**
+	 * Return a live view of the entries with keys between from and to, in key
+	 * order. Its iterators search the towers for the first entry in expected
+	 * O(log n) and then walk the bottom level
+	 * @param from lowest key, or null for no lower bound
+	 * @param fromInclusive true if an entry with key from is in the range
+	 * @param to highest key, or null for no upper bound
+	 * @param toInclusive true if an entry with key to is in the range
+	 * @return live view of the entries in the range
+	 */
+	@Override
+	public Iterable<Entry<K, V>> entryRange(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		return new RangeIterable(from, fromInclusive, to, toInclusive, false);
+	}
+	
+	@Override
+	public Iterable<Entry<K, V>> descendingEntryRange(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		return new RangeIterable(from, fromInclusive, to, toInclusive, true);
+	}
+	
+	@Override
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		int expectedModCount = modCount;
+		for(SkipListEntry<K, V> current = first(); !isSentinel(current); current = current.next) {
+			action.accept(current.getKey(), current.getValue());
+			// A removed entry is unlinked, so stop before following its next pointer
+			if(modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+	
+	/**
+	 * Range Iterable that returns the range iterator
+	 * @author Viet Dinh
+	 *
+	 */
+	private class RangeIterable implements Iterable<Entry<K, V>> {
+		private K from;
+		private boolean fromInclusive;
+		private K to;
+		private boolean toInclusive;
+		private boolean descending;
+		
+		public RangeIterable(K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending) {
+			this.from = from;
+			this.fromInclusive = fromInclusive;
+			this.to = to;
+			this.toInclusive = toInclusive;
+			this.descending = descending;
+		}
+		
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			if(descending) {
+				return new RangeIterator(to == null ? last() : floor(to, toInclusive), from, fromInclusive, true);
+			}
+			return new RangeIterator(from == null ? first() : ceiling(from, fromInclusive), to, toInclusive, false);
+		}
+	}
+	
+	/**
+	 * Iterator over the bottom level of the skip list, forward or backward
+	 * from a starting entry until a key bound
+	 * @author Viet Dinh
+	 *
+	 */
+	private class RangeIterator implements Iterator<Entry<K, V>> {
+		private SkipListEntry<K, V> cursor;
+		// Key where the iteration ends, or null to run to a sentinel
+		private K end;
+		private boolean endInclusive;
+		private boolean descending;
+		private SkipListEntry<K, V> lastReturned;
+		private int expectedModCount = modCount;
+		
+		public RangeIterator(SkipListEntry<K, V> cursor, K end, boolean endInclusive, boolean descending) {
+			this.cursor = cursor;
+			this.end = end;
+			this.endInclusive = endInclusive;
+			this.descending = descending;
+		}
+		
+		private void checkForComodification() {
+			if(modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+		
+		@Override
+		public boolean hasNext() {
+			checkForComodification();
+			if(isSentinel(cursor)) {
+				return false;
+			}
+			if(end == null) {
+				return true;
+			}
+			int comp = compare(cursor.getKey(), end);
+			if(descending) {
+				comp = -comp;
+			}
+			return comp < 0 || (comp == 0 && endInclusive);
+		}
+		
+		@Override
+		public Entry<K, V> next() {
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = cursor;
+			cursor = descending ? cursor.prev : cursor.next;
+			return lastReturned;
+		}
+		
+		@Override
+		public void remove() {
+			if(lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			checkForComodification();
+			// The cursor is past the removed tower, so unlinking it is safe
+			SkipListMap.this.remove(lastReturned.getKey());
+			lastReturned = null;
+			expectedModCount = modCount;
+		}
+	}
 	
 	@Override
 	public String toString() {
@@ -1,9 +1,10 @@
 package dsa.map.hashing;
 
-import java.util.Random;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
 
-import dsa.list.ArrayBasedList;
-import dsa.list.List;
 import dsa.map.AbstractMap;
 
 /**
@@ -23,19 +24,45 @@ public abstract class AbstractHashMap<K, V> extends AbstractMap<K, V> {
     // what the load factor may be. However, for linear probing, to
     // reduce the chance of having large clusters, we will resize
     // when the load factor reaches 0.5
-    private static final double MAX_LOAD_FACTOR = 0.5;
+    /** Default maximum load factor */
+    protected static final double DEFAULT_MAX_LOAD_FACTOR = 0.5;
     
     /** default number for prime */
-    protected static final int DEFAULT_PRIME = 109345121;
+    protected static final int DEFAULT_PRIME = MADHashStrategy.DEFAULT_PRIME;
     
-    // Alpha and Beta values for MAD compression
-    // This implementation uses a variation of the MAD method
-    // where h(k) = ( (alpha * f(k) + beta) % prime) % capacity
-    private long alpha;
-    private long beta;
+    // Compression function and growth policy of the table
+    private HashStrategy strategy;
     
-    // The prime number to use for compression strategy
-    private int prime;
+    // The table grows once size / capacity exceeds this value
+    private double maxLoadFactor;
+    
+    // Capacity of the table at construction, raised by ensureCapacity; the
+    // table never shrinks below it
+    private int minCapacity;
+    
+    // Set while an iterator removes an entry through the map, whose cursor
+    // would be lost if the table shrank under it
+    private boolean shrinkSuspended;
+    
+    // Number of old buckets migrated by each put, get and remove while an
+    // incremental resize is in progress. Every operation does a bounded amount
+    // of resize work, and the old table is drained after oldCapacity / 8 operations
+    private static final int MIGRATE_BUCKETS_PER_OPERATION = 8;
+    
+    private boolean incrementalResize;
+    
+    // Index of the next old bucket to migrate, -1 when no resize is in progress
+    private int migrateIndex;
+    
+    // Number of table rebuilds, and the time spent in them, reported by stats
+    private int resizeCount;
+    private long resizeNanos;
+    
+    /**
+     * Number of structural modifications (insertions, removals and resizes),
+     * checked by the iterators to fail fast on concurrent modification
+     */
+    protected int modCount;
     
     // You can use the isTesting flag (set to true) to control
     // the testing environment and avoid random numbers when testing
@@ -45,51 +72,337 @@ public abstract class AbstractHashMap<K, V> extends AbstractMap<K, V> {
      * @param isTesting use for control random
      */
     public AbstractHashMap(int capacity, boolean isTesting) {
-        if(isTesting) {
-            alpha = 1;
-            beta = 1;
-            prime = 7;
-        } else {
-            Random rand = new Random();
-            alpha = rand.nextInt(DEFAULT_PRIME - 1) + 1;
-            beta = rand.nextInt(DEFAULT_PRIME);
-            prime = DEFAULT_PRIME;
+        this(capacity, new MADHashStrategy(isTesting), DEFAULT_MAX_LOAD_FACTOR);
+    }
+    
+    /**
+     * AbstractHashMap constructor with the given hash strategy and maximum load factor
+     * @param capacity capacity
+     * @param strategy compression function and growth policy of the table
+     * @param maxLoadFactor the table grows once size / capacity exceeds this value
+     * @throws IllegalArgumentException if the strategy is null or the load factor is not positive
+     */
+    public AbstractHashMap(int capacity, HashStrategy strategy, double maxLoadFactor) {
+        if(strategy == null) {
+            throw new IllegalArgumentException("Hash strategy cannot be null.");
+        }
+        if(!(maxLoadFactor > 0)) {
+            throw new IllegalArgumentException("Load factor must be positive.");
         }
-        createTable(capacity);
+        this.strategy = strategy;
+        this.maxLoadFactor = maxLoadFactor;
+        incrementalResize = false;
+        migrateIndex = -1;
+        createTable(strategy.initialCapacity(capacity));
+        minCapacity = capacity();
     }
     
-    private int compress(K key) {
-        return (int)((Math.abs(key.hashCode() * alpha + beta) % prime) % capacity());
+    /**
+     * Check a load factor for an open addressing table, which needs at least
+     * one empty bucket to terminate unsuccessful searches
+     * @param maxLoadFactor maximum load factor
+     * @return the given load factor
+     * @throws IllegalArgumentException if the load factor is not below 1
+     */
+    protected static double checkOpenAddressing(double maxLoadFactor) {
+        if(!(maxLoadFactor < 1)) {
+            throw new IllegalArgumentException("Load factor of an open addressing table must be less than 1.");
+        }
+        return maxLoadFactor;
+    }
+    
+    /**
+     * Return a capacity that holds the given number of entries under the given
+     * load factor, and at least the default capacity
+     * @param expectedSize expected number of entries
+     * @param maxLoadFactor maximum load factor
+     * @return capacity for the expected size
+     */
+    protected static int capacityFor(int expectedSize, double maxLoadFactor) {
+        if(expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative.");
+        }
+        return (int) Math.max(DEFAULT_CAPACITY, Math.min(Integer.MAX_VALUE - 8, Math.ceil(expectedSize / maxLoadFactor)));
+    }
+    
+    /**
+     * Return the bucket of the given key in the current table
+     * @param key key
+     * @return bucket index of the key
+     */
+    protected int compress(K key) {
+        return compress(key, capacity());
+    }
+    
+    private int compress(K key, int capacity) {
+        return strategy.index(key.hashCode(), capacity);
+    }
+    
+    /**
+     * Return the hash strategy of the map
+     * @return hash strategy
+     */
+    public HashStrategy getHashStrategy() {
+        return strategy;
+    }
+    
+    /**
+     * Return the maximum load factor of the map
+     * @return maximum load factor
+     */
+    public double getMaxLoadFactor() {
+        return maxLoadFactor;
     }
 
     @Override
     public V put(K key, V value) {
-        V ret = bucketPut(compress(key), key, value);
-        if( (double)size() / capacity() > MAX_LOAD_FACTOR){
-            resize(2 * capacity() + 1);
+        migrate();
+        int oldSize = size();
+        V ret;
+        if(isResizing()) {
+            // The key may still live in the old table; move it to the new one
+            V original = oldBucketRemove(compress(key, oldCapacity()), key);
+            ret = bucketPut(compress(key), key, value);
+            if(ret == null) ret = original;
+        } else {
+            ret = bucketPut(compress(key), key, value);
+        }
+        if(size() != oldSize) modCount++;
+        // Deleted buckets lengthen probes just like live entries, so they count
+        // toward the load. When they make up most of it, the table is rebuilt
+        // at the same capacity to clear them instead of growing
+        if(!isResizing() && (double)(size() + tombstones()) / capacity() > maxLoadFactor){
+            startResize(size() > capacity() * maxLoadFactor / 2 ? strategy.nextCapacity(capacity()) : capacity());
         }
         return ret;
     }
     
     @Override
     public V get(K key) {
-        return bucketGet(compress(key), key);
+        migrate();
+        V ret = bucketGet(compress(key), key);
+        if(ret == null && isResizing()) {
+            ret = oldBucketGet(compress(key, oldCapacity()), key);
+        }
+        return ret;
     }
 
     @Override
     public V remove(K key) {
-        return bucketRemove(compress(key), key);
+        migrate();
+        int oldSize = size();
+        V ret = bucketRemove(compress(key), key);
+        if(ret == null && isResizing()) {
+            ret = oldBucketRemove(compress(key, oldCapacity()), key);
+        }
+        if(size() != oldSize) {
+            modCount++;
+            shrinkIfSparse();
+        }
+        return ret;
+    }
+    
+    // Shrinks the table once the load falls below a quarter of the maximum load
+    // factor, to a capacity at half of it, but never below the initial capacity
+    // or the largest one requested through ensureCapacity
+    private void shrinkIfSparse() {
+        if(isResizing() || shrinkSuspended || size() >= capacity() * maxLoadFactor / 4) return;
+        int newCapacity = strategy.initialCapacity(Math.max(minCapacity, (int) Math.ceil(2 * size() / maxLoadFactor)));
+        if(newCapacity < capacity()) {
+            startResize(newCapacity);
+        }
+    }
+    
+    /**
+     * Return the number of deleted buckets of the current table that still
+     * lengthen probe sequences. Open addressing tables that mark removed
+     * entries deleted override this, so that they count toward the load
+     * @return number of deleted buckets in the current table
+     */
+    protected int tombstones() {
+        return 0;
+    }
+    
+    /**
+     * Grows the table once, so that the given number of entries fit under the
+     * maximum load factor. An incremental resize in progress is finished first.
+     * Removals do not shrink the table below the requested size afterwards
+     * @param expectedSize expected number of entries
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        int needed = strategy.initialCapacity(capacityFor(expectedSize, maxLoadFactor));
+        minCapacity = Math.max(minCapacity, needed);
+        if(needed > capacity()) {
+            finishResize();
+            resize(needed);
+        }
+    }
+    
+    /**
+     * Return a live view of the entries. Its iterators walk the table directly
+     * without copying it, and throw ConcurrentModificationException if the map
+     * is structurally modified other than through the iterator's own remove.
+     * Starting an iteration finishes any incremental resize in progress
+     * @return live view of the entries
+     */
+    @Override
+    public Iterable<Entry<K, V>> entrySet() {
+        return new EntryIterable();
+    }
+    
+    /**
+     * Performs the given action on every entry without allocating an iterator.
+     * Starting the scan finishes any incremental resize in progress
+     * @param action action to perform on each key and value
+     * @throws ConcurrentModificationException if the action structurally modifies the map
+     */
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        finishResize();
+        int expectedModCount = modCount;
+        tableForEach(action);
+        if(modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+    
+    /**
+     * Turns incremental resizing on or off. When it is on, a resize allocates
+     * the new table but keeps the old one, and every following put, get and
+     * remove migrates a bounded number of old buckets, so no single operation
+     * pays for rehashing the whole map. Lookups consult both tables until the
+     * old one is drained. Turning it off finishes any resize in progress.
+     * @param incremental true to resize incrementally
+     */
+    public void setIncrementalResize(boolean incremental) {
+        if(incremental && !supportsIncrementalResize()) {
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support incremental resizing.");
+        }
+        if(!incremental) {
+            finishResize();
+        }
+        incrementalResize = incremental;
+    }
+    
+    /**
+     * Return true if the map resizes incrementally
+     * @return true if the map resizes incrementally
+     */
+    public boolean isIncrementalResize() {
+        return incrementalResize;
+    }
+    
+    /**
+     * Return true if an incremental resize is in progress, in which case
+     * entries may live in either the old or the current table
+     * @return true if an incremental resize is in progress
+     */
+    protected boolean isResizing() {
+        return migrateIndex >= 0;
+    }
+    
+    // Migrates the next few old buckets, and drops the old table once all are moved
+    private void migrate() {
+        if(!isResizing()) return;
+        long start = System.nanoTime();
+        int end = Math.min(oldCapacity(), migrateIndex + MIGRATE_BUCKETS_PER_OPERATION);
+        while(migrateIndex < end) {
+            migrateBucket(migrateIndex);
+            migrateIndex++;
+        }
+        if(migrateIndex >= oldCapacity()) {
+            endIncrementalResize();
+            migrateIndex = -1;
+        }
+        resizeNanos += System.nanoTime() - start;
+    }
+    
+    /**
+     * Migrates every remaining old bucket, so that all entries live in the current table
+     */
+    protected void finishResize() {
+        while(isResizing()) {
+            migrate();
+        }
     }
     
+    // Rebuilds the table at the given capacity, at once or incrementally
+    private void startResize(int newCapacity) {
+        if(incrementalResize) {
+            long start = System.nanoTime();
+            beginIncrementalResize(newCapacity);
+            migrateIndex = 0;
+            modCount++;
+            resizeCount++;
+            resizeNanos += System.nanoTime() - start;
+        } else {
+            resize(newCapacity);
+        }
+    }
+    
+    // Copies the entries out, then inserts them straight into the new buckets:
+    // the keys are known to be distinct and to fit, so the checks of put are skipped
+    @SuppressWarnings("unchecked")
     private void resize(int newCapacity) {
-        List<Entry<K, V>> list = new ArrayBasedList<Entry<K, V>>();
+        long start = System.nanoTime();
+        Object[] keys = new Object[size()];
+        Object[] values = new Object[size()];
+        int n = 0;
         for(Entry<K, V> entry : entrySet()) {
-            list.addLast(entry);
+            keys[n] = entry.getKey();
+            values[n] = entry.getValue();
+            n++;
         }
         createTable(newCapacity);
-        for(Entry<K, V> entry : list) {
-            put(entry.getKey(), entry.getValue());
+        for(int i = 0; i < n; i++) {
+            bucketPut(compress((K) keys[i]), (K) keys[i], (V) values[i]);
         }
+        modCount++;
+        resizeCount++;
+        resizeNanos += System.nanoTime() - start;
+    }
+    
+    /**
+     * Return a snapshot of the shape of the table, examining every bucket
+     * @return statistics of the map
+     */
+    public HashMapStats stats() {
+        return stats(1);
+    }
+    
+    /**
+     * Return a snapshot of the shape of the table, examining every
+     * sampleStride-th bucket only, so that it stays cheap on a large map.
+     * It does not modify the map; during an incremental resize only the
+     * current table is examined
+     * @param sampleStride distance between two examined buckets, 1 for all of them
+     * @return statistics of the map
+     * @throws IllegalArgumentException if the stride is not positive
+     */
+    public HashMapStats stats(int sampleStride) {
+        if(sampleStride < 1) {
+            throw new IllegalArgumentException("Sample stride must be positive.");
+        }
+        HashMapStats.Collector collector = new HashMapStats.Collector();
+        int capacity = capacity();
+        for(int bucket = 0; bucket < capacity; bucket += sampleStride) {
+            collector.sampled();
+            sampleBucket(bucket, collector);
+        }
+        return collector.toStats(capacity, size(), tombstones(), sampleStride, resizeCount, resizeNanos);
+    }
+    
+    /**
+     * Return the probe length of an entry found at the given bucket of an open
+     * addressing table, given the bucket its key hashes to
+     * @param bucket bucket holding the entry
+     * @param home bucket the key hashes to
+     * @return number of buckets from home to bucket, both included
+     */
+    protected int probeLength(int bucket, int home) {
+        return (bucket - home + capacity()) % capacity() + 1;
     }
     
     /**
@@ -125,5 +438,169 @@ public abstract class AbstractHashMap<K, V> extends AbstractMap<K, V> {
      * @return value
      */
     protected abstract V bucketRemove(int hash, K key);
+    /**
+     * Return an iterator over the entries of the current table. It is only
+     * called when no incremental resize is in progress
+     * @return iterator over the entries of the current table
+     */
+    protected abstract Iterator<Entry<K, V>> entryIterator();
+    /**
+     * Perform the given action on every entry of the current table. It is only
+     * called when no incremental resize is in progress
+     * @param action action to perform on each key and value
+     */
+    protected abstract void tableForEach(BiConsumer<? super K, ? super V> action);
+    /**
+     * Report the given bucket of the current table to the statistics collector
+     * @param bucket bucket index
+     * @param collector collector of the statistics
+     */
+    protected abstract void sampleBucket(int bucket, HashMapStats.Collector collector);
+    
+    /**
+     * Return true if the subclass implements the incremental resize hooks below
+     * @return true if incremental resizing is supported
+     */
+    protected boolean supportsIncrementalResize() {
+        return false;
+    }
+    
+    /**
+     * Keep the current table as the old table and create an empty current table
+     * with the given capacity. The size must still count the old entries
+     * @param capacity capacity of the new table
+     */
+    protected void beginIncrementalResize(int capacity) {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Return the capacity of the old table
+     * @return capacity of the old table
+     */
+    protected int oldCapacity() {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Move every entry of the given old bucket into the current table
+     * @param index index of the old bucket
+     */
+    protected void migrateBucket(int index) {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Retrieve an entry from a bucket in the old table
+     * @param hash hash code for the old capacity
+     * @param key key
+     * @return value
+     */
+    protected V oldBucketGet(int hash, K key) {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Remove an entry from a bucket in the old table
+     * @param hash hash code for the old capacity
+     * @param key key
+     * @return value
+     */
+    protected V oldBucketRemove(int hash, K key) {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Drop the old table once every bucket has been migrated
+     */
+    protected void endIncrementalResize() {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Entry Iterable that returns the entry iterator of the subclass
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterable implements Iterable<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            finishResize();
+            return entryIterator();
+        }
+    }
+    
+    /**
+     * Base for the fail-fast entry iterators of the subclasses, which only
+     * need to find the next entry of the table
+     * @author Viet Dinh
+     *
+     */
+    protected abstract class HashIterator implements Iterator<Entry<K, V>> {
+        
+        private int expectedModCount = modCount;
+        private Entry<K, V> next;
+        private Entry<K, V> lastReturned;
+        private boolean advanced;
+        
+        /**
+         * Return the next entry of the table after the cursor and move the cursor past it
+         * @return next entry, or null if there are no more entries
+         */
+        protected abstract Entry<K, V> advance();
+        
+        /**
+         * Throw ConcurrentModificationException if the map was modified behind the iterator
+         */
+        protected void checkForComodification() {
+            if(modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            if(!advanced) {
+                next = advance();
+                advanced = true;
+            }
+            return next != null;
+        }
+        
+        @Override
+        public Entry<K, V> next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            advanced = false;
+            lastReturned = next;
+            return next;
+        }
+        
+        @Override
+        public void remove() {
+            if(lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            shrinkSuspended = true;
+            try {
+                removeLastReturned(lastReturned);
+            } finally {
+                shrinkSuspended = false;
+            }
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+        
+        /**
+         * Removes the last returned entry through the map. Subclasses whose
+         * removal moves entries the cursor has not reached must override this
+         * @param entry last returned entry
+         */
+        protected void removeLastReturned(Entry<K, V> entry) {
+            AbstractHashMap.this.remove(entry.getKey());
+        }
+    }
 }
-
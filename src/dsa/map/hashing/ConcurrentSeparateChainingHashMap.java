@@ -0,0 +1,529 @@
+package dsa.map.hashing;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import dsa.list.ArrayBasedList;
+import dsa.map.AbstractMap;
+
+/**
+ * Thread-safe separate chaining hash map.
+ * Every bucket is a chain of nodes whose next and value fields are volatile,
+ * and the buckets themselves are read with acquire semantics, so get never
+ * takes a lock. An empty bucket is filled with a single compare-and-set; any
+ * other write locks the first node of its own bucket only, so writers to
+ * different buckets never contend. The size is kept in a LongAdder for the
+ * same reason.
+ *
+ * When the map grows, the table is split into strides of buckets that the
+ * resizing threads claim one at a time. A moved bucket is replaced by a
+ * forwarding node that sends readers to the new table, and any writer that
+ * runs into one helps with the remaining strides before retrying, so the
+ * resize is shared by every thread writing to the map.
+ *
+ * entrySet, values and the key iterator return weakly consistent snapshots;
+ * removing through their iterators removes the key from the map itself.
+ * Null keys and null values are not allowed.
+ * @author Viet Dinh
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class ConcurrentSeparateChainingHashMap<K, V> extends AbstractMap<K, V> {
+
+    /** An initial capacity for the hash table, always a power of two */
+    protected static final int DEFAULT_CAPACITY = 16;
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    // Hash of a forwarding node; the hashes of real nodes are never negative
+    private static final int MOVED = -1;
+
+    // Fewest buckets a resizing thread claims at a time
+    private static final int MIN_TRANSFER_STRIDE = 16;
+
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    private static final VarHandle BUCKETS = MethodHandles.arrayElementVarHandle(Node[].class);
+    private static final VarHandle SIZE_CTL;
+
+    static {
+        try {
+            SIZE_CTL = MethodHandles.lookup().findVarHandle(ConcurrentSeparateChainingHashMap.class, "sizeCtl", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile Node<K, V>[] table;
+
+    // Size at which the next resize starts, or -1 while a resize is in progress
+    private volatile int sizeCtl;
+
+    // Resize in progress, so that writers can help even when their bucket was not moved yet
+    private volatile Resize<K, V> resize;
+
+    private final LongAdder count;
+
+    /**
+     * ConcurrentSeparateChainingHashMap constructor
+     */
+    public ConcurrentSeparateChainingHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * ConcurrentSeparateChainingHashMap constructor with given capacity,
+     * rounded up to a power of two
+     * @param capacity capacity
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentSeparateChainingHashMap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        }
+        int n = 2;
+        while (n < capacity && n < MAX_CAPACITY) {
+            n <<= 1;
+        }
+        table = (Node<K, V>[]) new Node[n];
+        sizeCtl = threshold(n);
+        count = new LongAdder();
+    }
+
+    // Resize once the load factor reaches 0.75
+    private static int threshold(int capacity) {
+        return capacity - (capacity >>> 2);
+    }
+
+    // Mixed hash code with the sign bit cleared, so it never equals MOVED
+    private static int spread(int h) {
+        return PowerOfTwoHashStrategy.mix(h) & 0x7fffffff;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V> bucketAt(Node<K, V>[] tab, int i) {
+        return (Node<K, V>) BUCKETS.getAcquire(tab, i);
+    }
+
+    private static <K, V> boolean casBucketAt(Node<K, V>[] tab, int i, Node<K, V> expected, Node<K, V> node) {
+        return BUCKETS.compareAndSet(tab, i, expected, node);
+    }
+
+    private static <K, V> void setBucketAt(Node<K, V>[] tab, int i, Node<K, V> node) {
+        BUCKETS.setRelease(tab, i, node);
+    }
+
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        int h = spread(key.hashCode());
+        Node<K, V>[] tab = table;
+        while (true) {
+            Node<K, V> e = bucketAt(tab, (tab.length - 1) & h);
+            if (e == null) {
+                return null;
+            }
+            if (e.hash == MOVED) {
+                tab = ((ForwardingNode<K, V>) e).resize.to;
+                continue;
+            }
+            for (; e != null; e = e.next) {
+                if (e.hash == h && (e.key == key || e.key.equals(key))) {
+                    return e.value;
+                }
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null.");
+        }
+        int h = spread(key.hashCode());
+        Node<K, V>[] tab = table;
+        while (true) {
+            int i = (tab.length - 1) & h;
+            Node<K, V> f = bucketAt(tab, i);
+            if (f == null) {
+                if (casBucketAt(tab, i, null, new Node<K, V>(h, key, value, null))) {
+                    break;
+                }
+            } else if (f.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) f);
+            } else {
+                synchronized (f) {
+                    // Another writer may have removed or moved the first node meanwhile
+                    if (bucketAt(tab, i) == f) {
+                        for (Node<K, V> e = f;; e = e.next) {
+                            if (e.hash == h && (e.key == key || e.key.equals(key))) {
+                                V original = e.value;
+                                e.value = value;
+                                return original;
+                            }
+                            if (e.next == null) {
+                                e.next = new Node<K, V>(h, key, value, null);
+                                break;
+                            }
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        addCount();
+        return null;
+    }
+
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            return null;
+        }
+        int h = spread(key.hashCode());
+        Node<K, V>[] tab = table;
+        while (true) {
+            int i = (tab.length - 1) & h;
+            Node<K, V> f = bucketAt(tab, i);
+            if (f == null) {
+                return null;
+            }
+            if (f.hash == MOVED) {
+                tab = helpTransfer((ForwardingNode<K, V>) f);
+                continue;
+            }
+            synchronized (f) {
+                if (bucketAt(tab, i) == f) {
+                    Node<K, V> pred = null;
+                    for (Node<K, V> e = f; e != null; pred = e, e = e.next) {
+                        if (e.hash == h && (e.key == key || e.key.equals(key))) {
+                            // Readers already past the node still see it, readers after do not
+                            if (pred == null) {
+                                setBucketAt(tab, i, e.next);
+                            } else {
+                                pred.next = e.next;
+                            }
+                            count.decrement();
+                            return e.value;
+                        }
+                    }
+                    return null;
+                }
+            }
+        }
+    }
+
+    // Counts an insertion, then starts or helps with a resize if needed
+    private void addCount() {
+        count.increment();
+        int sc = sizeCtl;
+        if (sc > 0 && count.sum() >= sc && table.length < MAX_CAPACITY
+                && SIZE_CTL.compareAndSet(this, sc, -1)) {
+            startResize();
+        } else if (sc < 0) {
+            Resize<K, V> r = resize;
+            if (r != null) {
+                transfer(r);
+            }
+        }
+    }
+
+    // Doubles the table; the caller has set sizeCtl to -1
+    @SuppressWarnings("unchecked")
+    private void startResize() {
+        Node<K, V>[] tab = table;
+        Resize<K, V> r = new Resize<K, V>(tab, (Node<K, V>[]) new Node[tab.length << 1]);
+        resize = r;
+        transfer(r);
+    }
+
+    /**
+     * Doubles the table until the given number of entries fit under the 0.75
+     * load factor. Other writers help with each doubling as with any resize
+     * @param expectedSize expected number of entries
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative.");
+        }
+        while (true) {
+            int sc = sizeCtl;
+            if (sc > 0) {
+                if (sc >= expectedSize || table.length >= MAX_CAPACITY) {
+                    return;
+                }
+                if (SIZE_CTL.compareAndSet(this, sc, -1)) {
+                    startResize();
+                }
+            } else {
+                Resize<K, V> r = resize;
+                if (r != null && r.transferIndex.get() > 0) {
+                    transfer(r);
+                } else {
+                    // The last strides are still being moved by other threads
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    // Helps with the resize that moved a bucket, then returns the new table
+    private Node<K, V>[] helpTransfer(ForwardingNode<K, V> fwd) {
+        Resize<K, V> r = fwd.resize;
+        if (r.transferIndex.get() > 0) {
+            transfer(r);
+        }
+        return r.to;
+    }
+
+    // Claims strides of buckets until none are left. The thread that moves
+    // the last bucket publishes the new table
+    private void transfer(Resize<K, V> r) {
+        int n = r.from.length;
+        int stride = NCPU > 1 ? Math.max(MIN_TRANSFER_STRIDE, (n >>> 3) / NCPU) : n;
+        while (true) {
+            int hi = r.transferIndex.get();
+            if (hi <= 0) {
+                return;
+            }
+            int lo = Math.max(0, hi - stride);
+            if (!r.transferIndex.compareAndSet(hi, lo)) {
+                continue;
+            }
+            for (int i = hi - 1; i >= lo; i--) {
+                transferBucket(r, i);
+            }
+            if (r.transferred.addAndGet(hi - lo) == n) {
+                table = r.to;
+                resize = null;
+                sizeCtl = threshold(r.to.length);
+                return;
+            }
+        }
+    }
+
+    // Splits bucket i of the old table into buckets i and i + n of the new one.
+    // Old nodes are never relinked, so readers still walking the old chain are
+    // unaffected; the trailing run of nodes bound for the same bucket is reused
+    // as is and only the nodes in front of it are copied
+    private void transferBucket(Resize<K, V> r, int i) {
+        Node<K, V>[] from = r.from;
+        int n = from.length;
+        while (true) {
+            Node<K, V> f = bucketAt(from, i);
+            if (f == null) {
+                if (casBucketAt(from, i, null, r.forwarding)) {
+                    return;
+                }
+                continue;
+            }
+            synchronized (f) {
+                if (bucketAt(from, i) != f) {
+                    continue;
+                }
+                int runBit = f.hash & n;
+                Node<K, V> lastRun = f;
+                for (Node<K, V> p = f.next; p != null; p = p.next) {
+                    int b = p.hash & n;
+                    if (b != runBit) {
+                        runBit = b;
+                        lastRun = p;
+                    }
+                }
+                Node<K, V> low = runBit == 0 ? lastRun : null;
+                Node<K, V> high = runBit == 0 ? null : lastRun;
+                for (Node<K, V> p = f; p != lastRun; p = p.next) {
+                    if ((p.hash & n) == 0) {
+                        low = new Node<K, V>(p.hash, p.key, p.value, low);
+                    } else {
+                        high = new Node<K, V>(p.hash, p.key, p.value, high);
+                    }
+                }
+                setBucketAt(r.to, i, low);
+                setBucketAt(r.to, i + n, high);
+                setBucketAt(from, i, r.forwarding);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        long s = count.sum();
+        return s < 0 ? 0 : s > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) s;
+    }
+
+    /**
+     * Return map's capacity
+     * @return capacity
+     */
+    protected int capacity() {
+        return table.length;
+    }
+
+    /**
+     * Performs the given action on every entry without locking. Entries added
+     * or removed during the scan may or may not be seen
+     * @param action action to perform on each key and value
+     */
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Node<K, V>[] tab = table;
+        for (int i = 0; i < tab.length; i++) {
+            forEachInBucket(tab, i, action);
+        }
+    }
+
+    // A moved bucket i of a table with n buckets lives in buckets i and i + n of the next one
+    private void forEachInBucket(Node<K, V>[] tab, int i, BiConsumer<? super K, ? super V> action) {
+        Node<K, V> e = bucketAt(tab, i);
+        if (e != null && e.hash == MOVED) {
+            Node<K, V>[] next = ((ForwardingNode<K, V>) e).resize.to;
+            forEachInBucket(next, i, action);
+            forEachInBucket(next, i + tab.length, action);
+            return;
+        }
+        for (; e != null; e = e.next) {
+            action.accept(e.key, e.value);
+        }
+    }
+
+    @Override
+    public Iterable<Entry<K, V>> entrySet() {
+        ArrayBasedList<Entry<K, V>> list = new ArrayBasedList<Entry<K, V>>(Math.max(1, size()));
+        forEach((k, v) -> list.addLast(new MapEntry<K, V>(k, v)));
+        return new SnapshotIterable(list);
+    }
+
+    /**
+     * Snapshot Iterable that returns the snapshot iterator
+     * @author Viet Dinh
+     *
+     */
+    private class SnapshotIterable implements Iterable<Entry<K, V>> {
+        private final ArrayBasedList<Entry<K, V>> entries;
+
+        public SnapshotIterable(ArrayBasedList<Entry<K, V>> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new SnapshotIterator(entries.iterator());
+        }
+    }
+
+    /**
+     * Iterator over a snapshot of the entries whose remove takes the last
+     * returned key out of the map rather than out of the snapshot
+     * @author Viet Dinh
+     */
+    private class SnapshotIterator implements Iterator<Entry<K, V>> {
+        private final Iterator<Entry<K, V>> it;
+        private K lastKey;
+
+        public SnapshotIterator(Iterator<Entry<K, V>> it) {
+            this.it = it;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return it.hasNext();
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            Entry<K, V> entry = it.next();
+            lastKey = entry.getKey();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentSeparateChainingHashMap.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    /**
+     * Node of a bucket chain. The key and hash never change; the value and
+     * the link are volatile so that readers see the writes of locked writers
+     * @author Viet Dinh
+     *
+     * @param <K> key
+     * @param <V> value
+     */
+    private static class Node<K, V> {
+        private final int hash;
+        private final K key;
+        private volatile V value;
+        private volatile Node<K, V> next;
+
+        public Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Node left in a moved bucket of the old table, pointing at the resize
+     * that moved it
+     * @author Viet Dinh
+     *
+     * @param <K> key
+     * @param <V> value
+     */
+    private static class ForwardingNode<K, V> extends Node<K, V> {
+        private final Resize<K, V> resize;
+
+        public ForwardingNode(Resize<K, V> resize) {
+            super(MOVED, null, null, null);
+            this.resize = resize;
+        }
+    }
+
+    /**
+     * State of one resize shared by the threads working on it
+     * @author Viet Dinh
+     *
+     * @param <K> key
+     * @param <V> value
+     */
+    private static class Resize<K, V> {
+        private final Node<K, V>[] from;
+        private final Node<K, V>[] to;
+        private final ForwardingNode<K, V> forwarding;
+
+        // Buckets [0, transferIndex) are still unclaimed
+        private final AtomicInteger transferIndex;
+
+        // Number of buckets moved so far
+        private final AtomicInteger transferred;
+
+        public Resize(Node<K, V>[] from, Node<K, V>[] to) {
+            this.from = from;
+            this.to = to;
+            this.forwarding = new ForwardingNode<K, V>(this);
+            this.transferIndex = new AtomicInteger(from.length);
+            this.transferred = new AtomicInteger(0);
+        }
+    }
+}
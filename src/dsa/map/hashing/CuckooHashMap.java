@@ -0,0 +1,537 @@
+package dsa.map.hashing;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+import dsa.map.AbstractMap;
+
+/**
+ * Bucketized cuckoo hash map.
+ * Every key has two candidate buckets, chosen by two seeded hash functions,
+ * and every bucket holds SLOTS_PER_BUCKET entries. A key is always stored in
+ * one of its two buckets or in a small stash, so get looks at no more than
+ * two buckets and the stash, whatever the load or the insertion history.
+ *
+ * When both buckets of a new key are full, put evicts a random resident and
+ * moves it to its other bucket, repeating for up to MAX_KICKS steps. A walk
+ * that runs that long is treated as a cycle: the homeless entry goes to the
+ * stash, and once the stash is full the table is rebuilt with new seeds
+ * (doubling it if rebuilding alone does not succeed). Keys that all share
+ * one hash code cannot be spread by any seeds, so if rebuilding keeps
+ * failing the stash grows instead.
+ *
+ * The hash codes, keys and values of a bucket are kept in parallel arrays,
+ * so the slots of a bucket are adjacent and a stored hash code is compared
+ * before equals is called. Null keys are not allowed.
+ * @author Viet Dinh
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class CuckooHashMap<K, V> extends AbstractMap<K, V> {
+
+    /** An initial capacity for the hash table, in slots */
+    protected static final int DEFAULT_CAPACITY = 16;
+
+    /** Number of slots in every bucket */
+    protected static final int SLOTS_PER_BUCKET = 4;
+
+    /** Number of entries the stash can hold, unless many keys share one hash code */
+    protected static final int STASH_CAPACITY = 4;
+
+    // With two choices of four slots each, insertions rarely fail below a load of 0.9
+    private static final double MAX_LOAD_FACTOR = 0.85;
+
+    // Longest eviction walk before an insertion is considered to be in a cycle
+    private static final int MAX_KICKS = 128;
+
+    // Number of rebuilds with new seeds before the table is doubled instead
+    private static final int REHASHES_BEFORE_GROWING = 2;
+
+    // Number of failed rebuilds after which the stash grows instead. Only
+    // many keys with the very same hash code get this far, since no choice
+    // of seeds can spread them over more than two buckets
+    private static final int REHASHES_BEFORE_GROWING_STASH = 6;
+
+    private int[] hashes;
+    private Object[] keys;
+    private Object[] values;
+    private int bucketMask;
+
+    private int[] stashHashes;
+    private Object[] stashKeys;
+    private Object[] stashValues;
+    private int stashSize;
+
+    private int seed1;
+    private int seed2;
+    private Random random;
+
+    private int size;
+
+    // Number of insertions, removals and rebuilds, checked by the iterators to fail fast
+    private int modCount;
+
+    // Entry left without a slot by a failed insertion
+    private Object pendingKey;
+    private Object pendingValue;
+    private int pendingHash;
+
+    /**
+     * CuckooHashMap constructor
+     */
+    public CuckooHashMap() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * CuckooHashMap constructor for testing
+     * @param isTesting if true, the seeds and evictions are not random
+     */
+    public CuckooHashMap(boolean isTesting) {
+        this(DEFAULT_CAPACITY, isTesting);
+    }
+
+    /**
+     * CuckooHashMap constructor with given capacity
+     * @param capacity capacity in slots
+     */
+    public CuckooHashMap(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * CuckooHashMap constructor with given capacity and isTesting boolean value
+     * @param capacity capacity in slots, rounded up to a power of two number of buckets
+     * @param isTesting if true, the seeds and evictions are not random
+     */
+    public CuckooHashMap(int capacity, boolean isTesting) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        }
+        random = isTesting ? new Random(1) : new Random();
+        stashHashes = new int[STASH_CAPACITY];
+        stashKeys = new Object[STASH_CAPACITY];
+        stashValues = new Object[STASH_CAPACITY];
+        int buckets = 2;
+        while (buckets * SLOTS_PER_BUCKET < capacity && buckets < (1 << 28)) {
+            buckets <<= 1;
+        }
+        createTable(buckets);
+        size = 0;
+    }
+
+    private void createTable(int buckets) {
+        hashes = new int[buckets * SLOTS_PER_BUCKET];
+        keys = new Object[buckets * SLOTS_PER_BUCKET];
+        values = new Object[buckets * SLOTS_PER_BUCKET];
+        bucketMask = buckets - 1;
+        stashSize = 0;
+        seed1 = random.nextInt();
+        do {
+            seed2 = random.nextInt();
+        } while (seed2 == seed1);
+    }
+
+    // First slot of the bucket chosen by the hash function with the given seed
+    private int bucket(int hashCode, int seed) {
+        return (PowerOfTwoHashStrategy.mix(hashCode ^ seed) & bucketMask) * SLOTS_PER_BUCKET;
+    }
+
+    // Slot of the key in the given bucket, or -1
+    private int findInBucket(int start, int hashCode, Object key) {
+        for (int i = start; i < start + SLOTS_PER_BUCKET; i++) {
+            if (hashes[i] == hashCode && keys[i] != null && key.equals(keys[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Slot of the key in the table, or -1
+    private int findSlot(int hashCode, Object key) {
+        int slot = findInBucket(bucket(hashCode, seed1), hashCode, key);
+        if (slot < 0) {
+            slot = findInBucket(bucket(hashCode, seed2), hashCode, key);
+        }
+        return slot;
+    }
+
+    // Index of the key in the stash, or -1
+    private int findInStash(int hashCode, Object key) {
+        for (int i = 0; i < stashSize; i++) {
+            if (stashHashes[i] == hashCode && key.equals(stashKeys[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        int h = key.hashCode();
+        int slot = findSlot(h, key);
+        if (slot >= 0) {
+            return (V) values[slot];
+        }
+        if (stashSize > 0) {
+            int i = findInStash(h, key);
+            if (i >= 0) {
+                return (V) stashValues[i];
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V put(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+        int h = key.hashCode();
+        int slot = findSlot(h, key);
+        if (slot >= 0) {
+            V original = (V) values[slot];
+            values[slot] = value;
+            return original;
+        }
+        int i = stashSize > 0 ? findInStash(h, key) : -1;
+        if (i >= 0) {
+            V original = (V) stashValues[i];
+            stashValues[i] = value;
+            return original;
+        }
+        size++;
+        modCount++;
+        if (!place(h, key, value)) {
+            rehash(bucketCount());
+        } else if (size > MAX_LOAD_FACTOR * capacity()) {
+            rehash(bucketCount() * 2);
+        }
+        return null;
+    }
+
+    // Stores the entry in the first free slot of the bucket
+    private boolean tryBucket(int start, int hashCode, Object key, Object value) {
+        for (int i = start; i < start + SLOTS_PER_BUCKET; i++) {
+            if (keys[i] == null) {
+                hashes[i] = hashCode;
+                keys[i] = key;
+                values[i] = value;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Stores a new entry, evicting residents as needed. Returns false and
+    // leaves the last evicted entry in the pending fields if the eviction
+    // walk reached MAX_KICKS with a full stash
+    private boolean place(int hashCode, Object key, Object value) {
+        int b1 = bucket(hashCode, seed1);
+        int b2 = bucket(hashCode, seed2);
+        if (tryBucket(b1, hashCode, key, value) || tryBucket(b2, hashCode, key, value)) {
+            return true;
+        }
+        int b = random.nextBoolean() ? b1 : b2;
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            int slot = b + random.nextInt(SLOTS_PER_BUCKET);
+            int evictedHash = hashes[slot];
+            Object evictedKey = keys[slot];
+            Object evictedValue = values[slot];
+            hashes[slot] = hashCode;
+            keys[slot] = key;
+            values[slot] = value;
+            hashCode = evictedHash;
+            key = evictedKey;
+            value = evictedValue;
+            // Send the evicted entry to its other bucket
+            int alternative = bucket(hashCode, seed1);
+            b = alternative == b ? bucket(hashCode, seed2) : alternative;
+            if (tryBucket(b, hashCode, key, value)) {
+                return true;
+            }
+        }
+        if (stashSize < stashKeys.length) {
+            stashHashes[stashSize] = hashCode;
+            stashKeys[stashSize] = key;
+            stashValues[stashSize] = value;
+            stashSize++;
+            return true;
+        }
+        pendingHash = hashCode;
+        pendingKey = key;
+        pendingValue = value;
+        return false;
+    }
+
+    // Rebuilds the table with new seeds and at least the given number of
+    // buckets, growing it if a few sets of seeds all fail
+    private void rehash(int buckets) {
+        int count = size;
+        int[] allHashes = new int[count];
+        Object[] allKeys = new Object[count];
+        Object[] allValues = new Object[count];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                allHashes[n] = hashes[i];
+                allKeys[n] = keys[i];
+                allValues[n] = values[i];
+                n++;
+            }
+        }
+        for (int i = 0; i < stashSize; i++) {
+            allHashes[n] = stashHashes[i];
+            allKeys[n] = stashKeys[i];
+            allValues[n] = stashValues[i];
+            n++;
+        }
+        if (pendingKey != null) {
+            allHashes[n] = pendingHash;
+            allKeys[n] = pendingKey;
+            allValues[n] = pendingValue;
+            n++;
+            pendingKey = null;
+            pendingValue = null;
+        }
+        int attempts = 0;
+        while (true) {
+            createTable(buckets);
+            boolean placed = true;
+            for (int i = 0; i < n && placed; i++) {
+                placed = place(allHashes[i], allKeys[i], allValues[i]);
+            }
+            if (placed) {
+                break;
+            }
+            pendingKey = null;
+            pendingValue = null;
+            attempts++;
+            if (attempts >= REHASHES_BEFORE_GROWING_STASH) {
+                growStash();
+            } else if (attempts % REHASHES_BEFORE_GROWING == 0) {
+                buckets *= 2;
+            }
+        }
+        modCount++;
+    }
+
+    private void growStash() {
+        int length = stashKeys.length * 2;
+        stashHashes = new int[length];
+        stashKeys = new Object[length];
+        stashValues = new Object[length];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            return null;
+        }
+        int h = key.hashCode();
+        int slot = findSlot(h, key);
+        if (slot >= 0) {
+            V original = (V) values[slot];
+            clearSlot(slot);
+            size--;
+            modCount++;
+            if (stashSize > 0) {
+                unstash(slot - slot % SLOTS_PER_BUCKET);
+            }
+            return original;
+        }
+        int i = stashSize > 0 ? findInStash(h, key) : -1;
+        if (i < 0) {
+            return null;
+        }
+        V original = (V) stashValues[i];
+        removeFromStash(i);
+        size--;
+        modCount++;
+        return original;
+    }
+
+    private void clearSlot(int slot) {
+        hashes[slot] = 0;
+        keys[slot] = null;
+        values[slot] = null;
+    }
+
+    // Swaps the last stash entry into the hole; iterators walk the stash backwards
+    private void removeFromStash(int i) {
+        stashSize--;
+        stashHashes[i] = stashHashes[stashSize];
+        stashKeys[i] = stashKeys[stashSize];
+        stashValues[i] = stashValues[stashSize];
+        stashKeys[stashSize] = null;
+        stashValues[stashSize] = null;
+    }
+
+    // Moves a stashed entry that belongs to the bucket into its freed slot
+    private void unstash(int bucket) {
+        for (int i = stashSize - 1; i >= 0; i--) {
+            int h = stashHashes[i];
+            if (bucket(h, seed1) == bucket || bucket(h, seed2) == bucket) {
+                tryBucket(bucket, h, stashKeys[i], stashValues[i]);
+                removeFromStash(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the table once with enough buckets for the given number of
+     * entries under the maximum load factor
+     * @param expectedSize expected number of entries
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative.");
+        }
+        int buckets = bucketCount();
+        while (buckets * SLOTS_PER_BUCKET * MAX_LOAD_FACTOR < expectedSize && buckets < (1 << 28)) {
+            buckets <<= 1;
+        }
+        if (buckets > bucketCount()) {
+            rehash(buckets);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return map's capacity
+     * @return capacity in slots
+     */
+    protected int capacity() {
+        return keys.length;
+    }
+
+    private int bucketCount() {
+        return bucketMask + 1;
+    }
+
+    /**
+     * Performs the given action on every key and value without allocating an iterator
+     * @param action action to perform on each key and value
+     * @throws ConcurrentModificationException if the action structurally modifies the map
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        int expectedModCount = modCount;
+        Object[] k = keys;
+        Object[] v = values;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != null) {
+                action.accept((K) k[i], (V) v[i]);
+            }
+        }
+        for (int i = stashSize - 1; i >= 0; i--) {
+            action.accept((K) stashKeys[i], (V) stashValues[i]);
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Return a live view of the entries. Its iterators walk the table and then
+     * the stash directly and fail fast on concurrent modification; each
+     * returned entry is a copy of the mapping
+     * @return live view of the entries
+     */
+    @Override
+    public Iterable<Entry<K, V>> entrySet() {
+        return new EntryIterable();
+    }
+
+    /**
+     * Entry Iterable that returns the entry iterator
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterable implements Iterable<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+    }
+
+    /**
+     * Iterator over the slots of the table, then the stash from its end.
+     * Removing a slot never moves another entry, and removing from the stash
+     * only moves its last entry, which was already returned
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private int cursor = 0;
+        private int stashCursor = stashSize;
+        private int lastSlot = -1;
+        private int lastStash = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            while (cursor < keys.length && keys[cursor] == null) {
+                cursor++;
+            }
+            return cursor < keys.length || stashCursor > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (cursor < keys.length) {
+                lastSlot = cursor++;
+                lastStash = -1;
+                return new MapEntry<K, V>((K) keys[lastSlot], (V) values[lastSlot]);
+            }
+            lastStash = --stashCursor;
+            lastSlot = -1;
+            return new MapEntry<K, V>((K) stashKeys[lastStash], (V) stashValues[lastStash]);
+        }
+
+        @Override
+        public void remove() {
+            if (lastSlot < 0 && lastStash < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (lastSlot >= 0) {
+                clearSlot(lastSlot);
+            } else {
+                removeFromStash(lastStash);
+            }
+            lastSlot = -1;
+            lastStash = -1;
+            size--;
+            modCount++;
+            expectedModCount = modCount;
+        }
+    }
+}
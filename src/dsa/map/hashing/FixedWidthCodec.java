@@ -0,0 +1,91 @@
+package dsa.map.hashing;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes values of a type into a fixed number of bytes, used by
+ * OffHeapHashMap to store keys and values outside of the heap.
+ * Two equal values must always encode to the same bytes, since
+ * OffHeapHashMap compares keys by their encoding
+ * @author Viet Dinh
+ *
+ * @param <T> type of the encoded values
+ */
+public interface FixedWidthCodec<T> {
+
+    /** Codec for Integer values, 4 bytes */
+    FixedWidthCodec<Integer> INTEGER = new FixedWidthCodec<Integer>() {
+        @Override
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Integer value) {
+            buffer.putInt(offset, value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer, int offset) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    /** Codec for Long values, 8 bytes */
+    FixedWidthCodec<Long> LONG = new FixedWidthCodec<Long>() {
+        @Override
+        public int width() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Long value) {
+            buffer.putLong(offset, value);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    /** Codec for Double values, 8 bytes; every NaN is stored as the canonical NaN */
+    FixedWidthCodec<Double> DOUBLE = new FixedWidthCodec<Double>() {
+        @Override
+        public int width() {
+            return Double.BYTES;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, int offset, Double value) {
+            buffer.putLong(offset, Double.doubleToLongBits(value));
+        }
+
+        @Override
+        public Double read(ByteBuffer buffer, int offset) {
+            return Double.longBitsToDouble(buffer.getLong(offset));
+        }
+    };
+
+    /**
+     * Return the number of bytes of every encoded value
+     * @return width in bytes
+     */
+    int width();
+
+    /**
+     * Write the value at the given absolute offset of the buffer
+     * @param buffer buffer to write to
+     * @param offset absolute offset of the first byte
+     * @param value value to encode, never null
+     */
+    void write(ByteBuffer buffer, int offset, T value);
+
+    /**
+     * Read the value at the given absolute offset of the buffer
+     * @param buffer buffer to read from
+     * @param offset absolute offset of the first byte
+     * @return decoded value
+     */
+    T read(ByteBuffer buffer, int offset);
+}
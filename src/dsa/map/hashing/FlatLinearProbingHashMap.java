@@ -0,0 +1,320 @@
+package dsa.map.hashing;
+
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+import dsa.map.Map;
+
+/**
+ * Linear probing hash map with a struct-of-arrays layout.
+ * LinearProbingHashMap keeps a reference to an entry object in every bucket,
+ * so each probe loads the entry before it can look at the key. Here the
+ * buckets are spread over four parallel arrays: keys, values, the cached
+ * hash codes of the keys and a state byte (empty, full or deleted). A probe
+ * compares the cached hash code first and only calls equals on a match, and
+ * no object is allocated per entry.
+ *
+ * Entries returned by the iterators are created on demand and are copies of
+ * the mappings. Removal through the iterator is supported.
+ * @author Viet Dinh
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class FlatLinearProbingHashMap<K, V> extends AbstractHashMap<K, V> {
+
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+    private static final byte DELETED = 2;
+
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private byte[] states;
+    private int size;
+
+    // Number of deleted buckets of the current table
+    private int tombstones;
+
+    // Table being drained by an incremental resize, null otherwise
+    private Object[] oldKeys;
+    private Object[] oldValues;
+    private int[] oldHashes;
+    private byte[] oldStates;
+
+    /**
+     * FlatLinearProbingHashMap constructor
+     */
+    public FlatLinearProbingHashMap() {
+        this(AbstractHashMap.DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * FlatLinearProbingHashMap constructor for testing
+     * @param isTesting for testing
+     */
+    public FlatLinearProbingHashMap(boolean isTesting) {
+        this(AbstractHashMap.DEFAULT_CAPACITY, isTesting);
+    }
+
+    /**
+     * FlatLinearProbingHashMap constructor with given capacity
+     * @param capacity capacity
+     */
+    public FlatLinearProbingHashMap(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * FlatLinearProbingHashMap constructor with given capacity and isTesting boolean value
+     * @param capacity capacity
+     * @param isTesting for testing
+     */
+    public FlatLinearProbingHashMap(int capacity, boolean isTesting) {
+        super(capacity, isTesting);
+    }
+
+    /**
+     * FlatLinearProbingHashMap constructor with given capacity, hash strategy and maximum load factor
+     * @param capacity capacity
+     * @param strategy compression function and growth policy of the table
+     * @param maxLoadFactor the table grows once size / capacity exceeds this value
+     * @throws IllegalArgumentException if the load factor is not between 0 and 1
+     */
+    public FlatLinearProbingHashMap(int capacity, HashStrategy strategy, double maxLoadFactor) {
+        super(capacity, strategy, checkOpenAddressing(maxLoadFactor));
+    }
+
+    /**
+     * FlatLinearProbingHashMap constructor holding the entries of the given map,
+     * presized so that they are inserted without resizing
+     * @param map map whose entries are copied
+     */
+    public FlatLinearProbingHashMap(Map<? extends K, ? extends V> map) {
+        this(capacityFor(map.size(), DEFAULT_MAX_LOAD_FACTOR), false);
+        putAll(map);
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+        states = new byte[capacity];
+        oldKeys = null;
+        oldValues = null;
+        oldHashes = null;
+        oldStates = null;
+        size = 0;
+        tombstones = 0;
+    }
+
+    // Returns the bucket of the key if it is in the given table, or -(a + 1)
+    // where a is the first empty or deleted bucket of its probe sequence
+    private static int findBucket(Object[] keys, int[] hashes, byte[] states, int index, int hashCode, Object key) {
+        int avail = -1;
+        int j = index;
+        do {
+            byte state = states[j];
+            if (state == FULL) {
+                if (hashes[j] == hashCode && key.equals(keys[j])) {
+                    return j;
+                }
+            } else {
+                if (avail == -1) {
+                    avail = j;
+                }
+                if (state == EMPTY) {
+                    break;
+                }
+            }
+            j = (j + 1) % states.length;
+        } while (j != index);
+        return -(avail + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V bucketGet(int hash, K key) {
+        int j = findBucket(keys, hashes, states, hash, key.hashCode(), key);
+        return j < 0 ? null : (V) values[j];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V bucketPut(int hash, K key, V value) {
+        int hashCode = key.hashCode();
+        int j = findBucket(keys, hashes, states, hash, hashCode, key);
+        if (j >= 0) {
+            V original = (V) values[j];
+            values[j] = value;
+            return original;
+        }
+        store(-(j + 1), hashCode, key, value);
+        size++;
+        return null;
+    }
+
+    // Fills an empty or deleted bucket of the current table
+    private void store(int j, int hashCode, Object key, Object value) {
+        if (states[j] == DELETED) {
+            tombstones--;
+        }
+        keys[j] = key;
+        values[j] = value;
+        hashes[j] = hashCode;
+        states[j] = FULL;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V bucketRemove(int hash, K key) {
+        int j = findBucket(keys, hashes, states, hash, key.hashCode(), key);
+        if (j < 0) {
+            return null;
+        }
+        V answer = (V) values[j];
+        // Clear the references so the removed key and value can be collected
+        keys[j] = null;
+        values[j] = null;
+        states[j] = DELETED;
+        tombstones++;
+        size--;
+        return answer;
+    }
+
+    @Override
+    protected boolean supportsIncrementalResize() {
+        return true;
+    }
+
+    @Override
+    protected void beginIncrementalResize(int capacity) {
+        oldKeys = keys;
+        oldValues = values;
+        oldHashes = hashes;
+        oldStates = states;
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+        states = new byte[capacity];
+        tombstones = 0;
+    }
+
+    @Override
+    protected int oldCapacity() {
+        return oldStates.length;
+    }
+
+    @Override
+    protected void migrateBucket(int index) {
+        if (oldStates[index] != FULL) {
+            return;
+        }
+        // The cached hash code gives the new bucket without calling hashCode again
+        int hashCode = oldHashes[index];
+        int j = getHashStrategy().index(hashCode, capacity());
+        while (states[j] == FULL) {
+            j = (j + 1) % states.length;
+        }
+        store(j, hashCode, oldKeys[index], oldValues[index]);
+        // The old table only shrinks from here on, so a deleted bucket keeps
+        // the probe sequences of the entries not yet migrated intact
+        oldKeys[index] = null;
+        oldValues[index] = null;
+        oldStates[index] = DELETED;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V oldBucketGet(int hash, K key) {
+        int j = findBucket(oldKeys, oldHashes, oldStates, hash, key.hashCode(), key);
+        return j < 0 ? null : (V) oldValues[j];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V oldBucketRemove(int hash, K key) {
+        int j = findBucket(oldKeys, oldHashes, oldStates, hash, key.hashCode(), key);
+        if (j < 0) {
+            return null;
+        }
+        V answer = (V) oldValues[j];
+        oldKeys[j] = null;
+        oldValues[j] = null;
+        oldStates[j] = DELETED;
+        size--;
+        return answer;
+    }
+
+    @Override
+    protected void endIncrementalResize() {
+        oldKeys = null;
+        oldValues = null;
+        oldHashes = null;
+        oldStates = null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    protected int capacity() {
+        return states.length;
+    }
+
+    @Override
+    protected void sampleBucket(int bucket, HashMapStats.Collector collector) {
+        if (states[bucket] == FULL) {
+            collector.addEntry(probeLength(bucket, getHashStrategy().index(hashes[bucket], capacity())));
+        }
+    }
+
+    @Override
+    protected int tombstones() {
+        return tombstones;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void tableForEach(BiConsumer<? super K, ? super V> action) {
+        Object[] k = keys;
+        Object[] v = values;
+        byte[] s = states;
+        for (int j = 0; j < s.length; j++) {
+            if (s[j] == FULL) {
+                action.accept((K) k[j], (V) v[j]);
+            }
+        }
+    }
+
+    @Override
+    protected Iterator<Entry<K, V>> entryIterator() {
+        return new EntryIterator();
+    }
+
+    /**
+     * Iterator that walks the state array with a cursor and creates an entry
+     * for each full bucket. Removal only marks the bucket deleted, so it is
+     * safe to remove through the map
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterator extends HashIterator {
+        private int cursor = 0;
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected Entry<K, V> advance() {
+            while (cursor < states.length) {
+                int j = cursor++;
+                if (states[j] == FULL) {
+                    return new MapEntry<K, V>((K) keys[j], (V) values[j]);
+                }
+            }
+            return null;
+        }
+    }
+}
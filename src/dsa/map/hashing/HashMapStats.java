@@ -0,0 +1,242 @@
+package dsa.map.hashing;
+
+import java.util.Arrays;
+
+/**
+ * Snapshot of the shape of an AbstractHashMap, returned by its stats method.
+ * The probe length of an entry is the number of buckets a lookup of its key
+ * examines: 1 when the entry sits in its home bucket, more when it was pushed
+ * along the table by collisions, or, with separate chaining, its position in
+ * its bucket. Long probes under a low load point at a poor hashCode().
+ *
+ * The probe and bucket figures may come from a sample of every n-th bucket,
+ * given by getSampleStride; the sizes, tombstones and resize figures are exact.
+ * @author Viet Dinh
+ *
+ */
+public class HashMapStats {
+
+    /** Probe lengths from this value on share the last bin of the histogram */
+    public static final int HISTOGRAM_LIMIT = 64;
+
+    private final int capacity;
+    private final int size;
+    private final int tombstones;
+    private final int sampleStride;
+    private final int sampledBuckets;
+    private final long sampledEntries;
+    private final int maxProbeLength;
+    private final double meanProbeLength;
+    private final long[] probeLengthHistogram;
+    private final long[] bucketSizeHistogram;
+    private final int resizeCount;
+    private final long resizeNanos;
+
+    private HashMapStats(int capacity, int size, int tombstones, int sampleStride, Collector collector,
+            int resizeCount, long resizeNanos) {
+        this.capacity = capacity;
+        this.size = size;
+        this.tombstones = tombstones;
+        this.sampleStride = sampleStride;
+        this.sampledBuckets = collector.buckets;
+        this.sampledEntries = collector.entries;
+        this.maxProbeLength = collector.maxProbeLength;
+        this.meanProbeLength = collector.entries == 0 ? 0 : (double) collector.probeLengthSum / collector.entries;
+        this.probeLengthHistogram = Arrays.copyOf(collector.probeLengths, Math.min(collector.maxProbeLength, HISTOGRAM_LIMIT) + 1);
+        this.bucketSizeHistogram = Arrays.copyOf(collector.bucketSizes, collector.maxBucketSize + 1);
+        this.resizeCount = resizeCount;
+        this.resizeNanos = resizeNanos;
+    }
+
+    /**
+     * Return the number of buckets of the table
+     * @return capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Return the number of entries of the map
+     * @return size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Return the current load factor, size / capacity
+     * @return load factor
+     */
+    public double getLoadFactor() {
+        return capacity == 0 ? 0 : (double) size / capacity;
+    }
+
+    /**
+     * Return the number of deleted buckets that still lengthen probes
+     * @return number of tombstones, 0 for maps without them
+     */
+    public int getTombstones() {
+        return tombstones;
+    }
+
+    /**
+     * Return the distance between two sampled buckets, 1 when every bucket was examined
+     * @return sample stride
+     */
+    public int getSampleStride() {
+        return sampleStride;
+    }
+
+    /**
+     * Return the number of buckets examined
+     * @return number of sampled buckets
+     */
+    public int getSampledBuckets() {
+        return sampledBuckets;
+    }
+
+    /**
+     * Return the number of entries found in the sampled buckets
+     * @return number of sampled entries
+     */
+    public long getSampledEntries() {
+        return sampledEntries;
+    }
+
+    /**
+     * Return the longest probe length among the sampled entries
+     * @return maximum probe length, 0 if no entry was sampled
+     */
+    public int getMaxProbeLength() {
+        return maxProbeLength;
+    }
+
+    /**
+     * Return the mean probe length of the sampled entries, the expected cost
+     * of a successful lookup
+     * @return mean probe length, 0 if no entry was sampled
+     */
+    public double getMeanProbeLength() {
+        return meanProbeLength;
+    }
+
+    /**
+     * Return the probe length histogram: element i counts the sampled entries
+     * with probe length i, and the element at HISTOGRAM_LIMIT counts every
+     * longer probe as well
+     * @return copy of the probe length histogram
+     */
+    public long[] getProbeLengthHistogram() {
+        return probeLengthHistogram.clone();
+    }
+
+    /**
+     * Return the bucket occupancy histogram of a separate chaining map:
+     * element i counts the sampled buckets holding i entries
+     * @return copy of the bucket occupancy histogram, empty for open addressing maps
+     */
+    public long[] getBucketSizeHistogram() {
+        return bucketSizeHistogram.clone();
+    }
+
+    /**
+     * Return the number of times the table was rebuilt, by growing,
+     * shrinking or compacting, since the map was created
+     * @return resize count
+     */
+    public int getResizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * Return the total time spent rebuilding the table, including the
+     * bucket migrations of incremental resizes
+     * @return cumulative resize time in nanoseconds
+     */
+    public long getResizeNanos() {
+        return resizeNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("capacity=%d size=%d load=%.3f tombstones=%d resizes=%d resizeTime=%.3fms%n",
+                capacity, size, getLoadFactor(), tombstones, resizeCount, resizeNanos / 1e6));
+        sb.append(String.format("sampled %d buckets (stride %d), %d entries: mean probe %.3f, max probe %d%n",
+                sampledBuckets, sampleStride, sampledEntries, meanProbeLength, maxProbeLength));
+        sb.append("probe lengths:");
+        for (int i = 1; i < probeLengthHistogram.length; i++) {
+            if (probeLengthHistogram[i] != 0) {
+                sb.append(' ').append(i).append(i == HISTOGRAM_LIMIT ? "+=" : "=").append(probeLengthHistogram[i]);
+            }
+        }
+        if (bucketSizeHistogram.length > 0) {
+            sb.append(String.format("%nbucket sizes:"));
+            for (int i = 0; i < bucketSizeHistogram.length; i++) {
+                if (bucketSizeHistogram[i] != 0) {
+                    sb.append(' ').append(i).append('=').append(bucketSizeHistogram[i]);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Accumulates the figures of the sampled buckets. The maps report every
+     * entry of an open addressing bucket with addEntry, or the size of every
+     * separate chaining bucket with addBucket
+     * @author Viet Dinh
+     *
+     */
+    public static class Collector {
+        private int buckets;
+        private long entries;
+        private long probeLengthSum;
+        private int maxProbeLength;
+        private long[] probeLengths = new long[HISTOGRAM_LIMIT + 1];
+        private long[] bucketSizes = new long[0];
+        private int maxBucketSize = -1;
+
+        Collector() {
+            // Created by AbstractHashMap.stats only
+        }
+
+        /**
+         * Record an entry of an open addressing table with the given probe length
+         * @param probeLength number of buckets examined to find the entry, at least 1
+         */
+        public void addEntry(int probeLength) {
+            entries++;
+            probeLengthSum += probeLength;
+            maxProbeLength = Math.max(maxProbeLength, probeLength);
+            probeLengths[Math.min(probeLength, HISTOGRAM_LIMIT)]++;
+        }
+
+        /**
+         * Record a separate chaining bucket with the given number of entries;
+         * its entries have probe lengths 1 to size
+         * @param size number of entries in the bucket
+         */
+        public void addBucket(int size) {
+            if (size >= bucketSizes.length) {
+                bucketSizes = Arrays.copyOf(bucketSizes, Math.max(size + 1, bucketSizes.length * 2));
+            }
+            bucketSizes[size]++;
+            maxBucketSize = Math.max(maxBucketSize, size);
+            for (int i = 1; i <= size; i++) {
+                addEntry(i);
+            }
+        }
+
+        // Counts a sampled bucket; called by AbstractHashMap for each one
+        void sampled() {
+            buckets++;
+        }
+
+        HashMapStats toStats(int capacity, int size, int tombstones, int sampleStride, int resizeCount,
+                long resizeNanos) {
+            return new HashMapStats(capacity, size, tombstones, sampleStride, this, resizeCount, resizeNanos);
+        }
+    }
+}
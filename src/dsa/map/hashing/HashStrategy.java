@@ -0,0 +1,29 @@
+package dsa.map.hashing;
+
+/**
+ * Strategy used by AbstractHashMap to turn a key's hash code into a bucket
+ * index, and to choose the capacities of its tables
+ * @author Viet Dinh
+ *
+ */
+public interface HashStrategy {
+    /**
+     * Returns the bucket index for the given hash code
+     * @param hashCode hash code of the key
+     * @param capacity capacity of the table
+     * @return bucket index in the range 0..capacity-1
+     */
+    int index(int hashCode, int capacity);
+    /**
+     * Returns the capacity to use for a table requested with the given capacity
+     * @param capacity requested capacity
+     * @return capacity of the new table
+     */
+    int initialCapacity(int capacity);
+    /**
+     * Returns the capacity to grow to from the given capacity
+     * @param capacity current capacity
+     * @return capacity of the grown table
+     */
+    int nextCapacity(int capacity);
+}
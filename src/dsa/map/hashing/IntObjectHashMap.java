@@ -0,0 +1,404 @@
+package dsa.map.hashing;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+import dsa.data.Identifiable;
+import dsa.map.AbstractMap;
+
+/**
+ * Open addressing hash map with primitive int keys.
+ * Keys and values are kept in two parallel arrays, so there is no entry
+ * object per mapping and no boxing of the key on the lookup path. Deleted
+ * slots are repaired with backward-shift deletion instead of tombstones.
+ * The Map methods taking an Integer are kept for compatibility; use the
+ * int and Identifiable overloads to avoid boxing.
+ * @author Viet Dinh
+ *
+ * @param <V> value
+ */
+public class IntObjectHashMap<V> extends AbstractMap<Integer, V> {
+
+    /** An initial capacity for the hash table, always a power of two */
+    protected static final int DEFAULT_CAPACITY = 16;
+
+    // With a strong mixing function and power of two capacities, clusters
+    // stay short enough for linear probing up to a load factor of 0.75
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    // 0 marks an empty slot, so the key 0 is stored outside of the table
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    // 32 - log2(capacity), so that the top bits of the hash select the slot
+    private int shift;
+    private int size;
+    private boolean hasZeroKey;
+    private V zeroValue;
+
+    // Number of insertions, removals and resizes, checked by the iterators to fail fast
+    private int modCount;
+
+    /**
+     * IntObjectHashMap constructor
+     */
+    public IntObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * IntObjectHashMap constructor that can hold the given number of entries without resizing
+     * @param expectedSize expected number of entries
+     */
+    public IntObjectHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative.");
+        }
+        createTable(tableSizeFor(expectedSize));
+        size = 0;
+    }
+
+    // Smallest power of two capacity that holds the given number of entries under MAX_LOAD_FACTOR
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(expectedSize / MAX_LOAD_FACTOR) + 1;
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < needed && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void createTable(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+    }
+
+    // Fibonacci hashing: the multiplication moves every bit of the key into
+    // the high bits of the product, which pick the slot, so sequential ids and
+    // keys that differ only in their high bits are spread across the table
+    private int indexOf(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * Return the value associated with the given key, or null if there is none
+     * @param key key
+     * @return value of the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == 0) {
+            return zeroValue;
+        }
+        int j = indexOf(key);
+        int k;
+        while ((k = keys[j]) != 0) {
+            if (k == key) {
+                return (V) values[j];
+            }
+            j = (j + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Return true if the map contains the given key
+     * @param key key
+     * @return true if the map contains the key, false otherwise
+     */
+    public boolean containsKey(int key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        int j = indexOf(key);
+        int k;
+        while ((k = keys[j]) != 0) {
+            if (k == key) {
+                return true;
+            }
+            j = (j + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the mapping from key to value, replacing any existing value
+     * @param key key
+     * @param value value
+     * @return null if key does not exist, if exist, return original value of key
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (key == 0) {
+            V original = zeroValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+                modCount++;
+            }
+            zeroValue = value;
+            return original;
+        }
+        int j = indexOf(key);
+        int k;
+        while ((k = keys[j]) != 0) {
+            if (k == key) {
+                V original = (V) values[j];
+                values[j] = value;
+                return original;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[j] = key;
+        values[j] = value;
+        size++;
+        modCount++;
+        if (size > MAX_LOAD_FACTOR * keys.length) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the mapping for the given key
+     * @param key key to be removed
+     * @return value of the removed key, or null if the key does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return null;
+            }
+            V original = zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+            size--;
+            modCount++;
+            return original;
+        }
+        int j = indexOf(key);
+        int k;
+        while ((k = keys[j]) != 0) {
+            if (k == key) {
+                V original = (V) values[j];
+                shiftBack(j);
+                size--;
+                modCount++;
+                return original;
+            }
+            j = (j + 1) & mask;
+        }
+        return null;
+    }
+
+    // Backward-shift deletion: pull later entries of the cluster into the gap
+    // whenever the gap lies on their probe path, so no tombstone is left behind
+    private void shiftBack(int gap) {
+        int j = gap;
+        while (true) {
+            j = (j + 1) & mask;
+            int k = keys[j];
+            if (k == 0) {
+                break;
+            }
+            int home = indexOf(k);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = k;
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        createTable(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int k = oldKeys[i];
+            if (k != 0) {
+                int j = indexOf(k);
+                while (keys[j] != 0) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = k;
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Grows the table once, so that the given number of entries fit under the
+     * maximum load factor
+     * @param expectedSize expected number of entries
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative.");
+        }
+        int capacity = tableSizeFor(expectedSize);
+        if (capacity > keys.length) {
+            resize(capacity);
+            modCount++;
+        }
+    }
+
+    /**
+     * Return the value associated with the id of the given item
+     * @param item item whose id is the key
+     * @return value of the key
+     */
+    public V get(Identifiable item) {
+        return get(item.getId());
+    }
+
+    /**
+     * Adds the mapping from the id of the given item to the value
+     * @param item item whose id is the key
+     * @param value value
+     * @return null if key does not exist, if exist, return original value of key
+     */
+    public V put(Identifiable item, V value) {
+        return put(item.getId(), value);
+    }
+
+    /**
+     * Removes the mapping for the id of the given item
+     * @param item item whose id is the key
+     * @return value of the removed key, or null if the key does not exist
+     */
+    public V remove(Identifiable item) {
+        return remove(item.getId());
+    }
+
+    @Override
+    public V get(Integer key) {
+        return key == null ? null : get(key.intValue());
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V remove(Integer key) {
+        return key == null ? null : remove(key.intValue());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return map's capacity
+     * @return capacity
+     */
+    protected int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Return a live view of the entries. Its iterators walk the key array
+     * directly and fail fast on concurrent modification; each returned entry
+     * is a copy of the mapping
+     * @return live view of the entries
+     */
+    @Override
+    public Iterable<Entry<Integer, V>> entrySet() {
+        return new EntryIterable();
+    }
+
+    /**
+     * Performs the given action on every key and value without allocating an iterator
+     * @param action action to perform on each key and value
+     * @throws ConcurrentModificationException if the action structurally modifies the map
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(BiConsumer<? super Integer, ? super V> action) {
+        int expectedModCount = modCount;
+        if (hasZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        int[] k = keys;
+        Object[] v = values;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != 0) {
+                action.accept(k[i], (V) v[i]);
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Entry Iterable that returns the entry iterator
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterable implements Iterable<Entry<Integer, V>> {
+        @Override
+        public Iterator<Entry<Integer, V>> iterator() {
+            return new EntryIterator();
+        }
+    }
+
+    /**
+     * Iterator that walks the key array with a cursor, starting with the zero key.
+     * Backward-shift deletion can move an entry the cursor has already passed
+     * in front of it again, so removal through the iterator is not supported
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterator implements Iterator<Entry<Integer, V>> {
+        // -1 stands for the zero key, which is stored outside of the table
+        private int cursor = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (cursor < 0) {
+                if (hasZeroKey) {
+                    return true;
+                }
+                cursor = 0;
+            }
+            while (cursor < keys.length && keys[cursor] == 0) {
+                cursor++;
+            }
+            return cursor < keys.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Entry<Integer, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (cursor < 0) {
+                cursor = 0;
+                return new MapEntry<Integer, V>(0, zeroValue);
+            }
+            int j = cursor++;
+            return new MapEntry<Integer, V>(keys[j], (V) values[j]);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package dsa.map.hashing;
 
-import dsa.list.ArrayBasedList;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+import dsa.map.Map;
 
 /**
  * LinearProbingHashMap implementation
@@ -14,6 +17,17 @@ public class LinearProbingHashMap<K, V> extends AbstractHashMap<K, V> {
     // This time, our array is an array of TableEntry objects
     private TableEntry<K, V>[] table;
     private int size;
+    
+    // Table being drained by an incremental resize, null otherwise
+    private TableEntry<K, V>[] oldTable;
+    
+    // Number of buckets of the current table holding the deleted marker
+    private int tombstones;
+    
+    // Deleted marker left in place of a removed or migrated entry. It keeps the
+    // probe sequences intact without keeping the removed key and value reachable
+    @SuppressWarnings("rawtypes")
+    private static final TableEntry DELETED = new TableEntry<Object, Object>(null, null, true);
 
     /**
      * LinearProbingHashMap constructor
@@ -48,24 +62,72 @@ public class LinearProbingHashMap<K, V> extends AbstractHashMap<K, V> {
         size = 0;
     }
 
+    /**
+     * LinearProbingHashMap constructor with given capacity, hash strategy and maximum load factor
+     * @param capacity capacity
+     * @param strategy compression function and growth policy of the table
+     * @param maxLoadFactor the table grows once size / capacity exceeds this value
+     * @throws IllegalArgumentException if the load factor is not between 0 and 1
+     */
+    public LinearProbingHashMap(int capacity, HashStrategy strategy, double maxLoadFactor) {
+        super(capacity, strategy, checkOpenAddressing(maxLoadFactor));
+        size = 0;
+    }
+
+    /**
+     * LinearProbingHashMap constructor holding the entries of the given map,
+     * presized so that they are inserted without resizing
+     * @param map map whose entries are copied
+     */
+    public LinearProbingHashMap(Map<? extends K, ? extends V> map) {
+        this(capacityFor(map.size(), DEFAULT_MAX_LOAD_FACTOR), false);
+        putAll(map);
+    }
+
     @Override
-    public Iterable<Entry<K, V>> entrySet() {
-    	ArrayBasedList<Entry<K, V>> i = new ArrayBasedList<Entry<K, V>>();
-    	for(int j = 0; j < capacity(); j++) {
-    		if(!isAvailable(j)) i.addLast(table[j]);
-    	}
-    	return i;
+    protected Iterator<Entry<K, V>> entryIterator() {
+        return new EntryIterator();
+    }
+    
+    @Override
+    protected void tableForEach(BiConsumer<? super K, ? super V> action) {
+        TableEntry<K, V>[] t = table;
+        for(int j = 0; j < t.length; j++) {
+            if(!isAvailable(t, j)) action.accept(t[j].getKey(), t[j].getValue());
+        }
+    }
+    
+    /**
+     * Iterator that walks the table with a cursor, skipping empty and deleted buckets.
+     * Removal only leaves the deleted marker in the bucket, and the table does not
+     * shrink while an iterator removes, so it is safe to remove through the map
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterator extends HashIterator {
+        private int cursor = 0;
+        
+        @Override
+        protected Entry<K, V> advance() {
+            while(cursor < table.length) {
+                int j = cursor++;
+                if(!isAvailable(table, j)) return table[j];
+            }
+            return null;
+        }
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public void createTable(int capacity) {
         table = (TableEntry<K, V>[]) new TableEntry[capacity];
+        oldTable = null;
         size = 0;
+        tombstones = 0;
     }
     
     // Helper method to determine whether a bucket has an entry or not  
-    private boolean isAvailable(int index) {
+    private boolean isAvailable(TableEntry<K, V>[] table, int index) {
         return (table[index] == null || table[index].isDeleted());
     }
 
@@ -77,23 +139,23 @@ public class LinearProbingHashMap<K, V> extends AbstractHashMap<K, V> {
     // If the entry *is* in the map, returns the index of the bucket
     // If the entry is *not* in the map, returns -(a + 1) to indicate 
     //     that the entry should be added at index a
-    private int findBucket(int index, K key) {
+    private int findBucket(TableEntry<K, V>[] table, int index, K key) {
     	int avail = -1;
     	int j = index;
     	do {
-    		if(isAvailable(j)) {
+    		if(isAvailable(table, j)) {
     			if(avail == -1) avail = j;
     			if(table[j] == null) break;
     		} else if(table[j].getKey().equals(key))
     			return j;
-    		j = (j + 1) % capacity();
+    		j = (j + 1) % table.length;
     	} while(j != index);
     	return -(avail + 1);
     }
     
     @Override
     public V bucketGet(int hash, K key) {
-        int index = findBucket(hash, key);
+        int index = findBucket(table, hash, key);
         if(index < 0) return null;
         return table[index].getValue();
         
@@ -101,24 +163,81 @@ public class LinearProbingHashMap<K, V> extends AbstractHashMap<K, V> {
 
     @Override
     public V bucketPut(int hash, K key, V value) {
-        int index = findBucket(hash, key);
+        int index = findBucket(table, hash, key);
         if(index >= 0)
         	return table[index].setValue(value);
-        table[-(index + 1)] = new TableEntry<>(key, value);
+        index = -(index + 1);
+        if(table[index] != null) tombstones--;
+        table[index] = new TableEntry<>(key, value);
         size++;
         return null;
     }   
 
+    @SuppressWarnings("unchecked")
     @Override
     public V bucketRemove(int hash, K key) {
-        int index = findBucket(hash, key);
+        int index = findBucket(table, hash, key);
         if(index < 0) return null;
         V answer = table[index].getValue();
-        table[index].setDeleted(true);
-//        table[index] = null;
+        table[index] = DELETED;
+        tombstones++;
+        size--;
+        return answer;
+    }
+    
+    @Override
+    protected boolean supportsIncrementalResize() {
+        return true;
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void beginIncrementalResize(int capacity) {
+        oldTable = table;
+        table = (TableEntry<K, V>[]) new TableEntry[capacity];
+        tombstones = 0;
+    }
+    
+    @Override
+    protected int oldCapacity() {
+        return oldTable.length;
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void migrateBucket(int index) {
+        if(isAvailable(oldTable, index)) return;
+        TableEntry<K, V> entry = oldTable[index];
+        // The old table only shrinks from here on, so a deleted marker keeps
+        // the probe sequences of the entries not yet migrated intact
+        oldTable[index] = DELETED;
+        int slot = -(findBucket(table, compress(entry.getKey()), entry.getKey()) + 1);
+        if(table[slot] != null) tombstones--;
+        table[slot] = entry;
+    }
+    
+    @Override
+    protected V oldBucketGet(int hash, K key) {
+        int index = findBucket(oldTable, hash, key);
+        if(index < 0) return null;
+        return oldTable[index].getValue();
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V oldBucketRemove(int hash, K key) {
+        int index = findBucket(oldTable, hash, key);
+        if(index < 0) return null;
+        V answer = oldTable[index].getValue();
+        oldTable[index] = DELETED;
         size--;
         return answer;
     }
+    
+    @Override
+    protected void endIncrementalResize() {
+        oldTable = null;
+    }
 
     @Override
     public int size() {
@@ -129,6 +248,19 @@ public class LinearProbingHashMap<K, V> extends AbstractHashMap<K, V> {
     protected int capacity() {
         return table.length;
     }
+    
+    @Override
+    protected void sampleBucket(int bucket, HashMapStats.Collector collector) {
+        if(!isAvailable(table, bucket)) {
+            collector.addEntry(probeLength(bucket, compress(table[bucket].getKey())));
+        }
+    }
+    
+    @Override
+    protected int tombstones() {
+        return tombstones;
+    }
+
     /**
      * Table Entry of LinearProbingHashMap implementation
      * @author Viet Dinh
@@ -138,19 +270,19 @@ public class LinearProbingHashMap<K, V> extends AbstractHashMap<K, V> {
      */
     private static class TableEntry<K, V> extends MapEntry<K, V> {
 
-        private boolean isDeleted;
+        private final boolean isDeleted;
 
         public TableEntry(K key, V value) {
+            this(key, value, false);
+        }
+
+        public TableEntry(K key, V value, boolean deleted) {
             super(key, value);
-            setDeleted(false);
+            isDeleted = deleted;
         }
 
         public boolean isDeleted() {
             return isDeleted;
         }
-
-        public void setDeleted(boolean deleted) {
-            isDeleted = deleted;
-        }
     }
 }
@@ -0,0 +1,65 @@
+package dsa.map.hashing;
+
+import java.util.Random;
+
+/**
+ * Multiply-Add-and-Divide compression, the default strategy of AbstractHashMap.
+ * This implementation uses a variation of the MAD method
+ * where h(k) = ( (alpha * f(k) + beta) % prime) % capacity,
+ * and tables grow from capacity N to 2N + 1
+ * @author Viet Dinh
+ *
+ */
+public class MADHashStrategy implements HashStrategy {
+
+    /** default number for prime */
+    public static final int DEFAULT_PRIME = 109345121;
+
+    // Alpha and Beta values for MAD compression
+    private long alpha;
+    private long beta;
+
+    // The prime number to use for compression strategy
+    private int prime;
+
+    /**
+     * MADHashStrategy constructor with random alpha and beta
+     */
+    public MADHashStrategy() {
+        this(false);
+    }
+
+    // You can use the isTesting flag (set to true) to control
+    // the testing environment and avoid random numbers when testing
+    /**
+     * MADHashStrategy constructor
+     * @param isTesting if true, use alpha=1, beta=1, and prime=7
+     */
+    public MADHashStrategy(boolean isTesting) {
+        if(isTesting) {
+            alpha = 1;
+            beta = 1;
+            prime = 7;
+        } else {
+            Random rand = new Random();
+            alpha = rand.nextInt(DEFAULT_PRIME - 1) + 1;
+            beta = rand.nextInt(DEFAULT_PRIME);
+            prime = DEFAULT_PRIME;
+        }
+    }
+
+    @Override
+    public int index(int hashCode, int capacity) {
+        return (int)((Math.abs(hashCode * alpha + beta) % prime) % capacity);
+    }
+
+    @Override
+    public int initialCapacity(int capacity) {
+        return Math.max(1, capacity);
+    }
+
+    @Override
+    public int nextCapacity(int capacity) {
+        return 2 * capacity + 1;
+    }
+}
@@ -0,0 +1,414 @@
+package dsa.map.hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+import dsa.map.AbstractMap;
+
+/**
+ * Open addressing hash map that keeps its keys and values outside of the
+ * heap, in a direct ByteBuffer. Keys and values are encoded by fixed-width
+ * codecs into slots of the form [tag][key][value], where the tag is the
+ * mixed hash code of the key with its top bit set, and 0 marks an empty slot.
+ * The heap only holds the map object and the buffer, so a table of millions
+ * of entries adds nothing for the garbage collector to trace.
+ *
+ * Keys are compared by their encoding after a tag match, so a lookup does
+ * not decode any key. Deleted slots are repaired with backward-shift
+ * deletion, and the table doubles at a load factor of 0.75.
+ *
+ * Entries returned by the iterators are decoded copies. Null keys and
+ * values are not allowed. Once closed, the map releases its buffer and
+ * every operation throws IllegalStateException.
+ * @author Viet Dinh
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class OffHeapHashMap<K, V> extends AbstractMap<K, V> implements AutoCloseable {
+
+    /** An initial capacity for the hash table, always a power of two */
+    protected static final int DEFAULT_CAPACITY = 16;
+
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private static final int TAG_BYTES = Integer.BYTES;
+
+    private FixedWidthCodec<K> keyCodec;
+    private FixedWidthCodec<V> valueCodec;
+    private int slotSize;
+
+    private ByteBuffer buffer;
+    private int capacity;
+    private int mask;
+    private int size;
+
+    // Number of insertions, removals and resizes, checked by the iterators to fail fast
+    private int modCount;
+
+    // Encoding of the key being looked up, compared against the stored keys
+    private ByteBuffer probe;
+
+    /**
+     * OffHeapHashMap constructor
+     * @param keyCodec codec of the keys
+     * @param valueCodec codec of the values
+     */
+    public OffHeapHashMap(FixedWidthCodec<K> keyCodec, FixedWidthCodec<V> valueCodec) {
+        this(keyCodec, valueCodec, 0);
+    }
+
+    /**
+     * OffHeapHashMap constructor that can hold the given number of entries without resizing
+     * @param keyCodec codec of the keys
+     * @param valueCodec codec of the values
+     * @param expectedSize expected number of entries
+     */
+    public OffHeapHashMap(FixedWidthCodec<K> keyCodec, FixedWidthCodec<V> valueCodec, int expectedSize) {
+        if (keyCodec == null || valueCodec == null) {
+            throw new IllegalArgumentException("Codecs cannot be null.");
+        }
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative.");
+        }
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        // Round the slot up to 4 bytes so that the tags stay aligned
+        slotSize = (TAG_BYTES + keyCodec.width() + valueCodec.width() + 3) & ~3;
+        probe = ByteBuffer.allocate(keyCodec.width()).order(ByteOrder.nativeOrder());
+        int n = DEFAULT_CAPACITY;
+        while (n * MAX_LOAD_FACTOR < expectedSize) {
+            n <<= 1;
+        }
+        createTable(n);
+        size = 0;
+    }
+
+    private void createTable(int newCapacity) {
+        if ((long) newCapacity * slotSize > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Table of " + newCapacity + " slots does not fit in one buffer.");
+        }
+        // A fresh direct buffer is zeroed, so every tag starts out empty
+        buffer = ByteBuffer.allocateDirect(newCapacity * slotSize).order(ByteOrder.nativeOrder());
+        capacity = newCapacity;
+        mask = newCapacity - 1;
+    }
+
+    private static int tag(Object key) {
+        return PowerOfTwoHashStrategy.mix(key.hashCode()) | Integer.MIN_VALUE;
+    }
+
+    private int tagAt(int slot) {
+        return buffer.getInt(slot * slotSize);
+    }
+
+    private void checkOpen() {
+        if (buffer == null) {
+            throw new IllegalStateException("The map is closed.");
+        }
+    }
+
+    // Encodes the key into the probe buffer
+    private void encodeProbe(K key) {
+        keyCodec.write(probe, 0, key);
+    }
+
+    // Compares the key stored in the slot with the probe, 8 bytes at a time
+    private boolean probeEquals(int slot) {
+        int offset = slot * slotSize + TAG_BYTES;
+        int width = probe.capacity();
+        int i = 0;
+        for (; i + Long.BYTES <= width; i += Long.BYTES) {
+            if (buffer.getLong(offset + i) != probe.getLong(i)) {
+                return false;
+            }
+        }
+        for (; i < width; i++) {
+            if (buffer.get(offset + i) != probe.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns the slot of the probed key if present, or -(a + 1) where a
+    // is the empty slot at which the search stopped
+    private int findSlot(int tag) {
+        int j = tag & mask;
+        while (true) {
+            int t = tagAt(j);
+            if (t == 0) {
+                return -(j + 1);
+            }
+            if (t == tag && probeEquals(j)) {
+                return j;
+            }
+            j = (j + 1) & mask;
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        checkOpen();
+        if (key == null) {
+            return null;
+        }
+        encodeProbe(key);
+        int slot = findSlot(tag(key));
+        return slot < 0 ? null : valueCodec.read(buffer, slot * slotSize + TAG_BYTES + keyCodec.width());
+    }
+
+    /**
+     * Return true if the map contains the given key
+     * @param key key
+     * @return true if the map contains the key, false otherwise
+     */
+    public boolean containsKey(K key) {
+        checkOpen();
+        if (key == null) {
+            return false;
+        }
+        encodeProbe(key);
+        return findSlot(tag(key)) >= 0;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        checkOpen();
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Keys and values cannot be null.");
+        }
+        encodeProbe(key);
+        int tag = tag(key);
+        int slot = findSlot(tag);
+        if (slot >= 0) {
+            int offset = slot * slotSize + TAG_BYTES + keyCodec.width();
+            V original = valueCodec.read(buffer, offset);
+            valueCodec.write(buffer, offset, value);
+            return original;
+        }
+        slot = -(slot + 1);
+        int offset = slot * slotSize;
+        buffer.putInt(offset, tag);
+        keyCodec.write(buffer, offset + TAG_BYTES, key);
+        valueCodec.write(buffer, offset + TAG_BYTES + keyCodec.width(), value);
+        size++;
+        modCount++;
+        if (size > MAX_LOAD_FACTOR * capacity) {
+            resize(capacity * 2);
+        }
+        return null;
+    }
+
+    @Override
+    public V remove(K key) {
+        checkOpen();
+        if (key == null) {
+            return null;
+        }
+        encodeProbe(key);
+        int slot = findSlot(tag(key));
+        if (slot < 0) {
+            return null;
+        }
+        V original = valueCodec.read(buffer, slot * slotSize + TAG_BYTES + keyCodec.width());
+        shiftBack(slot);
+        size--;
+        modCount++;
+        return original;
+    }
+
+    // Backward-shift deletion: pull later slots of the cluster into the gap
+    // whenever the gap lies on their probe path, so no tombstone is left behind
+    private void shiftBack(int gap) {
+        int j = gap;
+        while (true) {
+            j = (j + 1) & mask;
+            int t = tagAt(j);
+            if (t == 0) {
+                break;
+            }
+            int home = t & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                copySlot(buffer, j, buffer, gap);
+                gap = j;
+            }
+        }
+        buffer.putInt(gap * slotSize, 0);
+    }
+
+    private void copySlot(ByteBuffer from, int fromSlot, ByteBuffer to, int toSlot) {
+        int src = fromSlot * slotSize;
+        int dst = toSlot * slotSize;
+        int i = 0;
+        for (; i + Long.BYTES <= slotSize; i += Long.BYTES) {
+            to.putLong(dst + i, from.getLong(src + i));
+        }
+        // Slots are a multiple of 4 bytes
+        if (i < slotSize) {
+            to.putInt(dst + i, from.getInt(src + i));
+        }
+    }
+
+    // Moves the raw slots into a larger buffer; the tags give each slot's home
+    // in the new table, so nothing is decoded
+    private void resize(int newCapacity) {
+        ByteBuffer old = buffer;
+        int oldCapacity = capacity;
+        createTable(newCapacity);
+        for (int i = 0; i < oldCapacity; i++) {
+            int t = old.getInt(i * slotSize);
+            if (t != 0) {
+                int j = t & mask;
+                while (tagAt(j) != 0) {
+                    j = (j + 1) & mask;
+                }
+                copySlot(old, i, buffer, j);
+            }
+        }
+        modCount++;
+    }
+
+    /**
+     * Moves the slots into a buffer large enough for the given number of
+     * entries, so that they are inserted without another resize
+     * @param expectedSize expected number of entries
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        checkOpen();
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative.");
+        }
+        int n = capacity;
+        while (n * MAX_LOAD_FACTOR < expectedSize) {
+            n <<= 1;
+        }
+        if (n > capacity) {
+            resize(n);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return map's capacity
+     * @return capacity
+     */
+    protected int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Return the number of bytes of off-heap memory held by the map
+     * @return size of the buffer in bytes, 0 once closed
+     */
+    public long offHeapBytes() {
+        return buffer == null ? 0 : buffer.capacity();
+    }
+
+    /**
+     * Return true if the map has been closed
+     * @return true if the map has been closed
+     */
+    public boolean isClosed() {
+        return buffer == null;
+    }
+
+    /**
+     * Releases the buffer. The native memory is returned once the buffer
+     * object is collected; the map cannot be used afterwards
+     */
+    @Override
+    public void close() {
+        buffer = null;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Performs the given action on every key and value, decoding each entry
+     * @param action action to perform on each key and value
+     * @throws ConcurrentModificationException if the action structurally modifies the map
+     */
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        checkOpen();
+        int expectedModCount = modCount;
+        ByteBuffer b = buffer;
+        for (int i = 0; i < capacity; i++) {
+            int offset = i * slotSize;
+            if (b.getInt(offset) != 0) {
+                action.accept(keyCodec.read(b, offset + TAG_BYTES),
+                        valueCodec.read(b, offset + TAG_BYTES + keyCodec.width()));
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Return a live view of the entries. Its iterators walk the buffer
+     * directly and fail fast on concurrent modification
+     * @return live view of the entries
+     */
+    @Override
+    public Iterable<Entry<K, V>> entrySet() {
+        checkOpen();
+        return new EntryIterable();
+    }
+
+    /**
+     * Entry Iterable that returns the entry iterator
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterable implements Iterable<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+    }
+
+    /**
+     * Iterator that walks the slots with a cursor. Backward-shift deletion can
+     * move an entry the cursor has already passed in front of it again, so
+     * removal through the iterator is not supported
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private int cursor = 0;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            while (cursor < capacity && tagAt(cursor) == 0) {
+                cursor++;
+            }
+            return cursor < capacity;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int offset = cursor++ * slotSize;
+            return new MapEntry<K, V>(keyCodec.read(buffer, offset + TAG_BYTES),
+                    valueCodec.read(buffer, offset + TAG_BYTES + keyCodec.width()));
+        }
+    }
+}
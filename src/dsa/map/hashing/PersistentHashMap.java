@@ -0,0 +1,660 @@
+package dsa.map.hashing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+import dsa.map.AbstractMap;
+
+/**
+ * Disk-resident hash map using extendible hashing over memory-mapped files.
+ * Entries live in fixed-size bucket pages of a page file, encoded by
+ * fixed-width codecs as in OffHeapHashMap. A directory of 2^globalDepth page
+ * numbers, kept in a second file next to the first one with a ".dir" suffix,
+ * sends every hash to its page by the low globalDepth bits of the hash.
+ *
+ * When a page overflows, only that page is split: its entries are divided
+ * with a new page by one more bit of their hashes, and the directory doubles
+ * only when the page was already using every directory bit. Nothing else is
+ * rehashed, so the map grows a page at a time. Inside a page, entries are
+ * placed by linear probing from a home slot given by the high bits of the hash.
+ *
+ * Both files are mapped with FileChannel.map, so the operating system's page
+ * cache decides which pages stay in memory, and the map can be larger than
+ * RAM. Opening an existing file only reads its header and maps the files, so
+ * it takes no time that depends on the number of entries.
+ *
+ * Writes reach the disk when the operating system writes the mapped pages
+ * back, or at flush and close. There is no write-ahead log: a crash in the
+ * middle of a split can leave the files inconsistent. Pages are never merged
+ * back after removals. The map is not thread safe. Null keys and values are
+ * not allowed, and every operation on a closed map throws IllegalStateException.
+ * @author Viet Dinh
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class PersistentHashMap<K, V> extends AbstractMap<K, V> implements AutoCloseable {
+
+    /** Default size of a bucket page in bytes */
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+
+    // A directory of 2^28 ints is the largest that fits in one mapping
+    private static final int MAX_GLOBAL_DEPTH = 28;
+
+    // Bytes mapped at a time from the page file
+    private static final int SEGMENT_BYTES = 1 << 24;
+
+    private static final int MAGIC = 0x50484D31;
+    private static final int VERSION = 1;
+
+    // Header fields in page 0
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int PAGE_SIZE_OFFSET = 8;
+    private static final int KEY_WIDTH_OFFSET = 12;
+    private static final int VALUE_WIDTH_OFFSET = 16;
+    private static final int GLOBAL_DEPTH_OFFSET = 20;
+    private static final int PAGE_COUNT_OFFSET = 24;
+    private static final int SIZE_OFFSET = 28;
+
+    // Fields at the start of every bucket page
+    private static final int LOCAL_DEPTH_OFFSET = 0;
+    private static final int COUNT_OFFSET = 4;
+    private static final int PAGE_HEADER = 8;
+
+    private static final int TAG_BYTES = Integer.BYTES;
+
+    // Fixed byte order, so that the files can move between machines
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private FixedWidthCodec<K> keyCodec;
+    private FixedWidthCodec<V> valueCodec;
+    private int pageSize;
+    private int slotSize;
+    private int slotsPerPage;
+    private int maxCount;
+    private int pagesPerSegment;
+
+    private FileChannel pageChannel;
+    private FileChannel directoryChannel;
+    private MappedByteBuffer[] segments;
+    private MappedByteBuffer directory;
+    private ByteBuffer header;
+
+    // Copy of the header fields
+    private int globalDepth;
+    private int pageCount;
+    private int size;
+
+    // Number of insertions, removals and splits, checked by the iterators to fail fast
+    private int modCount;
+
+    // Encoding of the key being looked up, compared against the stored keys
+    private ByteBuffer probe;
+
+    // Slots of a page being split
+    private byte[] splitBuffer;
+
+    /**
+     * PersistentHashMap constructor that opens the map stored in the given
+     * file, or creates it with the default page size if the file is empty or missing.
+     * An existing file keeps the page size it was created with
+     * @param file page file; the directory is kept in the same path followed by ".dir"
+     * @param keyCodec codec of the keys
+     * @param valueCodec codec of the values
+     * @throws IOException if the files cannot be opened or mapped
+     * @throws IllegalArgumentException if the file was created with other codec widths
+     */
+    public PersistentHashMap(Path file, FixedWidthCodec<K> keyCodec, FixedWidthCodec<V> valueCodec)
+            throws IOException {
+        this(file, keyCodec, valueCodec, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * PersistentHashMap constructor that opens the map stored in the given
+     * file, or creates it with the given page size if the file is empty or missing.
+     * The page size only applies to a new file; an existing file keeps the page
+     * size stored in its header
+     * @param file page file; the directory is kept in the same path followed by ".dir"
+     * @param keyCodec codec of the keys
+     * @param valueCodec codec of the values
+     * @param pageSize size of a bucket page in bytes for a new file, a power of two
+     * @throws IOException if the files cannot be opened or mapped
+     * @throws IllegalArgumentException if the page size cannot hold a few entries, or
+     *         if the file was created with other codec widths
+     */
+    public PersistentHashMap(Path file, FixedWidthCodec<K> keyCodec, FixedWidthCodec<V> valueCodec, int pageSize)
+            throws IOException {
+        if (keyCodec == null || valueCodec == null) {
+            throw new IllegalArgumentException("Codecs cannot be null.");
+        }
+        if (pageSize < 256 || pageSize > SEGMENT_BYTES || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Page size must be a power of two between 256 and " + SEGMENT_BYTES + ".");
+        }
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        // Round the slot up to 4 bytes so that the tags stay aligned
+        slotSize = (TAG_BYTES + keyCodec.width() + valueCodec.width() + 3) & ~3;
+        probe = ByteBuffer.allocate(keyCodec.width()).order(ORDER);
+        Path directoryFile = file.resolveSibling(file.getFileName() + ".dir");
+        pageChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        directoryChannel = FileChannel.open(directoryFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (pageChannel.size() == 0) {
+                create(pageSize);
+            } else {
+                open();
+            }
+        } catch (IOException | RuntimeException e) {
+            pageChannel.close();
+            directoryChannel.close();
+            throw e;
+        }
+    }
+
+    // Writes the header and a single empty bucket page that every hash maps to
+    private void create(int pageSize) throws IOException {
+        setPageSize(pageSize);
+        segments = new MappedByteBuffer[0];
+        mapSegment(0);
+        header = segments[0];
+        header.putInt(MAGIC_OFFSET, MAGIC);
+        header.putInt(VERSION_OFFSET, VERSION);
+        header.putInt(PAGE_SIZE_OFFSET, pageSize);
+        header.putInt(KEY_WIDTH_OFFSET, keyCodec.width());
+        header.putInt(VALUE_WIDTH_OFFSET, valueCodec.width());
+        pageCount = 1;
+        setGlobalDepth(0);
+        mapDirectory(1);
+        directory.putInt(0, allocatePage(0));
+        setSize(0);
+    }
+
+    // Reads the header and maps the existing pages and directory
+    private void open() throws IOException {
+        ByteBuffer fields = ByteBuffer.allocate(SIZE_OFFSET + Integer.BYTES).order(ORDER);
+        pageChannel.read(fields, 0);
+        if (fields.getInt(MAGIC_OFFSET) != MAGIC || fields.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IllegalArgumentException("The file does not hold a PersistentHashMap.");
+        }
+        if (fields.getInt(KEY_WIDTH_OFFSET) != keyCodec.width() || fields.getInt(VALUE_WIDTH_OFFSET) != valueCodec.width()) {
+            throw new IllegalArgumentException("The file was written with codecs of other widths.");
+        }
+        setPageSize(fields.getInt(PAGE_SIZE_OFFSET));
+        globalDepth = fields.getInt(GLOBAL_DEPTH_OFFSET);
+        pageCount = fields.getInt(PAGE_COUNT_OFFSET);
+        size = fields.getInt(SIZE_OFFSET);
+        int segmentCount = (pageCount + pagesPerSegment - 1) / pagesPerSegment;
+        segments = new MappedByteBuffer[0];
+        for (int s = 0; s < segmentCount; s++) {
+            mapSegment(s);
+        }
+        header = segments[0];
+        mapDirectory(1 << globalDepth);
+    }
+
+    private void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+        slotsPerPage = (pageSize - PAGE_HEADER) / slotSize;
+        if (slotsPerPage < 4) {
+            throw new IllegalArgumentException("A page of " + pageSize + " bytes holds too few entries.");
+        }
+        // Split at a load of 3/4, which keeps the probes inside a page short
+        maxCount = slotsPerPage * 3 / 4;
+        pagesPerSegment = SEGMENT_BYTES / pageSize;
+        splitBuffer = new byte[slotsPerPage * slotSize];
+    }
+
+    private void mapSegment(int s) throws IOException {
+        MappedByteBuffer segment = pageChannel.map(FileChannel.MapMode.READ_WRITE, (long) s * SEGMENT_BYTES, SEGMENT_BYTES);
+        segment.order(ORDER);
+        segments = Arrays.copyOf(segments, s + 1);
+        segments[s] = segment;
+    }
+
+    private void mapDirectory(int entries) throws IOException {
+        directory = directoryChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) entries * Integer.BYTES);
+        directory.order(ORDER);
+    }
+
+    // Appends a zeroed page with the given local depth; mapping past the end
+    // of the file extends it with zeros
+    private int allocatePage(int localDepth) {
+        int page = pageCount;
+        if (page / pagesPerSegment >= segments.length) {
+            try {
+                mapSegment(segments.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        pageCount++;
+        header.putInt(PAGE_COUNT_OFFSET, pageCount);
+        segment(page).putInt(base(page) + LOCAL_DEPTH_OFFSET, localDepth);
+        return page;
+    }
+
+    private void setGlobalDepth(int depth) {
+        globalDepth = depth;
+        header.putInt(GLOBAL_DEPTH_OFFSET, depth);
+    }
+
+    private void setSize(int size) {
+        this.size = size;
+        header.putInt(SIZE_OFFSET, size);
+    }
+
+    private ByteBuffer segment(int page) {
+        return segments[page / pagesPerSegment];
+    }
+
+    private int base(int page) {
+        return (page % pagesPerSegment) * pageSize;
+    }
+
+    private int slotOffset(int page, int slot) {
+        return base(page) + PAGE_HEADER + slot * slotSize;
+    }
+
+    private static int tag(Object key) {
+        return PowerOfTwoHashStrategy.mix(key.hashCode()) | Integer.MIN_VALUE;
+    }
+
+    // The directory uses the low bits of the tag, so the home slot in the
+    // page comes from the high bits, scaled to the number of slots
+    private int home(int tag) {
+        return (int) (((tag & 0x7fffffffL) * slotsPerPage) >>> 31);
+    }
+
+    private int pageOf(int tag) {
+        return directory.getInt((tag & ((1 << globalDepth) - 1)) * Integer.BYTES);
+    }
+
+    private void checkOpen() {
+        if (segments == null) {
+            throw new IllegalStateException("The map is closed.");
+        }
+    }
+
+    // Compares the key of the slot at the given offset with the probe
+    private boolean probeEquals(ByteBuffer buffer, int offset) {
+        int width = probe.capacity();
+        int i = 0;
+        for (; i + Long.BYTES <= width; i += Long.BYTES) {
+            if (buffer.getLong(offset + i) != probe.getLong(i)) {
+                return false;
+            }
+        }
+        for (; i < width; i++) {
+            if (buffer.get(offset + i) != probe.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns the slot of the probed key in the page if present, or -(a + 1)
+    // where a is the empty slot at which the search stopped
+    private int findSlot(int page, int tag) {
+        ByteBuffer buffer = segment(page);
+        int j = home(tag);
+        while (true) {
+            int offset = slotOffset(page, j);
+            int t = buffer.getInt(offset);
+            if (t == 0) {
+                return -(j + 1);
+            }
+            if (t == tag && probeEquals(buffer, offset + TAG_BYTES)) {
+                return j;
+            }
+            j = j + 1 == slotsPerPage ? 0 : j + 1;
+        }
+    }
+
+    private int count(int page) {
+        return segment(page).getInt(base(page) + COUNT_OFFSET);
+    }
+
+    private void setCount(int page, int count) {
+        segment(page).putInt(base(page) + COUNT_OFFSET, count);
+    }
+
+    private int localDepth(int page) {
+        return segment(page).getInt(base(page) + LOCAL_DEPTH_OFFSET);
+    }
+
+    @Override
+    public V get(K key) {
+        checkOpen();
+        if (key == null) {
+            return null;
+        }
+        keyCodec.write(probe, 0, key);
+        int tag = tag(key);
+        int page = pageOf(tag);
+        int slot = findSlot(page, tag);
+        return slot < 0 ? null : valueCodec.read(segment(page), slotOffset(page, slot) + TAG_BYTES + keyCodec.width());
+    }
+
+    /**
+     * Return true if the map contains the given key
+     * @param key key
+     * @return true if the map contains the key, false otherwise
+     */
+    public boolean containsKey(K key) {
+        checkOpen();
+        if (key == null) {
+            return false;
+        }
+        keyCodec.write(probe, 0, key);
+        int tag = tag(key);
+        return findSlot(pageOf(tag), tag) >= 0;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        checkOpen();
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Keys and values cannot be null.");
+        }
+        keyCodec.write(probe, 0, key);
+        int tag = tag(key);
+        while (true) {
+            int page = pageOf(tag);
+            int slot = findSlot(page, tag);
+            ByteBuffer buffer = segment(page);
+            if (slot >= 0) {
+                int offset = slotOffset(page, slot) + TAG_BYTES + keyCodec.width();
+                V original = valueCodec.read(buffer, offset);
+                valueCodec.write(buffer, offset, value);
+                return original;
+            }
+            if (count(page) < maxCount) {
+                int offset = slotOffset(page, -(slot + 1));
+                buffer.putInt(offset, tag);
+                keyCodec.write(buffer, offset + TAG_BYTES, key);
+                valueCodec.write(buffer, offset + TAG_BYTES + keyCodec.width(), value);
+                setCount(page, count(page) + 1);
+                setSize(size + 1);
+                modCount++;
+                return null;
+            }
+            split(page, tag);
+        }
+    }
+
+    // Splits the full page that the given tag maps to by the next bit of the
+    // hashes, doubling the directory first if the page uses every directory bit
+    private void split(int page, int tag) {
+        int depth = localDepth(page);
+        if (depth >= MAX_GLOBAL_DEPTH) {
+            throw new IllegalStateException("Too many keys with colliding hashes to split a page.");
+        }
+        if (depth == globalDepth) {
+            doubleDirectory();
+        }
+        int sibling = allocatePage(depth + 1);
+        ByteBuffer buffer = segment(page);
+        int first = slotOffset(page, 0);
+        // Take the slots out of the page and clear it
+        buffer.get(first, splitBuffer, 0, splitBuffer.length);
+        for (int j = 0; j < slotsPerPage; j++) {
+            buffer.putInt(first + j * slotSize, 0);
+        }
+        buffer.putInt(base(page) + LOCAL_DEPTH_OFFSET, depth + 1);
+        setCount(page, 0);
+        ByteBuffer slots = ByteBuffer.wrap(splitBuffer).order(ORDER);
+        for (int j = 0; j < slotsPerPage; j++) {
+            int t = slots.getInt(j * slotSize);
+            if (t != 0) {
+                insertRaw(((t >>> depth) & 1) == 0 ? page : sibling, t, j * slotSize);
+            }
+        }
+        // Every directory entry that ends with the page's depth bits and has the
+        // new bit set now points to the sibling
+        int pattern = tag & ((1 << depth) - 1);
+        for (int i = pattern | (1 << depth); i < (1 << globalDepth); i += 1 << (depth + 1)) {
+            directory.putInt(i * Integer.BYTES, sibling);
+        }
+        modCount++;
+    }
+
+    // Copies a slot of the split buffer into the first empty slot of its probe sequence
+    private void insertRaw(int page, int tag, int from) {
+        ByteBuffer buffer = segment(page);
+        int j = home(tag);
+        while (buffer.getInt(slotOffset(page, j)) != 0) {
+            j = j + 1 == slotsPerPage ? 0 : j + 1;
+        }
+        buffer.put(slotOffset(page, j), splitBuffer, from, slotSize);
+        setCount(page, count(page) + 1);
+    }
+
+    private void doubleDirectory() {
+        if (globalDepth >= MAX_GLOBAL_DEPTH) {
+            throw new IllegalStateException("The directory cannot grow any further.");
+        }
+        int entries = 1 << globalDepth;
+        try {
+            mapDirectory(entries * 2);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // The upper half starts as a copy of the lower half
+        for (int i = 0; i < entries; i++) {
+            directory.putInt((entries + i) * Integer.BYTES, directory.getInt(i * Integer.BYTES));
+        }
+        setGlobalDepth(globalDepth + 1);
+    }
+
+    @Override
+    public V remove(K key) {
+        checkOpen();
+        if (key == null) {
+            return null;
+        }
+        keyCodec.write(probe, 0, key);
+        int tag = tag(key);
+        int page = pageOf(tag);
+        int slot = findSlot(page, tag);
+        if (slot < 0) {
+            return null;
+        }
+        V original = valueCodec.read(segment(page), slotOffset(page, slot) + TAG_BYTES + keyCodec.width());
+        shiftBack(page, slot);
+        setCount(page, count(page) - 1);
+        setSize(size - 1);
+        modCount++;
+        return original;
+    }
+
+    // Backward-shift deletion inside the page: pull later slots of the cluster
+    // into the gap whenever the gap lies on their probe path
+    private void shiftBack(int page, int gap) {
+        ByteBuffer buffer = segment(page);
+        int j = gap;
+        while (true) {
+            j = j + 1 == slotsPerPage ? 0 : j + 1;
+            int t = buffer.getInt(slotOffset(page, j));
+            if (t == 0) {
+                break;
+            }
+            int home = home(t);
+            int fromHome = j >= home ? j - home : j - home + slotsPerPage;
+            int fromGap = j >= gap ? j - gap : j - gap + slotsPerPage;
+            if (fromHome >= fromGap) {
+                copySlot(buffer, slotOffset(page, j), slotOffset(page, gap));
+                gap = j;
+            }
+        }
+        buffer.putInt(slotOffset(page, gap), 0);
+    }
+
+    private void copySlot(ByteBuffer buffer, int src, int dst) {
+        for (int i = 0; i < slotSize; i += Integer.BYTES) {
+            buffer.putInt(dst + i, buffer.getInt(src + i));
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the number of bits of the hash used by the directory
+     * @return global depth
+     */
+    public int getGlobalDepth() {
+        return globalDepth;
+    }
+
+    /**
+     * Return the number of pages of the page file, including the header page
+     * @return page count
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Return true if the map has been closed
+     * @return true if the map has been closed
+     */
+    public boolean isClosed() {
+        return segments == null;
+    }
+
+    /**
+     * Writes every modified page and the directory to the disk
+     */
+    public void flush() {
+        checkOpen();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        directory.force();
+    }
+
+    /**
+     * Flushes the map and closes the files. The mappings are released once
+     * they are collected; the map cannot be used afterwards
+     * @throws IOException if a file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (segments == null) {
+            return;
+        }
+        flush();
+        segments = null;
+        directory = null;
+        header = null;
+        size = 0;
+        modCount++;
+        pageChannel.close();
+        directoryChannel.close();
+    }
+
+    /**
+     * Performs the given action on every key and value, decoding each entry
+     * @param action action to perform on each key and value
+     * @throws ConcurrentModificationException if the action structurally modifies the map
+     */
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        checkOpen();
+        int expectedModCount = modCount;
+        for (int page = 1; page < pageCount; page++) {
+            ByteBuffer buffer = segment(page);
+            for (int j = 0; j < slotsPerPage; j++) {
+                int offset = slotOffset(page, j);
+                if (buffer.getInt(offset) != 0) {
+                    action.accept(keyCodec.read(buffer, offset + TAG_BYTES),
+                            valueCodec.read(buffer, offset + TAG_BYTES + keyCodec.width()));
+                }
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Return a live view of the entries. Its iterators walk the pages in file
+     * order and fail fast on concurrent modification
+     * @return live view of the entries
+     */
+    @Override
+    public Iterable<Entry<K, V>> entrySet() {
+        checkOpen();
+        return new EntryIterable();
+    }
+
+    /**
+     * Entry Iterable that returns the entry iterator
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterable implements Iterable<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+    }
+
+    /**
+     * Iterator that walks the slots of every page with a cursor. Backward-shift
+     * deletion can move an entry the cursor has already passed in front of it
+     * again, so removal through the iterator is not supported
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private int page = 1;
+        private int slot = 0;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            while (page < pageCount) {
+                if (slot == slotsPerPage) {
+                    page++;
+                    slot = 0;
+                } else if (segment(page).getInt(slotOffset(page, slot)) == 0) {
+                    slot++;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ByteBuffer buffer = segment(page);
+            int offset = slotOffset(page, slot++);
+            return new MapEntry<K, V>(keyCodec.read(buffer, offset + TAG_BYTES),
+                    valueCodec.read(buffer, offset + TAG_BYTES + keyCodec.width()));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package dsa.map.hashing;
+
+/**
+ * Power of two capacities with a bit mixer and mask-based indexing.
+ * The murmur3 finalizer spreads every bit of the hash code into the low
+ * bits, so masking is safe even for keys such as sequential ids or hash
+ * codes that only differ in their high bits. The bucket index then costs
+ * two multiplies and a mask instead of the two divisions of MAD compression.
+ * @author Viet Dinh
+ *
+ */
+public class PowerOfTwoHashStrategy implements HashStrategy {
+
+    // Largest power of two that fits an array index
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    @Override
+    public int index(int hashCode, int capacity) {
+        return mix(hashCode) & (capacity - 1);
+    }
+
+    /**
+     * Murmur3 32-bit finalizer
+     * @param h hash code
+     * @return mixed hash code
+     */
+    public static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    @Override
+    public int initialCapacity(int capacity) {
+        int c = 1;
+        while(c < capacity && c < MAX_CAPACITY) {
+            c <<= 1;
+        }
+        return c;
+    }
+
+    @Override
+    public int nextCapacity(int capacity) {
+        if(capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Hash table cannot grow past " + MAX_CAPACITY + " buckets.");
+        }
+        return capacity << 1;
+    }
+}
@@ -0,0 +1,311 @@
+package dsa.map.hashing;
+
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+import dsa.map.Map;
+
+/**
+ * Open addressing hash map using Robin Hood hashing.
+ * On insertion, an entry that is further from its home bucket than the
+ * entry occupying a slot takes that slot, and the displaced entry continues
+ * probing. This keeps the variance of the probe lengths small and lets an
+ * unsuccessful search stop as soon as it passes an entry closer to home.
+ * Removal uses backward-shift deletion, so no tombstones are left behind and
+ * long put/remove cycles do not degrade lookups.
+ * @author Viet Dinh
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class RobinHoodHashMap<K, V> extends AbstractHashMap<K, V> {
+
+    private RobinHoodEntry<K, V>[] table;
+    private int size;
+
+    // Table being drained by an incremental resize, null otherwise
+    private RobinHoodEntry<K, V>[] oldTable;
+
+    // Marker left in the old table in place of a migrated or removed entry.
+    // The old table is never inserted into, so lookups simply probe past it
+    @SuppressWarnings("rawtypes")
+    private static final RobinHoodEntry MOVED = new RobinHoodEntry<Object, Object>(null, null, -1);
+
+    /**
+     * RobinHoodHashMap constructor
+     */
+    public RobinHoodHashMap() {
+        this(AbstractHashMap.DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * RobinHoodHashMap constructor for testing
+     * @param isTesting for testing
+     */
+    public RobinHoodHashMap(boolean isTesting) {
+        this(AbstractHashMap.DEFAULT_CAPACITY, isTesting);
+    }
+
+    /**
+     * RobinHoodHashMap constructor with given capacity
+     * @param capacity capacity
+     */
+    public RobinHoodHashMap(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * RobinHoodHashMap constructor with given capacity and isTesting boolean value
+     * @param capacity capacity
+     * @param isTesting for testing
+     */
+    public RobinHoodHashMap(int capacity, boolean isTesting) {
+        super(capacity, isTesting);
+        size = 0;
+    }
+
+    /**
+     * RobinHoodHashMap constructor with given capacity, hash strategy and maximum load factor
+     * @param capacity capacity
+     * @param strategy compression function and growth policy of the table
+     * @param maxLoadFactor the table grows once size / capacity exceeds this value
+     * @throws IllegalArgumentException if the load factor is not between 0 and 1
+     */
+    public RobinHoodHashMap(int capacity, HashStrategy strategy, double maxLoadFactor) {
+        super(capacity, strategy, checkOpenAddressing(maxLoadFactor));
+        size = 0;
+    }
+
+    /**
+     * RobinHoodHashMap constructor holding the entries of the given map,
+     * presized so that they are inserted without resizing
+     * @param map map whose entries are copied
+     */
+    public RobinHoodHashMap(Map<? extends K, ? extends V> map) {
+        this(capacityFor(map.size(), DEFAULT_MAX_LOAD_FACTOR), false);
+        putAll(map);
+    }
+
+    @Override
+    protected Iterator<Entry<K, V>> entryIterator() {
+        return new EntryIterator();
+    }
+
+    @Override
+    protected void tableForEach(BiConsumer<? super K, ? super V> action) {
+        RobinHoodEntry<K, V>[] t = table;
+        for (int j = 0; j < t.length; j++) {
+            if (t[j] != null) {
+                action.accept(t[j].getKey(), t[j].getValue());
+            }
+        }
+    }
+
+    /**
+     * Iterator that walks the table with a cursor, skipping empty buckets.
+     * Backward-shift deletion can move an entry the cursor has already passed
+     * in front of it again, so removal through the iterator is not supported
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterator extends HashIterator {
+        private int cursor = 0;
+
+        @Override
+        protected Entry<K, V> advance() {
+            while (cursor < table.length) {
+                int j = cursor++;
+                if (table[j] != null) {
+                    return table[j];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        protected void removeLastReturned(Entry<K, V> entry) {
+            throw new UnsupportedOperationException("The remove operation is not supported.");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void createTable(int capacity) {
+        table = (RobinHoodEntry<K, V>[]) new RobinHoodEntry[capacity];
+        oldTable = null;
+        size = 0;
+    }
+
+    // Number of steps the entry stored at index is away from its home bucket
+    private int distance(RobinHoodEntry<K, V> entry, int index, int capacity) {
+        if (entry == MOVED) {
+            return Integer.MAX_VALUE;
+        }
+        int d = index - entry.getHome();
+        return d < 0 ? d + capacity : d;
+    }
+
+    // Helper method to find the bucket for an entry;
+    // If the entry *is* in the map, returns the index of the bucket
+    // If the entry is *not* in the map, returns -(a + 1) where a is the index
+    //     at which the search stopped, which is where the entry belongs
+    private int findBucket(RobinHoodEntry<K, V>[] table, int index, K key) {
+        int j = index;
+        int dist = 0;
+        while (table[j] != null && distance(table[j], j, table.length) >= dist) {
+            if (table[j] != MOVED && table[j].getKey().equals(key)) {
+                return j;
+            }
+            j = (j + 1) % table.length;
+            dist++;
+            if (j == index) {
+                break;
+            }
+        }
+        return -(j + 1);
+    }
+
+    @Override
+    protected V bucketGet(int hash, K key) {
+        int index = findBucket(table, hash, key);
+        if (index < 0) return null;
+        return table[index].getValue();
+    }
+
+    @Override
+    protected V bucketPut(int hash, K key, V value) {
+        int index = findBucket(table, hash, key);
+        if (index >= 0) {
+            return table[index].setValue(value);
+        }
+        insert(new RobinHoodEntry<K, V>(key, value, hash), -(index + 1));
+        size++;
+        return null;
+    }
+
+    // Insert at the stop position, pushing richer entries further along
+    private void insert(RobinHoodEntry<K, V> entry, int start) {
+        int j = start;
+        while (table[j] != null) {
+            RobinHoodEntry<K, V> resident = table[j];
+            if (distance(resident, j, capacity()) < distance(entry, j, capacity())) {
+                table[j] = entry;
+                entry = resident;
+            }
+            j = (j + 1) % capacity();
+        }
+        table[j] = entry;
+    }
+
+    @Override
+    protected V bucketRemove(int hash, K key) {
+        int index = findBucket(table, hash, key);
+        if (index < 0) return null;
+        V answer = table[index].getValue();
+        // Backward-shift deletion: move the following entries one slot closer
+        // to home until we reach an empty slot or an entry already at home
+        int j = index;
+        int next = (j + 1) % capacity();
+        while (table[next] != null && distance(table[next], next, capacity()) > 0) {
+            table[j] = table[next];
+            j = next;
+            next = (j + 1) % capacity();
+        }
+        table[j] = null;
+        size--;
+        return answer;
+    }
+
+    @Override
+    protected boolean supportsIncrementalResize() {
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void beginIncrementalResize(int capacity) {
+        oldTable = table;
+        table = (RobinHoodEntry<K, V>[]) new RobinHoodEntry[capacity];
+    }
+
+    @Override
+    protected int oldCapacity() {
+        return oldTable.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void migrateBucket(int index) {
+        RobinHoodEntry<K, V> entry = oldTable[index];
+        if (entry == null || entry == MOVED) return;
+        oldTable[index] = MOVED;
+        int hash = compress(entry.getKey());
+        entry.setHome(hash);
+        insert(entry, -(findBucket(table, hash, entry.getKey()) + 1));
+    }
+
+    @Override
+    protected V oldBucketGet(int hash, K key) {
+        int index = findBucket(oldTable, hash, key);
+        if (index < 0) return null;
+        return oldTable[index].getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V oldBucketRemove(int hash, K key) {
+        int index = findBucket(oldTable, hash, key);
+        if (index < 0) return null;
+        V answer = oldTable[index].getValue();
+        oldTable[index] = MOVED;
+        size--;
+        return answer;
+    }
+
+    @Override
+    protected void endIncrementalResize() {
+        oldTable = null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    protected int capacity() {
+        return table.length;
+    }
+
+    @Override
+    protected void sampleBucket(int bucket, HashMapStats.Collector collector) {
+        if (table[bucket] != null && table[bucket] != MOVED) {
+            collector.addEntry(probeLength(bucket, table[bucket].getHome()));
+        }
+    }
+
+    /**
+     * Table Entry of RobinHoodHashMap that remembers its home bucket
+     * @author Viet Dinh
+     *
+     * @param <K> key
+     * @param <V> value
+     */
+    private static class RobinHoodEntry<K, V> extends MapEntry<K, V> {
+
+        private int home;
+
+        public RobinHoodEntry(K key, V value, int home) {
+            super(key, value);
+            this.home = home;
+        }
+
+        public int getHome() {
+            return home;
+        }
+
+        public void setHome(int home) {
+            this.home = home;
+        }
+    }
+}
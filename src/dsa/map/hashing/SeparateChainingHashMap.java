@@ -1,23 +1,45 @@
 package dsa.map.hashing;
 
-import dsa.list.List;
-import dsa.list.SinglyLinkedList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+import dsa.map.AbstractMap;
+import dsa.map.AbstractSortedMap;
 import dsa.map.Map;
-import dsa.map.SkipListMap;
+import dsa.map.search_tree.RedBlackTreeMap;
 
 /**
- * SeparateChainingHashMap implementation
+ * SeparateChainingHashMap implementation.
+ * A bucket starts as a small array holding its keys and values inline. Once
+ * a bucket holds more than TREEIFY_THRESHOLD entries and its keys are
+ * Comparable to each other, it is replaced with a RedBlackTreeMap, so a
+ * bucket full of colliding keys still costs O(log n) per operation. Keys are
+ * ordered with compareTo but matched with equals, so keys whose ordering is
+ * inconsistent with equals, such as BigDecimal 1.0 and 1.00, stay distinct;
+ * a bucket holding two such keys is kept as an array. A tree bucket that
+ * shrinks to UNTREEIFY_THRESHOLD entries goes back to an array.
  * @author Viet Dinh
  *
  * @param <K> key
  * @param <V> value
  */
-public class SeparateChainingHashMap<K extends Comparable<K>, V> extends AbstractHashMap<K, V> {
+public class SeparateChainingHashMap<K, V> extends AbstractHashMap<K, V> {
+
+    /** Number of entries above which an array bucket becomes a tree */
+    protected static final int TREEIFY_THRESHOLD = 8;
+    
+    /** Number of entries at which a tree bucket goes back to an array */
+    protected static final int UNTREEIFY_THRESHOLD = 6;
 
     /** map's table   */
     private Map<K, V>[] table;
     private int size;
     
+    // Table being drained by an incremental resize, null otherwise
+    private Map<K, V>[] oldTable;
+    
     /**
      * SeparateChainingHashMap constructor
      */
@@ -51,24 +73,107 @@ public class SeparateChainingHashMap<K extends Comparable<K>, V> extends Abstrac
         size = 0;
     }
 
+    /**
+     * SeparateChainingHashMap constructor with given capacity, hash strategy and maximum load factor
+     * @param capacity capacity
+     * @param strategy compression function and growth policy of the table
+     * @param maxLoadFactor the table grows once size / capacity exceeds this value
+     * @throws IllegalArgumentException if the load factor is not positive
+     */
+    public SeparateChainingHashMap(int capacity, HashStrategy strategy, double maxLoadFactor) {
+        super(capacity, strategy, maxLoadFactor);
+        size = 0;
+    }
+
+    /**
+     * SeparateChainingHashMap constructor holding the entries of the given map,
+     * presized so that they are inserted without resizing
+     * @param map map whose entries are copied
+     */
+    public SeparateChainingHashMap(Map<? extends K, ? extends V> map) {
+        this(capacityFor(map.size(), DEFAULT_MAX_LOAD_FACTOR), false);
+        putAll(map);
+    }
+
     @Override
-    public Iterable<Entry<K, V>> entrySet() {
-        List<Entry<K, V>> list = new SinglyLinkedList<Entry<K, V>>();
-        for(int i = 0; i < table.length; i++) {
-            if(table[i] != null) {
-                for(Entry<K, V> entry : table[i].entrySet()) {
-                    list.addLast(entry);
+    protected Iterator<Entry<K, V>> entryIterator() {
+        return new EntryIterator();
+    }
+    
+    @Override
+    protected void tableForEach(BiConsumer<? super K, ? super V> action) {
+        Map<K, V>[] t = table;
+        for(int i = 0; i < t.length; i++) {
+            if(t[i] != null) {
+                t[i].forEach(action);
+            }
+        }
+    }
+    
+    /**
+     * Iterator that walks the buckets with a cursor and each bucket with its own iterator
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterator extends HashIterator {
+        private int cursor = 0;
+        private Iterator<Entry<K, V>> bucketIterator;
+        
+        private Map<K, V> bucket;
+        
+        // Entries read from the iterator of the current bucket, counting the
+        // one hasNext() may have read ahead
+        private int consumed;
+        
+        // hasNext() may move on to the next bucket before remove() is called,
+        // so remember which bucket returned the last entry
+        private Map<K, V> lastBucket;
+        private int lastIndex;
+        
+        @Override
+        protected Entry<K, V> advance() {
+            while(bucketIterator == null || !bucketIterator.hasNext()) {
+                if(cursor >= table.length) return null;
+                bucket = table[cursor++];
+                bucketIterator = bucket == null ? null : bucket.entrySet().iterator();
+                consumed = 0;
+            }
+            consumed++;
+            return bucketIterator.next();
+        }
+        
+        @Override
+        public Entry<K, V> next() {
+            Entry<K, V> entry = super.next();
+            lastBucket = bucket;
+            lastIndex = cursor - 1;
+            return entry;
+        }
+        
+        @Override
+        protected void removeLastReturned(Entry<K, V> entry) {
+            // Empties and untreeifies the bucket like any other removal
+            bucketRemove(lastIndex, entry.getKey());
+            modCount++;
+            if(lastBucket == bucket) {
+                // The bucket may be gone, rebuilt as an array, or read ahead past
+                // the removed entry, so walk it again to the same place. Buckets
+                // keep their order through removals and hold few entries
+                consumed--;
+                bucket = table[lastIndex];
+                bucketIterator = bucket == null ? null : bucket.entrySet().iterator();
+                for(int i = 0; i < consumed; i++) {
+                    bucketIterator.next();
                 }
             }
         }
-        return list;
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public void createTable(int capacity) {
-        // Example -- change this to whatever map you'd like        
-        table = new SkipListMap[capacity];
+        table = new Map[capacity];
+        oldTable = null;
         size = 0;
     }
 
@@ -88,23 +193,117 @@ public class SeparateChainingHashMap<K extends Comparable<K>, V> extends Abstrac
     public V bucketPut(int hash, K key, V value) {
         Map<K, V> bucket = table[hash]; 
         if(bucket == null) {
-        	table[hash] = new SkipListMap<K, V>();
+        	table[hash] = new ArrayBucket<K, V>();
         	bucket = table[hash];
         }
+        if(bucket instanceof TreeBucket && !((TreeBucket<K, V>) bucket).accepts(key)) {
+            // The tree cannot hold a key of another class, or one that compares
+            // equal to a stored key without being equal to it
+            table[hash] = untreeify(bucket);
+            bucket = table[hash];
+        }
         int oldSize = bucket.size();
         V answer = bucket.put(key, value);
         size += bucket.size() - oldSize;
+        if(bucket.size() > TREEIFY_THRESHOLD && bucket instanceof ArrayBucket) {
+            table[hash] = treeify((ArrayBucket<K, V>) bucket);
+        }
         return answer;
     }
 
     @Override
     public V bucketRemove(int hash, K key) {
         Map<K, V> bucket = table[hash];
-       if(bucket == null) return null;
-       int oldSize = bucket.size();
-       V answer = bucket.remove(key);
-       size -= oldSize - bucket.size();
-       return answer;
+        if(bucket == null) return null;
+        int oldSize = bucket.size();
+        V answer = bucket.remove(key);
+        size -= oldSize - bucket.size();
+        if(bucket.isEmpty()) {
+            table[hash] = null;
+        } else if(bucket.size() <= UNTREEIFY_THRESHOLD && bucket instanceof TreeBucket) {
+            table[hash] = untreeify(bucket);
+        }
+        return answer;
+    }
+    
+    // Return a tree holding the entries of the bucket, or the bucket itself
+    // if its keys cannot be ordered
+    private Map<K, V> treeify(ArrayBucket<K, V> bucket) {
+        Class<?> keyClass = bucket.keyAt(0).getClass();
+        if(!(bucket.keyAt(0) instanceof Comparable)) {
+            return bucket;
+        }
+        // RedBlackTreeMap compares keys with compareTo, so they must share a class
+        for(int i = 1; i < bucket.size(); i++) {
+            if(bucket.keyAt(i).getClass() != keyClass) {
+                return bucket;
+            }
+        }
+        TreeBucket<K, V> tree = new TreeBucket<K, V>(keyClass);
+        for(int i = 0; i < bucket.size(); i++) {
+            // Distinct keys that compareTo calls equal cannot share the tree
+            if(!tree.accepts(bucket.keyAt(i))) {
+                return bucket;
+            }
+            tree.put(bucket.keyAt(i), bucket.valueAt(i));
+        }
+        return tree;
+    }
+    
+    private Map<K, V> untreeify(Map<K, V> tree) {
+        ArrayBucket<K, V> bucket = new ArrayBucket<K, V>();
+        tree.forEach(bucket::put);
+        return bucket;
+    }
+    
+    @Override
+    protected boolean supportsIncrementalResize() {
+        return true;
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void beginIncrementalResize(int capacity) {
+        oldTable = table;
+        table = new Map[capacity];
+    }
+    
+    @Override
+    protected int oldCapacity() {
+        return oldTable.length;
+    }
+    
+    @Override
+    protected void migrateBucket(int index) {
+        Map<K, V> bucket = oldTable[index];
+        if(bucket == null) return;
+        oldTable[index] = null;
+        size -= bucket.size();
+        for(Entry<K, V> entry : bucket.entrySet()) {
+            bucketPut(compress(entry.getKey()), entry.getKey(), entry.getValue());
+        }
+    }
+    
+    @Override
+    protected V oldBucketGet(int hash, K key) {
+        Map<K, V> bucket = oldTable[hash];
+        if(bucket == null) return null;
+        return bucket.get(key);
+    }
+    
+    @Override
+    protected V oldBucketRemove(int hash, K key) {
+        Map<K, V> bucket = oldTable[hash];
+        if(bucket == null) return null;
+        int oldSize = bucket.size();
+        V answer = bucket.remove(key);
+        size -= oldSize - bucket.size();
+        return answer;
+    }
+    
+    @Override
+    protected void endIncrementalResize() {
+        oldTable = null;
     }
     
     @Override
@@ -116,4 +315,236 @@ public class SeparateChainingHashMap<K extends Comparable<K>, V> extends Abstrac
     protected int capacity() {
         return table.length;
     }
+    
+    @Override
+    protected void sampleBucket(int bucket, HashMapStats.Collector collector) {
+        collector.addBucket(table[bucket] == null ? 0 : table[bucket].size());
+    }
+    
+    /**
+     * Bucket that keeps up to a few entries with their keys and values
+     * interleaved in one array, so a bucket costs two objects however many
+     * entries it holds. Lookups scan the array, which is short by design.
+     * The entries returned by its iterators are copies
+     * @author Viet Dinh
+     *
+     * @param <K> key
+     * @param <V> value
+     */
+    private static class ArrayBucket<K, V> extends AbstractMap<K, V> {
+        
+        // key i is at 2i and its value at 2i + 1
+        private Object[] slots;
+        private int size;
+        
+        public ArrayBucket() {
+            slots = new Object[4];
+            size = 0;
+        }
+        
+        @SuppressWarnings("unchecked")
+        public K keyAt(int i) {
+            return (K) slots[2 * i];
+        }
+        
+        @SuppressWarnings("unchecked")
+        public V valueAt(int i) {
+            return (V) slots[2 * i + 1];
+        }
+        
+        private int indexOf(K key) {
+            for(int i = 0; i < size; i++) {
+                if(key.equals(slots[2 * i])) return i;
+            }
+            return -1;
+        }
+        
+        @Override
+        public V get(K key) {
+            int i = indexOf(key);
+            return i < 0 ? null : valueAt(i);
+        }
+        
+        @Override
+        public V put(K key, V value) {
+            int i = indexOf(key);
+            if(i >= 0) {
+                V original = valueAt(i);
+                slots[2 * i + 1] = value;
+                return original;
+            }
+            if(2 * size == slots.length) {
+                Object[] grown = new Object[slots.length * 2];
+                System.arraycopy(slots, 0, grown, 0, slots.length);
+                slots = grown;
+            }
+            slots[2 * size] = key;
+            slots[2 * size + 1] = value;
+            size++;
+            return null;
+        }
+        
+        @Override
+        public V remove(K key) {
+            int i = indexOf(key);
+            if(i < 0) return null;
+            V original = valueAt(i);
+            removeAt(i);
+            return original;
+        }
+        
+        // Keeps the order of the remaining entries, so iterators do not skip any
+        private void removeAt(int i) {
+            System.arraycopy(slots, 2 * i + 2, slots, 2 * i, 2 * (size - i - 1));
+            size--;
+            slots[2 * size] = null;
+            slots[2 * size + 1] = null;
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+        
+        @Override
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            for(int i = 0; i < size; i++) {
+                action.accept(keyAt(i), valueAt(i));
+            }
+        }
+        
+        @Override
+        public Iterable<Entry<K, V>> entrySet() {
+            return new BucketIterable();
+        }
+        
+        /**
+         * Bucket Iterable that returns the bucket iterator
+         * @author Viet Dinh
+         *
+         */
+        private class BucketIterable implements Iterable<Entry<K, V>> {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new BucketIterator();
+            }
+        }
+        
+        /**
+         * Iterator over the slots of the bucket
+         * @author Viet Dinh
+         *
+         */
+        private class BucketIterator implements Iterator<Entry<K, V>> {
+            private int cursor = 0;
+            private int expectedSize = size;
+            private boolean removeOK = false;
+            
+            @Override
+            public boolean hasNext() {
+                if(size != expectedSize) throw new ConcurrentModificationException();
+                return cursor < size;
+            }
+            
+            @Override
+            public Entry<K, V> next() {
+                if(!hasNext()) throw new NoSuchElementException();
+                removeOK = true;
+                int i = cursor++;
+                return new MapEntry<K, V>(keyAt(i), valueAt(i));
+            }
+            
+            @Override
+            public void remove() {
+                if(!removeOK) throw new IllegalStateException();
+                removeAt(--cursor);
+                expectedSize = size;
+                removeOK = false;
+            }
+        }
+    }
+    
+    /**
+     * Bucket backed by a RedBlackTreeMap for keys of one Comparable class.
+     * The tree orders keys with compareTo and a match is confirmed with
+     * equals, so a key that compares equal to a stored key without being
+     * equal to it, or a key of any other class, is reported as absent
+     * @author Viet Dinh
+     *
+     * @param <K> key
+     * @param <V> value
+     */
+    private static class TreeBucket<K, V> extends AbstractMap<K, V> {
+        
+        private Map<K, V> tree;
+        private Class<?> keyClass;
+        
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        public TreeBucket(Class<?> keyClass) {
+            this.tree = new RedBlackTreeMap();
+            this.keyClass = keyClass;
+        }
+        
+        /**
+         * Return true if the tree can hold the key: it has the class of the
+         * tree's keys, and no stored key compares equal to it unless it is
+         * also equal to it
+         * @param key key
+         * @return true if the key can be put in the tree
+         */
+        public boolean accepts(K key) {
+            if(key.getClass() != keyClass) {
+                return false;
+            }
+            Entry<K, V> entry = equivalent(key);
+            return entry == null || entry.getKey().equals(key);
+        }
+        
+        // Return the entry whose key compares equal to the given key, or null
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private Entry<K, V> equivalent(K key) {
+            Entry<K, V> entry = ((AbstractSortedMap) tree).ceilingEntry((Comparable) key);
+            if(entry == null || ((Comparable) entry.getKey()).compareTo(key) != 0) {
+                return null;
+            }
+            return entry;
+        }
+        
+        @Override
+        public V get(K key) {
+            if(key.getClass() != keyClass) {
+                return null;
+            }
+            Entry<K, V> entry = equivalent(key);
+            return entry != null && entry.getKey().equals(key) ? entry.getValue() : null;
+        }
+        
+        @Override
+        public V put(K key, V value) {
+            if(!accepts(key)) {
+                throw new IllegalArgumentException("Key of another class than the tree's keys.");
+            }
+            return tree.put(key, value);
+        }
+        
+        @Override
+        public V remove(K key) {
+            return accepts(key) ? tree.remove(key) : null;
+        }
+        
+        @Override
+        public int size() {
+            return tree.size();
+        }
+        
+        @Override
+        public Iterable<Entry<K, V>> entrySet() {
+            return tree.entrySet();
+        }
+        
+        @Override
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            tree.forEach(action);
+        }
+    }
 }
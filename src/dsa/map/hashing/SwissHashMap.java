@@ -0,0 +1,389 @@
+package dsa.map.hashing;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+import dsa.map.AbstractMap;
+
+/**
+ * Open addressing hash map in the style of Abseil's flat_hash_map.
+ * Every slot has a control byte: EMPTY, DELETED, or the low 7 bits of the
+ * key's hash (h2) when the slot is full. Eight control bytes form a group
+ * and are packed into one long, so a probe compares h2 against a whole group
+ * with a few arithmetic operations (SWAR, SIMD within a register). Only the
+ * slots whose control byte matches are compared with equals, and a miss is
+ * usually decided by the control bytes alone, without touching the keys.
+ *
+ * Groups are probed in triangular order starting at the group chosen by the
+ * rest of the hash (h1), which visits every group of a power of two table.
+ * A search stops at the first group with an EMPTY byte. Keys and values live
+ * in two flat arrays next to the control words, with no entry objects.
+ * The table grows at a load of 7/8, counting tombstones; when they make up
+ * most of the load, it is rebuilt at the same size instead.
+ * Null keys are not allowed.
+ * @author Viet Dinh
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class SwissHashMap<K, V> extends AbstractMap<K, V> {
+
+    /** An initial capacity for the hash table, always a power of two of at least one group */
+    protected static final int DEFAULT_CAPACITY = 16;
+
+    /** Number of slots, and control bytes, in a group */
+    protected static final int GROUP_WIDTH = 8;
+
+    private static final int EMPTY = 0x80;
+    private static final int DELETED = 0xFE;
+
+    private static final long LSBS = 0x0101010101010101L;
+    private static final long MSBS = 0x8080808080808080L;
+    private static final long ALL_EMPTY = EMPTY * LSBS;
+
+    private long[] ctrl;
+    private Object[] keys;
+    private Object[] values;
+    private int groupMask;
+    private int size;
+
+    // Full and deleted slots; the table is rebuilt once this passes 7/8 of the capacity
+    private int used;
+
+    // Number of insertions, removals and resizes, checked by the iterators to fail fast
+    private int modCount;
+
+    /**
+     * SwissHashMap constructor
+     */
+    public SwissHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * SwissHashMap constructor with given capacity
+     * @param capacity capacity, rounded up to a power of two of at least GROUP_WIDTH
+     */
+    public SwissHashMap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        }
+        int n = GROUP_WIDTH;
+        while (n < capacity && n < (1 << 30)) {
+            n <<= 1;
+        }
+        createTable(n);
+        size = 0;
+    }
+
+    private void createTable(int capacity) {
+        ctrl = new long[capacity / GROUP_WIDTH];
+        Arrays.fill(ctrl, ALL_EMPTY);
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        groupMask = ctrl.length - 1;
+        used = 0;
+    }
+
+    private static int hash(Object key) {
+        return PowerOfTwoHashStrategy.mix(key.hashCode());
+    }
+
+    // Bytes of the group equal to h2: the high bit of each matching byte is set.
+    // Borrows can flag a byte above a real match; equals sorts those out
+    private static long match(long group, int h2) {
+        long x = group ^ (LSBS * h2);
+        return (x - LSBS) & ~x & MSBS;
+    }
+
+    // Bytes of the group that are EMPTY: high bit set and bit 1 clear
+    private static long matchEmpty(long group) {
+        return group & ~(group << 6) & MSBS;
+    }
+
+    // Bytes of the group that are EMPTY or DELETED: high bit set and bit 0 clear
+    private static long matchEmptyOrDeleted(long group) {
+        return group & ~(group << 7) & MSBS;
+    }
+
+    // Slot of the lowest byte flagged in a match mask
+    private static int lowestSlot(int group, long mask) {
+        return group * GROUP_WIDTH + (Long.numberOfTrailingZeros(mask) >>> 3);
+    }
+
+    private void setCtrl(int slot, int value) {
+        int shift = (slot & (GROUP_WIDTH - 1)) << 3;
+        int g = slot / GROUP_WIDTH;
+        ctrl[g] = (ctrl[g] & ~(0xFFL << shift)) | ((long) value << shift);
+    }
+
+    private int ctrlAt(int slot) {
+        return (int) (ctrl[slot / GROUP_WIDTH] >>> ((slot & (GROUP_WIDTH - 1)) << 3)) & 0xFF;
+    }
+
+    private static boolean isFull(int control) {
+        return (control & EMPTY) == 0;
+    }
+
+    // Slot of the key, or -1
+    private int findSlot(Object key, int h) {
+        int h2 = h & 0x7F;
+        int g = (h >>> 7) & groupMask;
+        for (int step = 1;; step++) {
+            long group = ctrl[g];
+            for (long m = match(group, h2); m != 0; m &= m - 1) {
+                int slot = lowestSlot(g, m);
+                if (key.equals(keys[slot])) {
+                    return slot;
+                }
+            }
+            if (matchEmpty(group) != 0) {
+                return -1;
+            }
+            g = (g + step) & groupMask;
+        }
+    }
+
+    // First EMPTY or DELETED slot on the probe sequence of the hash
+    private int findInsertSlot(int h) {
+        int g = (h >>> 7) & groupMask;
+        for (int step = 1;; step++) {
+            long m = matchEmptyOrDeleted(ctrl[g]);
+            if (m != 0) {
+                return lowestSlot(g, m);
+            }
+            g = (g + step) & groupMask;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        int slot = findSlot(key, hash(key));
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Return true if the map contains the given key
+     * @param key key
+     * @return true if the map contains the key, false otherwise
+     */
+    public boolean containsKey(K key) {
+        return key != null && findSlot(key, hash(key)) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V put(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+        int h = hash(key);
+        int slot = findSlot(key, h);
+        if (slot >= 0) {
+            V original = (V) values[slot];
+            values[slot] = value;
+            return original;
+        }
+        slot = findInsertSlot(h);
+        if (ctrlAt(slot) == EMPTY) {
+            // Reusing a tombstone does not add to the load
+            if ((used + 1) * 8L > keys.length * 7L) {
+                // Mostly tombstones: rebuild in place, otherwise grow
+                rehash(size * 2L >= keys.length ? keys.length * 2 : keys.length);
+                slot = findInsertSlot(h);
+            }
+            used++;
+        }
+        setCtrl(slot, h & 0x7F);
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            return null;
+        }
+        int slot = findSlot(key, hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        V original = (V) values[slot];
+        removeSlot(slot);
+        return original;
+    }
+
+    // A group that still has an EMPTY byte never made a search go on to the
+    // next group, so the slot can become EMPTY again. Otherwise some key may
+    // have been placed further along its probe sequence, and the slot must
+    // stay a tombstone to keep that key reachable
+    private void removeSlot(int slot) {
+        if (matchEmpty(ctrl[slot / GROUP_WIDTH]) != 0) {
+            setCtrl(slot, EMPTY);
+            used--;
+        } else {
+            setCtrl(slot, DELETED);
+        }
+        keys[slot] = null;
+        values[slot] = null;
+        size--;
+        modCount++;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldCtrl = ctrl;
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        createTable(newCapacity);
+        for (int g = 0; g < oldCtrl.length; g++) {
+            // Full bytes have their high bit clear
+            for (long m = ~oldCtrl[g] & MSBS; m != 0; m &= m - 1) {
+                int i = lowestSlot(g, m);
+                int h = hash(oldKeys[i]);
+                int slot = findInsertSlot(h);
+                setCtrl(slot, h & 0x7F);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used++;
+            }
+        }
+        modCount++;
+    }
+
+    /**
+     * Grows the table once, so that the given number of entries fit under
+     * the 7/8 load without another rehash
+     * @param expectedSize expected number of entries
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    @Override
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative.");
+        }
+        long needed = expectedSize * 8L / 7 + 1;
+        int n = keys.length;
+        while (n < needed && n < (1 << 30)) {
+            n <<= 1;
+        }
+        if (n > keys.length) {
+            rehash(n);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return map's capacity
+     * @return capacity
+     */
+    protected int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Performs the given action on every key and value without allocating an iterator
+     * @param action action to perform on each key and value
+     * @throws ConcurrentModificationException if the action structurally modifies the map
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        int expectedModCount = modCount;
+        long[] c = ctrl;
+        Object[] k = keys;
+        Object[] v = values;
+        for (int g = 0; g < c.length; g++) {
+            for (long m = ~c[g] & MSBS; m != 0; m &= m - 1) {
+                int i = lowestSlot(g, m);
+                action.accept((K) k[i], (V) v[i]);
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Return a live view of the entries. Its iterators walk the control bytes
+     * directly and fail fast on concurrent modification; each returned entry
+     * is a copy of the mapping
+     * @return live view of the entries
+     */
+    @Override
+    public Iterable<Entry<K, V>> entrySet() {
+        return new EntryIterable();
+    }
+
+    /**
+     * Entry Iterable that returns the entry iterator
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterable implements Iterable<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+    }
+
+    /**
+     * Iterator over the full slots. Removal only rewrites a control byte and
+     * never moves an entry, so it is supported
+     * @author Viet Dinh
+     *
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private int cursor = 0;
+        private int lastReturned = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            while (cursor < keys.length && !isFull(ctrlAt(cursor))) {
+                cursor++;
+            }
+            return cursor < keys.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = cursor++;
+            return new MapEntry<K, V>((K) keys[lastReturned], (V) values[lastReturned]);
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeSlot(lastReturned);
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+    }
+}
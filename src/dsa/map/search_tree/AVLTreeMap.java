@@ -77,6 +77,12 @@ public class AVLTreeMap<K extends Comparable<K>, V> extends BinarySearchTreeMap<
 		rebalance(node);
 	}
 
+	@Override
+	protected void actionOnBuild(Position<Entry<K, V>> node, int depth, int maxDepth) {
+		// Both subtrees are done, and a balanced build needs no restructuring
+		recomputeHeight(node);
+	}
+
 	@Override
 	protected void actionOnDelete(Position<Entry<K, V>> node) {
 		if(!isRoot(node))
@@ -1,10 +1,11 @@
 package dsa.map.search_tree;
 
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import dsa.Position;
-import dsa.list.ArrayBasedList;
-import dsa.list.List;
 import dsa.map.AbstractSortedMap;
 import dsa.map.Map.Entry;
 import dsa.tree.BinaryTree;
@@ -23,6 +24,9 @@ public class BinarySearchTreeMap<K extends Comparable<K>, V> extends AbstractSor
     // The BalanceableBinaryTree class is an inner class below
     private BalanceableBinaryTree<K, V> tree;
 
+    // Number of insertions, removals and bulk loads, checked by the range iterators to fail fast
+    private int modCount;
+
     /**
      * BinarySearchTreeMap constructor with null comparator
      */
@@ -97,6 +101,7 @@ public class BinarySearchTreeMap<K extends Comparable<K>, V> extends AbstractSor
         // If the last node visited is a dummy/sentinel node        
         if (isLeaf(p)) {
             expandLeaf(p, newEntry);
+            modCount++;
             // actionOnInsert is a "hook" for our AVL, Splay, and Red-Black Trees to use            
             actionOnInsert(p);
             return null;
@@ -137,12 +142,23 @@ public class BinarySearchTreeMap<K extends Comparable<K>, V> extends AbstractSor
             // Remove the NODE (this is your binary tree remove method)
             // which will "promote" the sib node to replace p           
             remove(p);
+            modCount++;
             // actionOnDelete is a "hook" for our AVL, Splay, and Red-Black Trees to use            
             actionOnDelete(sib);
             return original;
         }
     }
 
+    /**
+     * Removes every entry, leaving the tree with only its sentinel root.
+     * Iterators created before fail fast
+     */
+    public void clear() {
+        tree = new BalanceableBinaryTree<K, V>();
+        tree.addRoot(null);
+        modCount++;
+    }
+
     // Returns the inorder successor (the minimum from the right subtree)
     private Position<Entry<K, V>> treeMin(Position<Entry<K, V>> node) {
         Position<Entry<K, V>> current = node;
@@ -152,15 +168,179 @@ public class BinarySearchTreeMap<K extends Comparable<K>, V> extends AbstractSor
         return parent(current);
     }
 
+    /**
+     * Adds entries given in key order. When there are at least as many of them
+     * as entries in the tree, the tree is rebuilt perfectly balanced from the
+     * merged entries in linear time, instead of inserting them one at a time
+     * @param sorted entries sorted by key, without duplicate keys
+     */
     @Override
-    public Iterable<Entry<K, V>> entrySet() {
-    	
-        List<Entry<K, V>> set = new ArrayBasedList<Entry<K, V>>(size());
-        for (Position<Entry<K, V>> n : tree.inOrder()) {
-        	if(n.getElement() == null) continue;
-            set.addLast(n.getElement());
+    protected void bulkPut(Entry<K, V>[] sorted) {
+        if(sorted.length < size()) {
+            super.bulkPut(sorted);
+            return;
         }
-        return set;
+        Entry<K, V>[] all = isEmpty() ? sorted : mergeEntries(entrySet(), size(), sorted);
+        clear();
+        if(all.length > 0) {
+            // Depth of the deepest entry when every subtree is split at its middle
+            int maxDepth = 31 - Integer.numberOfLeadingZeros(all.length);
+            build(root(), all, 0, all.length - 1, 0, maxDepth);
+        }
+    }
+    
+    // Puts the middle entry at the sentinel p and builds both halves below it
+    private void build(Position<Entry<K, V>> p, Entry<K, V>[] entries, int low, int high, int depth, int maxDepth) {
+        if(low > high) {
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        expandLeaf(p, entries[mid]);
+        build(left(p), entries, low, mid - 1, depth + 1, maxDepth);
+        build(right(p), entries, mid + 1, high, depth + 1, maxDepth);
+        // actionOnBuild is a "hook" for our AVL and Red-Black Trees to use
+        actionOnBuild(p, depth, maxDepth);
+    }
+
+    @Override
+    public Entry<K, V> firstEntry() {
+        return entryOf(first(root()));
+    }
+
+    @Override
+    public Entry<K, V> lastEntry() {
+        return entryOf(last(root()));
+    }
+
+    @Override
+    public Entry<K, V> floorEntry(K key) {
+        return entryOf(floor(key, true));
+    }
+
+    @Override
+    public Entry<K, V> lowerEntry(K key) {
+        return entryOf(floor(key, false));
+    }
+
+    @Override
+    public Entry<K, V> ceilingEntry(K key) {
+        return entryOf(ceiling(key, true));
+    }
+
+    @Override
+    public Entry<K, V> higherEntry(K key) {
+        return entryOf(ceiling(key, false));
+    }
+
+    /**
+     * Return a live view of the entries with keys between from and to, in key
+     * order. Its iterators find the first entry in O(log n) and then walk from
+     * each node to its in-order successor, so visiting k entries costs
+     * O(log n + k) without copying the tree
+     * @param from lowest key, or null for no lower bound
+     * @param fromInclusive true if an entry with key from is in the range
+     * @param to highest key, or null for no upper bound
+     * @param toInclusive true if an entry with key to is in the range
+     * @return live view of the entries in the range
+     */
+    @Override
+    public Iterable<Entry<K, V>> entryRange(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        return new RangeIterable(from, fromInclusive, to, toInclusive, false);
+    }
+
+    @Override
+    public Iterable<Entry<K, V>> descendingEntryRange(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        return new RangeIterable(from, fromInclusive, to, toInclusive, true);
+    }
+
+    private Entry<K, V> entryOf(Position<Entry<K, V>> p) {
+        return p == null ? null : p.getElement();
+    }
+
+    // Leftmost entry node of the subtree rooted at p, or null if it is empty
+    private Position<Entry<K, V>> first(Position<Entry<K, V>> p) {
+        if (isLeaf(p)) {
+            return null;
+        }
+        while (isInternal(left(p))) {
+            p = left(p);
+        }
+        return p;
+    }
+
+    // Rightmost entry node of the subtree rooted at p, or null if it is empty
+    private Position<Entry<K, V>> last(Position<Entry<K, V>> p) {
+        if (isLeaf(p)) {
+            return null;
+        }
+        while (isInternal(right(p))) {
+            p = right(p);
+        }
+        return p;
+    }
+
+    // Node of the largest key below the given key, or equal to it if inclusive
+    private Position<Entry<K, V>> floor(K key, boolean inclusive) {
+        Position<Entry<K, V>> p = root();
+        Position<Entry<K, V>> best = null;
+        while (isInternal(p)) {
+            int comp = compare(key, p.getElement().getKey());
+            if (comp == 0 && inclusive) {
+                return p;
+            }
+            if (comp > 0) {
+                best = p;
+                p = right(p);
+            } else {
+                p = left(p);
+            }
+        }
+        return best;
+    }
+
+    // Node of the smallest key above the given key, or equal to it if inclusive
+    private Position<Entry<K, V>> ceiling(K key, boolean inclusive) {
+        Position<Entry<K, V>> p = root();
+        Position<Entry<K, V>> best = null;
+        while (isInternal(p)) {
+            int comp = compare(key, p.getElement().getKey());
+            if (comp == 0 && inclusive) {
+                return p;
+            }
+            if (comp < 0) {
+                best = p;
+                p = left(p);
+            } else {
+                p = right(p);
+            }
+        }
+        return best;
+    }
+
+    // In-order successor of an entry node, or null after the last one
+    private Position<Entry<K, V>> successor(Position<Entry<K, V>> p) {
+        if (isInternal(right(p))) {
+            return first(right(p));
+        }
+        Position<Entry<K, V>> parent = parent(p);
+        while (parent != null && p == right(parent)) {
+            p = parent;
+            parent = parent(p);
+        }
+        return parent;
+    }
+
+    // In-order predecessor of an entry node, or null before the first one
+    private Position<Entry<K, V>> predecessor(Position<Entry<K, V>> p) {
+        if (isInternal(left(p))) {
+            return last(left(p));
+        }
+        Position<Entry<K, V>> parent = parent(p);
+        while (parent != null && p == left(parent)) {
+            p = parent;
+            parent = parent(p);
+        }
+        return parent;
     }
 
     @Override
@@ -168,6 +348,110 @@ public class BinarySearchTreeMap<K extends Comparable<K>, V> extends AbstractSor
         return tree.toString();
     }
 
+    /**
+     * Range Iterable that returns the range iterator
+     * @author Viet Dinh
+     *
+     */
+    private class RangeIterable implements Iterable<Entry<K, V>> {
+        private K from;
+        private boolean fromInclusive;
+        private K to;
+        private boolean toInclusive;
+        private boolean descending;
+
+        public RangeIterable(K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending) {
+            this.from = from;
+            this.fromInclusive = fromInclusive;
+            this.to = to;
+            this.toInclusive = toInclusive;
+            this.descending = descending;
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return descending ? new RangeIterator(to, toInclusive, from, fromInclusive, true)
+                    : new RangeIterator(from, fromInclusive, to, toInclusive, false);
+        }
+    }
+
+    /**
+     * Iterator over the entries of a key range that walks the tree lazily,
+     * from each node to its in-order successor, or predecessor when descending
+     * @author Viet Dinh
+     *
+     */
+    private class RangeIterator implements Iterator<Entry<K, V>> {
+        private Position<Entry<K, V>> next;
+        // Key where the iteration ends, or null to run to the end of the tree
+        private K end;
+        private boolean endInclusive;
+        private boolean descending;
+        private Entry<K, V> lastReturned;
+        private int expectedModCount = modCount;
+
+        public RangeIterator(K start, boolean startInclusive, K end, boolean endInclusive, boolean descending) {
+            this.end = end;
+            this.endInclusive = endInclusive;
+            this.descending = descending;
+            if (start == null) {
+                next = descending ? last(root()) : first(root());
+            } else {
+                next = descending ? floor(start, startInclusive) : ceiling(start, startInclusive);
+            }
+            checkBound();
+        }
+
+        // Ends the iteration once the next key is past the end of the range
+        private void checkBound() {
+            if (next != null && end != null) {
+                int comp = compare(next.getElement().getKey(), end);
+                if (descending) {
+                    comp = -comp;
+                }
+                if (comp > 0 || (comp == 0 && !endInclusive)) {
+                    next = null;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next.getElement();
+            next = descending ? predecessor(next) : successor(next);
+            checkBound();
+            return lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            BinarySearchTreeMap.this.remove(lastReturned.getKey());
+            expectedModCount = modCount;
+            // Removal moves entries between nodes and rebalances the tree,
+            // so the next node is looked up again
+            next = descending ? floor(lastReturned.getKey(), false) : ceiling(lastReturned.getKey(), false);
+            checkBound();
+            lastReturned = null;
+        }
+    }
+
     // This is a "hook" method that will be overridden in 
     // your AVL, Splay, and Red-Black tree implementations
     /**
@@ -198,6 +482,20 @@ public class BinarySearchTreeMap<K extends Comparable<K>, V> extends AbstractSor
         // Do nothing for BST
     }
 
+    // This is a "hook" method that will be overridden in 
+    // your AVL and Red-Black tree implementations
+    /**
+     * Performed the action on a node of a bulk built tree, after both of its
+     * subtrees are built. Every subtree is split at its middle, so all the
+     * sentinel leaves are at depth maxDepth or maxDepth + 1
+     * @param node node to do the action on
+     * @param depth depth of the node
+     * @param maxDepth depth of the deepest node of the tree
+     */
+    protected void actionOnBuild(Position<Entry<K, V>> node, int depth, int maxDepth) {
+        // Do nothing for BST
+    }
+
     /**
      * This class balance the binary tree
      * @author Viet Dinh
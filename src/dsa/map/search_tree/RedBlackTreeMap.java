@@ -104,6 +104,15 @@ public class RedBlackTreeMap<K extends Comparable<K>, V> extends BinarySearchTre
 		}
 	}
 
+	@Override
+	protected void actionOnBuild(Position<Entry<K, V>> p, int depth, int maxDepth) {
+		// Coloring only the deepest level red gives every path to a sentinel
+		// maxDepth black nodes; the root stays black
+		if (depth == maxDepth && depth > 0) {
+			makeRed(p);
+		}
+	}
+
 	@Override
 	protected void actionOnDelete(Position<Entry<K, V>> p) {
 		if (isRed(p)) {
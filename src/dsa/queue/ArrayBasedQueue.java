@@ -57,9 +57,10 @@ public class ArrayBasedQueue<E> extends AbstractQueue<E> {
 	public E dequeue() {
 		if(isEmpty()) throw new NoSuchElementException();
 		E temp = data[0];
-		for(int i = 0; i < size; i++ ) {
+		for(int i = 0; i < size - 1; i++ ) {
 			data[i] = data[i + 1];
 		}
+		data[size - 1] = null;
 		size--;
 		return temp;
 	}
@@ -1,5 +1,8 @@
 package dsa.set;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * AbtractSet implementation
  * @author Viet Dinh
@@ -8,32 +11,180 @@ package dsa.set;
  */
 public abstract class AbstractSet<E> implements Set<E> {
 
+    /** Number of elements to probe from which the probes are split across cores */
+    protected static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Number of elements probed by one fork/join task
+    private static final int PARALLEL_GRAIN = 1 << 12;
+
     @Override
     public void addAll(Set<E> other) {
+        if(other == this) {
+            return;
+        }
         for(E element : other) {
             add(element);
         }
     }
 
+    /**
+     * Keeps only the elements also contained in the other set. The smaller of
+     * the two sets is iterated and the larger one probed: when the other set is
+     * the smaller one, this set is rebuilt from the common elements
+     * @param other set to do intersection
+     */
+    @SuppressWarnings("unchecked")
     @Override
     public void retainAll(Set<E> other) {
-        for(E element : this) {
-            if(!other.contains(element)) {
-                remove(element);
+        if(other == this) {
+            return;
+        }
+        boolean iterateOther = other.size() < size();
+        Object[] elements = toArray(iterateOther ? other : this);
+        boolean[] found = probe(elements, iterateOther ? this : other);
+        if(iterateOther) {
+            int count = 0;
+            for(int i = 0; i < elements.length; i++) {
+                if(found[i]) {
+                    elements[count++] = elements[i];
+                }
+            }
+            rebuild(elements, count);
+        } else {
+            for(int i = 0; i < elements.length; i++) {
+                if(!found[i]) {
+                    remove((E) elements[i]);
+                }
             }
         }
     }
 
+    /**
+     * Removes the elements contained in the other set. The smaller of the two
+     * sets is iterated and the larger one probed
+     * @param other set to do subtraction
+     */
+    @SuppressWarnings("unchecked")
     @Override
     public void removeAll(Set<E> other) {
-        for(E element : other) {
-            remove(element);
+        if(other == this) {
+            rebuild(new Object[0], 0);
+            return;
+        }
+        if(other.size() < size()) {
+            for(E element : other) {
+                remove(element);
+            }
+            return;
+        }
+        Object[] elements = toArray(this);
+        boolean[] found = probe(elements, other);
+        for(int i = 0; i < elements.length; i++) {
+            if(found[i]) {
+                remove((E) elements[i]);
+            }
         }
     }
-    
+
     @Override
     public boolean isEmpty() {
         return size() == 0;
     }
-    
+
+    /**
+     * Replaces the elements of the set with the first count given elements,
+     * which are distinct. The default removes every element and adds the given
+     * ones; sets backed by a map build a new map instead
+     * @param elements elements to keep
+     * @param count number of elements to keep
+     */
+    @SuppressWarnings("unchecked")
+    protected void rebuild(Object[] elements, int count) {
+        for(Object element : toArray(this)) {
+            remove((E) element);
+        }
+        for(int i = 0; i < count; i++) {
+            add((E) elements[i]);
+        }
+    }
+
+    /**
+     * Return true if contains may be called from several threads at once as
+     * long as the set is not modified, which lets the set operations probe
+     * the set in parallel
+     * @return true if contains is safe for concurrent readers, false by default
+     */
+    protected boolean supportsConcurrentContains() {
+        return false;
+    }
+
+    /**
+     * Return the elements of the given set in iteration order
+     * @param set set to copy
+     * @return array of the elements
+     */
+    protected static Object[] toArray(Set<?> set) {
+        Object[] elements = new Object[set.size()];
+        int i = 0;
+        for(Object element : set) {
+            elements[i++] = element;
+        }
+        return elements;
+    }
+
+    // Flags the elements contained in the probed set. Large batches are split
+    // across the common fork/join pool when the probed set allows concurrent reads
+    private static <E> boolean[] probe(Object[] elements, Set<E> probed) {
+        boolean[] found = new boolean[elements.length];
+        if(elements.length >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1
+                && probed instanceof AbstractSet && ((AbstractSet<E>) probed).supportsConcurrentContains()) {
+            ForkJoinPool.commonPool().invoke(new ProbeTask<E>(elements, probed, found, 0, elements.length));
+        } else {
+            probeRange(elements, probed, found, 0, elements.length);
+        }
+        return found;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> void probeRange(Object[] elements, Set<E> probed, boolean[] found, int lo, int hi) {
+        for(int i = lo; i < hi; i++) {
+            found[i] = probed.contains((E) elements[i]);
+        }
+    }
+
+    /**
+     * Fork/join task that probes a range of elements, splitting it in halves
+     * down to PARALLEL_GRAIN elements. Each task writes its own range of flags
+     * @author Viet Dinh
+     *
+     * @param <E> generic element
+     */
+    private static class ProbeTask<E> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private Object[] elements;
+        private Set<E> probed;
+        private boolean[] found;
+        private int lo;
+        private int hi;
+
+        public ProbeTask(Object[] elements, Set<E> probed, boolean[] found, int lo, int hi) {
+            this.elements = elements;
+            this.probed = probed;
+            this.found = found;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if(hi - lo <= PARALLEL_GRAIN) {
+                probeRange(elements, probed, found, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ProbeTask<E>(elements, probed, found, lo, mid),
+                    new ProbeTask<E>(elements, probed, found, mid, hi));
+        }
+    }
 }
@@ -18,6 +18,7 @@ import dsa.map.hashing.LinearProbingHashMap;
 public class HashSet<E> extends AbstractSet<E> {
 
     private Map<E, E> map;
+    private boolean isTesting;
     
     // This constructor will use our "production version" of our hash map
     // meaning random values for alpha and beta will be used
@@ -37,6 +38,7 @@ public class HashSet<E> extends AbstractSet<E> {
      * @param isTesting for testing
      */
     public HashSet(boolean isTesting) {
+        this.isTesting = isTesting;
         map = new LinearProbingHashMap<E, E>(isTesting);
     }   
     
@@ -66,4 +68,34 @@ public class HashSet<E> extends AbstractSet<E> {
     public int size() {
         return map.size();
     }
+
+    /**
+     * Adds every element of the other set, growing the table once up front
+     * instead of doubling it repeatedly as the elements arrive
+     * @param other set to do union
+     */
+    @Override
+    public void addAll(Set<E> other) {
+        if(other == this) {
+            return;
+        }
+        map.ensureCapacity(size() + other.size());
+        super.addAll(other);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void rebuild(Object[] elements, int count) {
+        map = new LinearProbingHashMap<E, E>(isTesting);
+        map.ensureCapacity(count);
+        for(int i = 0; i < count; i++) {
+            map.put((E) elements[i], (E) elements[i]);
+        }
+    }
+
+    // The map never resizes incrementally, so a lookup only reads the table
+    @Override
+    protected boolean supportsConcurrentContains() {
+        return true;
+    }
 }
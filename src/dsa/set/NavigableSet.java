@@ -0,0 +1,99 @@
+package dsa.set;
+
+/**
+ * Set whose elements are kept in order, with searches for the nearest
+ * elements and live views of ranges of elements
+ * @author Viet Dinh
+ *
+ * @param <E> generic element
+ */
+public interface NavigableSet<E> extends Set<E> {
+    /**
+     * Returns the smallest element of the set
+     * @return first element
+     * @throws java.util.NoSuchElementException if the set is empty
+     */
+    E first();
+    /**
+     * Returns the largest element of the set
+     * @return last element
+     * @throws java.util.NoSuchElementException if the set is empty
+     */
+    E last();
+    /**
+     * Returns the largest element less than or equal to the given value
+     * @param value value to search for
+     * @return floor element, or null if there is none
+     */
+    E floor(E value);
+    /**
+     * Returns the smallest element greater than or equal to the given value
+     * @param value value to search for
+     * @return ceiling element, or null if there is none
+     */
+    E ceiling(E value);
+    /**
+     * Returns the largest element strictly less than the given value
+     * @param value value to search for
+     * @return lower element, or null if there is none
+     */
+    E lower(E value);
+    /**
+     * Returns the smallest element strictly greater than the given value
+     * @param value value to search for
+     * @return higher element, or null if there is none
+     */
+    E higher(E value);
+    /**
+     * Returns a live view of the elements between from and to. Changes to the
+     * view write through to the set and changes to the set show in the view;
+     * adding an element outside of the range throws IllegalArgumentException
+     * @param from lowest element of the range
+     * @param fromInclusive true if from itself is in the range
+     * @param to highest element of the range
+     * @param toInclusive true if to itself is in the range
+     * @return view of the range
+     * @throws IllegalArgumentException if from is greater than to, or if the
+     *         range is not within the range of this set
+     */
+    NavigableSet<E> subSet(E from, boolean fromInclusive, E to, boolean toInclusive);
+    /**
+     * Returns a live view of the elements from from, inclusive, to to, exclusive
+     * @param from lowest element of the range
+     * @param to element after the range
+     * @return view of the range
+     * @throws IllegalArgumentException if from is greater than to, or if the
+     *         range is not within the range of this set
+     */
+    NavigableSet<E> subSet(E from, E to);
+    /**
+     * Returns a live view of the elements less than to, or equal to it if inclusive
+     * @param to highest element of the range
+     * @param inclusive true if to itself is in the range
+     * @return view of the range
+     * @throws IllegalArgumentException if the range is not within the range of this set
+     */
+    NavigableSet<E> headSet(E to, boolean inclusive);
+    /**
+     * Returns a live view of the elements strictly less than to
+     * @param to element after the range
+     * @return view of the range
+     * @throws IllegalArgumentException if the range is not within the range of this set
+     */
+    NavigableSet<E> headSet(E to);
+    /**
+     * Returns a live view of the elements greater than from, or equal to it if inclusive
+     * @param from lowest element of the range
+     * @param inclusive true if from itself is in the range
+     * @return view of the range
+     * @throws IllegalArgumentException if the range is not within the range of this set
+     */
+    NavigableSet<E> tailSet(E from, boolean inclusive);
+    /**
+     * Returns a live view of the elements greater than or equal to from
+     * @param from lowest element of the range
+     * @return view of the range
+     * @throws IllegalArgumentException if the range is not within the range of this set
+     */
+    NavigableSet<E> tailSet(E from);
+}
@@ -0,0 +1,1048 @@
+package dsa.set;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed bitmap set of ints in the style of Roaring bitmaps.
+ * The 32 bits of a value are split into a 16 bit chunk key and a 16 bit low
+ * part. Each chunk that holds values has a container for the low parts,
+ * chosen by its contents:
+ *
+ * - an array container keeps up to 4096 low parts sorted, 2 bytes each;
+ * - a bitmap container keeps one bit for each of the 65536 low parts, 8KB
+ *   in all, so a dense chunk costs about one bit per element;
+ * - a run container keeps sorted runs of consecutive values, created by
+ *   addRange, addRangeClosed and runOptimize.
+ *
+ * The chunk keys are kept sorted, so contains and add are a binary search
+ * over the keys followed by a lookup in one container. and, or and andNot
+ * combine two sets chunk by chunk, with word operations between bitmaps and
+ * merges between arrays. Values are visited in unsigned order, so negative
+ * values come after the non-negative ones. Null is not allowed.
+ * @author Viet Dinh
+ *
+ */
+public class RoaringIntSet extends AbstractSet<Integer> {
+
+    // Largest cardinality of an array container; a bitmap is smaller above it
+    private static final int MAX_ARRAY = 4096;
+
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private static final int BITMAP_WORDS = CHUNK_SIZE / Long.SIZE;
+
+    private char[] keys;
+    private Container[] containers;
+    private int chunks;
+    private int size;
+
+    // Number of insertions, removals and bulk operations, checked by the iterators to fail fast
+    private int modCount;
+
+    /**
+     * RoaringIntSet constructor
+     */
+    public RoaringIntSet() {
+        clear();
+    }
+
+    private void clear() {
+        keys = new char[4];
+        containers = new Container[4];
+        chunks = 0;
+        size = 0;
+    }
+
+    /**
+     * Adds the value to the set
+     * @param value value to add
+     * @return true if the value was not already in the set
+     */
+    public boolean add(int value) {
+        char key = (char) (value >>> 16);
+        int i = Arrays.binarySearch(keys, 0, chunks, key);
+        if(i < 0) {
+            i = -(i + 1);
+            insertContainer(i, key, new ArrayContainer());
+        }
+        Container c = containers[i];
+        int before = c.cardinality();
+        c = c.add((char) value);
+        containers[i] = c;
+        if(c.cardinality() == before) {
+            return false;
+        }
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Adds every value from from, inclusive, to to, exclusive. Any interval
+     * of ints is allowed, negative values included. Whole chunks are stored
+     * as a single run
+     * @param from first value to add
+     * @param to value after the last one to add
+     * @throws IllegalArgumentException if from is greater than to
+     */
+    public void addRange(int from, int to) {
+        if(from > to) {
+            throw new IllegalArgumentException("Range must satisfy from <= to.");
+        }
+        if(from == to) {
+            return;
+        }
+        addRangeClosed(from, to - 1);
+    }
+
+    /**
+     * Adds every value from first to last, both inclusive, so that ranges
+     * ending at Integer.MAX_VALUE can be added. Whole chunks are stored as a
+     * single run
+     * @param first first value to add
+     * @param last last value to add
+     * @throws IllegalArgumentException if first is greater than last
+     */
+    public void addRangeClosed(int first, int last) {
+        if(first > last) {
+            throw new IllegalArgumentException("Range must satisfy first <= last.");
+        }
+        if(first < 0 && last >= 0) {
+            // Negative values have the highest chunk keys, so the two halves
+            // are contiguous in unsigned order only on their own
+            addChunks(first, -1);
+            addChunks(0, last);
+        } else {
+            addChunks(first, last);
+        }
+        modCount++;
+    }
+
+    // Adds first to last, inclusive, with first <= last in unsigned order
+    private void addChunks(int first, int last) {
+        for(int key = first >>> 16; key <= last >>> 16; key++) {
+            int lo = key == first >>> 16 ? first & 0xFFFF : 0;
+            int hi = key == last >>> 16 ? last & 0xFFFF : 0xFFFF;
+            Container range = new RunContainer(lo, hi);
+            int i = Arrays.binarySearch(keys, 0, chunks, (char) key);
+            if(i < 0) {
+                insertContainer(-(i + 1), (char) key, range);
+                size += range.cardinality();
+            } else {
+                size -= containers[i].cardinality();
+                containers[i] = or(containers[i], range);
+                size += containers[i].cardinality();
+            }
+        }
+    }
+
+    /**
+     * Return true if the set contains the value
+     * @param value value to look up
+     * @return true if the set contains the value
+     */
+    public boolean contains(int value) {
+        int i = Arrays.binarySearch(keys, 0, chunks, (char) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    /**
+     * Removes the value from the set
+     * @param value value to remove
+     * @return true if the value was in the set
+     */
+    public boolean remove(int value) {
+        int i = Arrays.binarySearch(keys, 0, chunks, (char) (value >>> 16));
+        if(i < 0) {
+            return false;
+        }
+        Container c = containers[i];
+        int before = c.cardinality();
+        c = c.remove((char) value);
+        if(c.cardinality() == before) {
+            return false;
+        }
+        if(c.cardinality() == 0) {
+            removeContainer(i);
+        } else {
+            containers[i] = c;
+        }
+        size--;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(Integer value) {
+        if(value == null) {
+            throw new IllegalArgumentException("Value cannot be null.");
+        }
+        add(value.intValue());
+    }
+
+    @Override
+    public boolean contains(Integer value) {
+        return value != null && contains(value.intValue());
+    }
+
+    @Override
+    public Integer remove(Integer value) {
+        return value != null && remove(value.intValue()) ? value : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Keeps only the values also in the other set, chunk by chunk
+     * @param other set to intersect with
+     */
+    public void and(RoaringIntSet other) {
+        char[] newKeys = new char[Math.max(1, Math.min(chunks, other.chunks))];
+        Container[] newContainers = new Container[newKeys.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while(i < chunks && j < other.chunks) {
+            if(keys[i] < other.keys[j]) {
+                i++;
+            } else if(keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container c = and(containers[i], other.containers[j]);
+                if(c.cardinality() > 0) {
+                    newKeys[n] = keys[i];
+                    newContainers[n++] = c;
+                }
+                i++;
+                j++;
+            }
+        }
+        replace(newKeys, newContainers, n);
+    }
+
+    /**
+     * Adds every value of the other set, chunk by chunk
+     * @param other set to unite with
+     */
+    public void or(RoaringIntSet other) {
+        char[] newKeys = new char[Math.max(1, chunks + other.chunks)];
+        Container[] newContainers = new Container[newKeys.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while(i < chunks || j < other.chunks) {
+            if(j == other.chunks || (i < chunks && keys[i] < other.keys[j])) {
+                newKeys[n] = keys[i];
+                newContainers[n++] = containers[i++];
+            } else if(i == chunks || keys[i] > other.keys[j]) {
+                newKeys[n] = other.keys[j];
+                newContainers[n++] = other.containers[j++].copy();
+            } else {
+                newKeys[n] = keys[i];
+                newContainers[n++] = or(containers[i++], other.containers[j++]);
+            }
+        }
+        replace(newKeys, newContainers, n);
+    }
+
+    /**
+     * Removes every value of the other set, chunk by chunk
+     * @param other set to subtract
+     */
+    public void andNot(RoaringIntSet other) {
+        char[] newKeys = new char[Math.max(1, chunks)];
+        Container[] newContainers = new Container[newKeys.length];
+        int n = 0;
+        int j = 0;
+        for(int i = 0; i < chunks; i++) {
+            while(j < other.chunks && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container c = containers[i];
+            if(j < other.chunks && other.keys[j] == keys[i]) {
+                c = andNot(c, other.containers[j]);
+            }
+            if(c.cardinality() > 0) {
+                newKeys[n] = keys[i];
+                newContainers[n++] = c;
+            }
+        }
+        replace(newKeys, newContainers, n);
+    }
+
+    @Override
+    public void addAll(Set<Integer> other) {
+        if(other instanceof RoaringIntSet) {
+            or((RoaringIntSet) other);
+        } else {
+            super.addAll(other);
+        }
+    }
+
+    @Override
+    public void retainAll(Set<Integer> other) {
+        if(other instanceof RoaringIntSet) {
+            and((RoaringIntSet) other);
+        } else {
+            super.retainAll(other);
+        }
+    }
+
+    @Override
+    public void removeAll(Set<Integer> other) {
+        if(other instanceof RoaringIntSet) {
+            andNot((RoaringIntSet) other);
+        } else {
+            super.removeAll(other);
+        }
+    }
+
+    @Override
+    protected void rebuild(Object[] elements, int count) {
+        clear();
+        for(int i = 0; i < count; i++) {
+            add(((Integer) elements[i]).intValue());
+        }
+        modCount++;
+    }
+
+    /**
+     * Converts every container that takes less room as runs of consecutive
+     * values to a run container
+     */
+    public void runOptimize() {
+        for(int i = 0; i < chunks; i++) {
+            Container c = containers[i];
+            if(!(c instanceof RunContainer) && RunContainer.sizeInBytes(c.runCount()) < c.sizeInBytes()) {
+                containers[i] = RunContainer.of(c);
+            }
+        }
+        modCount++;
+    }
+
+    /**
+     * Return an estimate of the memory used by the containers, in bytes
+     * @return estimated size in bytes
+     */
+    public long sizeInBytes() {
+        long bytes = 2L * keys.length + 8L * containers.length;
+        for(int i = 0; i < chunks; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Performs the given action on every value, in unsigned order, without boxing
+     * @param action action to perform on each value
+     * @throws ConcurrentModificationException if the action modifies the set
+     */
+    public void forEachInt(IntConsumer action) {
+        int expectedModCount = modCount;
+        for(int i = 0; i < chunks; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+            if(modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new ValueIterator();
+    }
+
+    private void insertContainer(int i, char key, Container c) {
+        if(chunks == keys.length) {
+            keys = Arrays.copyOf(keys, chunks * 2);
+            containers = Arrays.copyOf(containers, chunks * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, chunks - i);
+        System.arraycopy(containers, i, containers, i + 1, chunks - i);
+        keys[i] = key;
+        containers[i] = c;
+        chunks++;
+    }
+
+    private void removeContainer(int i) {
+        System.arraycopy(keys, i + 1, keys, i, chunks - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, chunks - i - 1);
+        chunks--;
+        containers[chunks] = null;
+    }
+
+    private void replace(char[] newKeys, Container[] newContainers, int n) {
+        keys = newKeys;
+        containers = newContainers;
+        chunks = n;
+        size = 0;
+        for(int i = 0; i < n; i++) {
+            size += newContainers[i].cardinality();
+        }
+        modCount++;
+    }
+
+    // Runs are combined through their array or bitmap form
+    private static Container expand(Container c) {
+        return c instanceof RunContainer ? ((RunContainer) c).expand() : c;
+    }
+
+    private static boolean isFull(Container c) {
+        return c.cardinality() == CHUNK_SIZE;
+    }
+
+    // The binary operations never modify their arguments and never return one of them
+
+    private static Container and(Container a, Container b) {
+        if(isFull(a)) {
+            return b.copy();
+        }
+        if(isFull(b)) {
+            return a.copy();
+        }
+        a = expand(a);
+        b = expand(b);
+        if(a instanceof ArrayContainer && b instanceof ArrayContainer) {
+            return ((ArrayContainer) a).and((ArrayContainer) b);
+        }
+        if(a instanceof ArrayContainer) {
+            return ((ArrayContainer) a).filter(b, true);
+        }
+        if(b instanceof ArrayContainer) {
+            return ((ArrayContainer) b).filter(a, true);
+        }
+        return ((BitmapContainer) a).and((BitmapContainer) b);
+    }
+
+    private static Container or(Container a, Container b) {
+        if(isFull(a)) {
+            return a.copy();
+        }
+        if(isFull(b)) {
+            return b.copy();
+        }
+        a = expand(a);
+        b = expand(b);
+        if(a instanceof ArrayContainer && b instanceof ArrayContainer
+                && a.cardinality() + b.cardinality() <= MAX_ARRAY) {
+            return ((ArrayContainer) a).or((ArrayContainer) b);
+        }
+        BitmapContainer result = a instanceof BitmapContainer ? (BitmapContainer) a.copy() : a.toBitmap();
+        if(b instanceof BitmapContainer) {
+            result.orWords((BitmapContainer) b);
+        } else {
+            ((ArrayContainer) b).setBits(result);
+        }
+        return result.shrink();
+    }
+
+    private static Container andNot(Container a, Container b) {
+        if(isFull(b)) {
+            return new ArrayContainer();
+        }
+        a = expand(a);
+        b = expand(b);
+        if(a instanceof ArrayContainer) {
+            return ((ArrayContainer) a).filter(b, false);
+        }
+        BitmapContainer result = (BitmapContainer) a.copy();
+        if(b instanceof BitmapContainer) {
+            result.andNotWords((BitmapContainer) b);
+        } else {
+            ((ArrayContainer) b).clearBits(result);
+        }
+        return result.shrink();
+    }
+
+    /**
+     * Set of the 16 bit low parts of the values of one chunk
+     * @author Viet Dinh
+     *
+     */
+    private abstract static class Container {
+
+        abstract int cardinality();
+
+        abstract boolean contains(char x);
+
+        // Adds or removes a value, returning the container that now holds the
+        // chunk: this one, or a new one of another kind
+        abstract Container add(char x);
+
+        abstract Container remove(char x);
+
+        // Smallest value of at least from, or -1
+        abstract int nextValue(int from);
+
+        abstract void forEach(int base, IntConsumer action);
+
+        abstract int runCount();
+
+        abstract long sizeInBytes();
+
+        abstract BitmapContainer toBitmap();
+
+        abstract Container copy();
+    }
+
+    /**
+     * Container keeping up to MAX_ARRAY values in a sorted char array
+     * @author Viet Dinh
+     *
+     */
+    private static class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char x) {
+            return Arrays.binarySearch(values, 0, cardinality, x) >= 0;
+        }
+
+        @Override
+        Container add(char x) {
+            int i = Arrays.binarySearch(values, 0, cardinality, x);
+            if(i >= 0) {
+                return this;
+            }
+            if(cardinality == MAX_ARRAY) {
+                return toBitmap().add(x);
+            }
+            i = -(i + 1);
+            if(cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(MAX_ARRAY, cardinality * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = x;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char x) {
+            int i = Arrays.binarySearch(values, 0, cardinality, x);
+            if(i >= 0) {
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        int nextValue(int from) {
+            if(from >= CHUNK_SIZE) {
+                return -1;
+            }
+            int i = Arrays.binarySearch(values, 0, cardinality, (char) from);
+            if(i < 0) {
+                i = -(i + 1);
+            }
+            return i < cardinality ? values[i] : -1;
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for(int i = 0; i < cardinality; i++) {
+                action.accept(base | values[i]);
+            }
+        }
+
+        @Override
+        int runCount() {
+            int runs = 0;
+            for(int i = 0; i < cardinality; i++) {
+                if(i == 0 || values[i] != values[i - 1] + 1) {
+                    runs++;
+                }
+            }
+            return runs;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16 + 2L * values.length;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            setBits(bitmap);
+            return bitmap;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(1, cardinality)), cardinality);
+        }
+
+        void setBits(BitmapContainer bitmap) {
+            for(int i = 0; i < cardinality; i++) {
+                bitmap.set(values[i]);
+            }
+        }
+
+        void clearBits(BitmapContainer bitmap) {
+            for(int i = 0; i < cardinality; i++) {
+                bitmap.clear(values[i]);
+            }
+        }
+
+        // Values contained, or not contained, in the other container
+        ArrayContainer filter(Container other, boolean keep) {
+            char[] result = new char[Math.max(1, cardinality)];
+            int n = 0;
+            for(int i = 0; i < cardinality; i++) {
+                if(other.contains(values[i]) == keep) {
+                    result[n++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, n);
+        }
+
+        ArrayContainer and(ArrayContainer other) {
+            char[] result = new char[Math.max(1, Math.min(cardinality, other.cardinality))];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while(i < cardinality && j < other.cardinality) {
+                if(values[i] < other.values[j]) {
+                    i++;
+                } else if(values[i] > other.values[j]) {
+                    j++;
+                } else {
+                    result[n++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(result, n);
+        }
+
+        ArrayContainer or(ArrayContainer other) {
+            char[] result = new char[Math.max(1, cardinality + other.cardinality)];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while(i < cardinality || j < other.cardinality) {
+                if(j == other.cardinality || (i < cardinality && values[i] < other.values[j])) {
+                    result[n++] = values[i++];
+                } else if(i == cardinality || values[i] > other.values[j]) {
+                    result[n++] = other.values[j++];
+                } else {
+                    result[n++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(result, n);
+        }
+    }
+
+    /**
+     * Container keeping one bit for each of the 65536 values of the chunk
+     * @author Viet Dinh
+     *
+     */
+    private static class BitmapContainer extends Container {
+        private long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[BITMAP_WORDS], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char x) {
+            return (words[x >>> 6] & (1L << x)) != 0;
+        }
+
+        void set(char x) {
+            long bit = 1L << x;
+            if((words[x >>> 6] & bit) == 0) {
+                words[x >>> 6] |= bit;
+                cardinality++;
+            }
+        }
+
+        void clear(char x) {
+            long bit = 1L << x;
+            if((words[x >>> 6] & bit) != 0) {
+                words[x >>> 6] &= ~bit;
+                cardinality--;
+            }
+        }
+
+        // Sets every bit from lo to hi, inclusive
+        void setRange(int lo, int hi) {
+            int first = lo >>> 6;
+            int last = hi >>> 6;
+            for(int w = first; w <= last; w++) {
+                long mask = -1L;
+                if(w == first) {
+                    mask &= -1L << lo;
+                }
+                if(w == last) {
+                    mask &= -1L >>> (63 - (hi & 63));
+                }
+                cardinality += Long.bitCount(mask & ~words[w]);
+                words[w] |= mask;
+            }
+        }
+
+        @Override
+        Container add(char x) {
+            set(x);
+            return this;
+        }
+
+        @Override
+        Container remove(char x) {
+            clear(x);
+            return shrink();
+        }
+
+        // An array takes less room once the cardinality drops to MAX_ARRAY
+        Container shrink() {
+            if(cardinality > MAX_ARRAY) {
+                return this;
+            }
+            char[] values = new char[Math.max(1, cardinality)];
+            int n = 0;
+            for(int w = 0; w < BITMAP_WORDS; w++) {
+                for(long word = words[w]; word != 0; word &= word - 1) {
+                    values[n++] = (char) (w * Long.SIZE + Long.numberOfTrailingZeros(word));
+                }
+            }
+            return new ArrayContainer(values, n);
+        }
+
+        @Override
+        int nextValue(int from) {
+            if(from >= CHUNK_SIZE) {
+                return -1;
+            }
+            int w = from >>> 6;
+            long word = words[w] & (-1L << from);
+            while(word == 0) {
+                if(++w == BITMAP_WORDS) {
+                    return -1;
+                }
+                word = words[w];
+            }
+            return w * Long.SIZE + Long.numberOfTrailingZeros(word);
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for(int w = 0; w < BITMAP_WORDS; w++) {
+                for(long word = words[w]; word != 0; word &= word - 1) {
+                    action.accept(base | (w * Long.SIZE + Long.numberOfTrailingZeros(word)));
+                }
+            }
+        }
+
+        @Override
+        int runCount() {
+            int runs = 0;
+            long carry = 0;
+            for(int w = 0; w < BITMAP_WORDS; w++) {
+                long word = words[w];
+                // A run starts at every set bit whose lower neighbour is clear
+                runs += Long.bitCount(word & ~((word << 1) | carry));
+                carry = word >>> 63;
+            }
+            return runs;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16 + 8L * BITMAP_WORDS;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            return (BitmapContainer) copy();
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        Container and(BitmapContainer other) {
+            long[] result = new long[BITMAP_WORDS];
+            int count = 0;
+            for(int w = 0; w < BITMAP_WORDS; w++) {
+                result[w] = words[w] & other.words[w];
+                count += Long.bitCount(result[w]);
+            }
+            return new BitmapContainer(result, count).shrink();
+        }
+
+        void orWords(BitmapContainer other) {
+            int count = 0;
+            for(int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] |= other.words[w];
+                count += Long.bitCount(words[w]);
+            }
+            cardinality = count;
+        }
+
+        void andNotWords(BitmapContainer other) {
+            int count = 0;
+            for(int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] &= ~other.words[w];
+                count += Long.bitCount(words[w]);
+            }
+            cardinality = count;
+        }
+    }
+
+    /**
+     * Container keeping sorted runs of consecutive values as pairs of a start
+     * and a length minus one. Changes go through the array or bitmap form
+     * @author Viet Dinh
+     *
+     */
+    private static class RunContainer extends Container {
+        private char[] runs;
+        private int runCount;
+        private int cardinality;
+
+        RunContainer(int lo, int hi) {
+            this(new char[] {(char) lo, (char) (hi - lo)}, 1);
+        }
+
+        RunContainer(char[] runs, int runCount) {
+            this.runs = runs;
+            this.runCount = runCount;
+            for(int r = 0; r < runCount; r++) {
+                cardinality += runs[2 * r + 1] + 1;
+            }
+        }
+
+        static long sizeInBytes(int runCount) {
+            return 16 + 4L * runCount;
+        }
+
+        // Run form of an array or bitmap container
+        static RunContainer of(Container c) {
+            char[] runs = new char[2 * Math.max(1, c.runCount())];
+            int n = 0;
+            int v = c.nextValue(0);
+            while(v >= 0) {
+                int end = v;
+                while(end + 1 < CHUNK_SIZE && c.contains((char) (end + 1))) {
+                    end++;
+                }
+                runs[2 * n] = (char) v;
+                runs[2 * n + 1] = (char) (end - v);
+                n++;
+                v = c.nextValue(end + 1);
+            }
+            return new RunContainer(runs, n);
+        }
+
+        private int start(int r) {
+            return runs[2 * r];
+        }
+
+        private int end(int r) {
+            return runs[2 * r] + runs[2 * r + 1];
+        }
+
+        // Last run starting at or before x, or -1
+        private int floorRun(int x) {
+            int lo = 0;
+            int hi = runCount - 1;
+            while(lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if(start(mid) <= x) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return hi;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char x) {
+            int r = floorRun(x);
+            return r >= 0 && x <= end(r);
+        }
+
+        Container expand() {
+            if(cardinality <= MAX_ARRAY) {
+                char[] values = new char[Math.max(1, cardinality)];
+                int n = 0;
+                for(int r = 0; r < runCount; r++) {
+                    for(int v = start(r); v <= end(r); v++) {
+                        values[n++] = (char) v;
+                    }
+                }
+                return new ArrayContainer(values, n);
+            }
+            return toBitmap();
+        }
+
+        @Override
+        Container add(char x) {
+            return contains(x) ? this : expand().add(x);
+        }
+
+        @Override
+        Container remove(char x) {
+            return contains(x) ? expand().remove(x) : this;
+        }
+
+        @Override
+        int nextValue(int from) {
+            if(from >= CHUNK_SIZE) {
+                return -1;
+            }
+            int r = floorRun(from);
+            if(r >= 0 && from <= end(r)) {
+                return from;
+            }
+            return r + 1 < runCount ? start(r + 1) : -1;
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for(int r = 0; r < runCount; r++) {
+                for(int v = start(r); v <= end(r); v++) {
+                    action.accept(base | v);
+                }
+            }
+        }
+
+        @Override
+        int runCount() {
+            return runCount;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return sizeInBytes(runs.length / 2);
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for(int r = 0; r < runCount; r++) {
+                bitmap.setRange(start(r), end(r));
+            }
+            return bitmap;
+        }
+
+        @Override
+        Container copy() {
+            return new RunContainer(Arrays.copyOf(runs, 2 * runCount), runCount);
+        }
+    }
+
+    /**
+     * Iterator over the values in unsigned order. It remembers the last value
+     * returned rather than a position, so removal through it is supported
+     * @author Viet Dinh
+     *
+     */
+    private class ValueIterator implements Iterator<Integer> {
+        private int index = 0;
+        private int from = 0;
+        private boolean ready = false;
+        private int pending;
+        private boolean hasLast = false;
+        private int last;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            if(modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            while(!ready && index < chunks) {
+                int low = containers[index].nextValue(from);
+                if(low >= 0) {
+                    pending = keys[index] << 16 | low;
+                    from = low + 1;
+                    ready = true;
+                } else {
+                    index++;
+                    from = 0;
+                }
+            }
+            return ready;
+        }
+
+        @Override
+        public Integer next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            hasLast = true;
+            last = pending;
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if(!hasLast) {
+                throw new IllegalStateException();
+            }
+            if(modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            RoaringIntSet.this.remove(last);
+            hasLast = false;
+            expectedModCount = modCount;
+            // The chunk of the last value may be gone, so find the position again
+            char key = (char) (last >>> 16);
+            int i = Arrays.binarySearch(keys, 0, chunks, key);
+            if(i >= 0) {
+                index = i;
+                from = (last & 0xFFFF) + 1;
+            } else {
+                index = -(i + 1);
+                from = 0;
+            }
+            ready = false;
+        }
+    }
+}
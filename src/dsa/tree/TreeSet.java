@@ -1,10 +1,13 @@
 package dsa.tree;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
-import dsa.map.Map;
+import dsa.map.Map.Entry;
 import dsa.map.search_tree.RedBlackTreeMap;
 import dsa.set.AbstractSet;
+import dsa.set.NavigableSet;
+import dsa.set.Set;
 
 // Remember that search trees are ordered, so our elements must be Comparable
 /**
@@ -13,9 +16,9 @@ import dsa.set.AbstractSet;
  *
  * @param <E> generic elements
  */
-public class TreeSet<E extends Comparable<E>> extends AbstractSet<E> {
+public class TreeSet<E extends Comparable<E>> extends AbstractSet<E> implements NavigableSet<E> {
 
-    private Map<E, E> tree;
+    private final RedBlackTreeMap<E, E> tree;
     
     /**
      * TreeSet constructor
@@ -24,9 +27,14 @@ public class TreeSet<E extends Comparable<E>> extends AbstractSet<E> {
         tree = new RedBlackTreeMap<E, E>();
     }
     
+    /**
+     * Return an iterator that walks the tree in order without copying it,
+     * and supports removal
+     * @return iterator over the elements in increasing order
+     */
     @Override
     public Iterator<E> iterator() {
-        return tree.iterator();
+        return new ElementIterator<E>(tree.entryRange(null, false, null, false).iterator());
     }
 
     @Override
@@ -50,4 +58,391 @@ public class TreeSet<E extends Comparable<E>> extends AbstractSet<E> {
     public int size() {
         return tree.size();
     }
+
+    @Override
+    public E first() {
+        return nonEmpty(elementOf(tree.firstEntry()));
+    }
+
+    @Override
+    public E last() {
+        return nonEmpty(elementOf(tree.lastEntry()));
+    }
+
+    @Override
+    public E floor(E value) {
+        return elementOf(tree.floorEntry(value));
+    }
+
+    @Override
+    public E ceiling(E value) {
+        return elementOf(tree.ceilingEntry(value));
+    }
+
+    @Override
+    public E lower(E value) {
+        return elementOf(tree.lowerEntry(value));
+    }
+
+    @Override
+    public E higher(E value) {
+        return elementOf(tree.higherEntry(value));
+    }
+
+    @Override
+    public NavigableSet<E> subSet(E from, boolean fromInclusive, E to, boolean toInclusive) {
+        return new SubSet(from, fromInclusive, to, toInclusive);
+    }
+
+    @Override
+    public NavigableSet<E> subSet(E from, E to) {
+        return subSet(from, true, to, false);
+    }
+
+    @Override
+    public NavigableSet<E> headSet(E to, boolean inclusive) {
+        return new SubSet(null, false, to, inclusive);
+    }
+
+    @Override
+    public NavigableSet<E> headSet(E to) {
+        return headSet(to, false);
+    }
+
+    @Override
+    public NavigableSet<E> tailSet(E from, boolean inclusive) {
+        return new SubSet(from, inclusive, null, false);
+    }
+
+    @Override
+    public NavigableSet<E> tailSet(E from) {
+        return tailSet(from, true);
+    }
+
+    private static <E> E elementOf(Entry<E, E> entry) {
+        return entry == null ? null : entry.getKey();
+    }
+
+    private static <E> E nonEmpty(E element) {
+        if(element == null) {
+            throw new NoSuchElementException();
+        }
+        return element;
+    }
+
+    /**
+     * Adds every element of the other set. The elements are sorted and merged
+     * with the tree in one pass, which rebuilds it when they are at least as
+     * many as the elements of the tree
+     * @param other set to do union
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void addAll(Set<E> other) {
+        if(other == this) {
+            return;
+        }
+        E[] elements = (E[]) new Comparable[other.size()];
+        int i = 0;
+        for(E element : other) {
+            elements[i++] = element;
+        }
+        tree.putAll(elements, elements);
+    }
+
+    /**
+     * Keeps only the elements also contained in the other set. Two tree sets of
+     * similar sizes are merged along their sorted iterators; otherwise each
+     * element of the smaller set is looked up in the larger one
+     * @param other set to do intersection
+     */
+    @Override
+    public void retainAll(Set<E> other) {
+        if(other == this || !(other instanceof TreeSet) || !shouldMerge(size(), other.size())) {
+            super.retainAll(other);
+            return;
+        }
+        Comparable<?>[] common = new Comparable[Math.min(size(), other.size())];
+        int count = 0;
+        Iterator<E> a = iterator();
+        Iterator<E> b = other.iterator();
+        E x = next(a);
+        E y = next(b);
+        while(x != null && y != null) {
+            int c = x.compareTo(y);
+            if(c < 0) {
+                x = next(a);
+            } else if(c > 0) {
+                y = next(b);
+            } else {
+                common[count++] = x;
+                x = next(a);
+                y = next(b);
+            }
+        }
+        rebuild(common, count);
+    }
+
+    /**
+     * Removes the elements contained in the other set. Two tree sets of
+     * similar sizes are merged along their sorted iterators; otherwise each
+     * element of the smaller set is looked up in the larger one
+     * @param other set to do subtraction
+     */
+    @Override
+    public void removeAll(Set<E> other) {
+        if(other == this || !(other instanceof TreeSet) || !shouldMerge(size(), other.size())) {
+            super.removeAll(other);
+            return;
+        }
+        Comparable<?>[] kept = new Comparable[size()];
+        int count = 0;
+        Iterator<E> a = iterator();
+        Iterator<E> b = other.iterator();
+        E x = next(a);
+        E y = next(b);
+        while(x != null) {
+            int c = y == null ? -1 : x.compareTo(y);
+            if(c < 0) {
+                kept[count++] = x;
+                x = next(a);
+            } else if(c > 0) {
+                y = next(b);
+            } else {
+                x = next(a);
+                y = next(b);
+            }
+        }
+        rebuild(kept, count);
+    }
+
+    // A merge walks both sets, while lookups cost about log2(larger) steps for
+    // each element of the smaller set; merge when that is not cheaper
+    private static boolean shouldMerge(int n, int m) {
+        int small = Math.min(n, m);
+        int large = Math.max(n, m);
+        return (long) small * (32 - Integer.numberOfLeadingZeros(large)) >= large + small;
+    }
+
+    private static <T> T next(Iterator<T> it) {
+        return it.hasNext() ? it.next() : null;
+    }
+
+    /**
+     * Clears the tree and bulk loads it from the given elements. The tree
+     * itself is kept, so iterators and subsets created before fail fast
+     * @param elements elements to keep
+     * @param count number of elements to keep
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void rebuild(Object[] elements, int count) {
+        E[] sorted = (E[]) new Comparable[count];
+        System.arraycopy(elements, 0, sorted, 0, count);
+        tree.clear();
+        tree.putAll(sorted, sorted);
+    }
+
+    /**
+     * Live view of the elements of a range of the tree set. Nothing is copied:
+     * every operation searches the tree with the bounds of the range, and
+     * iteration walks only the nodes in the range, in O(log n + k) for k
+     * elements. size counts the elements of the range, in O(log n + k)
+     * @author Viet Dinh
+     *
+     */
+    private class SubSet extends AbstractSet<E> implements NavigableSet<E> {
+        // A null bound means that side is unbounded
+        private E from;
+        private boolean fromInclusive;
+        private E to;
+        private boolean toInclusive;
+
+        public SubSet(E from, boolean fromInclusive, E to, boolean toInclusive) {
+            if(from != null && to != null && from.compareTo(to) > 0) {
+                throw new IllegalArgumentException("The lower bound is greater than the upper bound.");
+            }
+            this.from = from;
+            this.fromInclusive = fromInclusive;
+            this.to = to;
+            this.toInclusive = toInclusive;
+        }
+
+        private boolean tooLow(E value) {
+            if(from == null) {
+                return false;
+            }
+            int c = value.compareTo(from);
+            return c < 0 || (c == 0 && !fromInclusive);
+        }
+
+        private boolean tooHigh(E value) {
+            if(to == null) {
+                return false;
+            }
+            int c = value.compareTo(to);
+            return c > 0 || (c == 0 && !toInclusive);
+        }
+
+        private boolean inRange(E value) {
+            return !tooLow(value) && !tooHigh(value);
+        }
+
+        // Element if it lies in the range, null otherwise
+        private E clip(E element) {
+            return element == null || !inRange(element) ? null : element;
+        }
+
+        private E lowest() {
+            if(from == null) {
+                return clip(elementOf(tree.firstEntry()));
+            }
+            return clip(elementOf(fromInclusive ? tree.ceilingEntry(from) : tree.higherEntry(from)));
+        }
+
+        private E highest() {
+            if(to == null) {
+                return clip(elementOf(tree.lastEntry()));
+            }
+            return clip(elementOf(toInclusive ? tree.floorEntry(to) : tree.lowerEntry(to)));
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new ElementIterator<E>(tree.entryRange(from, fromInclusive, to, toInclusive).iterator());
+        }
+
+        @Override
+        public void add(E value) {
+            if(!inRange(value)) {
+                throw new IllegalArgumentException("The value is outside of the range of the view.");
+            }
+            TreeSet.this.add(value);
+        }
+
+        @Override
+        public boolean contains(E value) {
+            return inRange(value) && TreeSet.this.contains(value);
+        }
+
+        @Override
+        public E remove(E value) {
+            return inRange(value) ? TreeSet.this.remove(value) : null;
+        }
+
+        @Override
+        public int size() {
+            int count = 0;
+            for(Iterator<E> it = iterator(); it.hasNext(); it.next()) {
+                count++;
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return lowest() == null;
+        }
+
+        @Override
+        public E first() {
+            return nonEmpty(lowest());
+        }
+
+        @Override
+        public E last() {
+            return nonEmpty(highest());
+        }
+
+        @Override
+        public E floor(E value) {
+            return tooHigh(value) ? highest() : clip(TreeSet.this.floor(value));
+        }
+
+        @Override
+        public E ceiling(E value) {
+            return tooLow(value) ? lowest() : clip(TreeSet.this.ceiling(value));
+        }
+
+        @Override
+        public E lower(E value) {
+            return tooHigh(value) ? highest() : clip(TreeSet.this.lower(value));
+        }
+
+        @Override
+        public E higher(E value) {
+            return tooLow(value) ? lowest() : clip(TreeSet.this.higher(value));
+        }
+
+        @Override
+        public NavigableSet<E> subSet(E newFrom, boolean newFromInclusive, E newTo, boolean newToInclusive) {
+            if(newFrom == null) {
+                newFrom = from;
+                newFromInclusive = fromInclusive;
+            } else if(tooLow(newFrom) && !(newFrom.equals(from) && !newFromInclusive)) {
+                throw new IllegalArgumentException("The lower bound is outside of the range of the view.");
+            }
+            if(newTo == null) {
+                newTo = to;
+                newToInclusive = toInclusive;
+            } else if(tooHigh(newTo) && !(newTo.equals(to) && !newToInclusive)) {
+                throw new IllegalArgumentException("The upper bound is outside of the range of the view.");
+            }
+            return new SubSet(newFrom, newFromInclusive, newTo, newToInclusive);
+        }
+
+        @Override
+        public NavigableSet<E> subSet(E newFrom, E newTo) {
+            return subSet(newFrom, true, newTo, false);
+        }
+
+        @Override
+        public NavigableSet<E> headSet(E newTo, boolean inclusive) {
+            return subSet(null, false, newTo, inclusive);
+        }
+
+        @Override
+        public NavigableSet<E> headSet(E newTo) {
+            return headSet(newTo, false);
+        }
+
+        @Override
+        public NavigableSet<E> tailSet(E newFrom, boolean inclusive) {
+            return subSet(newFrom, inclusive, null, false);
+        }
+
+        @Override
+        public NavigableSet<E> tailSet(E newFrom) {
+            return tailSet(newFrom, true);
+        }
+    }
+
+    /**
+     * Iterator over the elements of an entry iterator of the tree
+     * @author Viet Dinh
+     *
+     * @param <E> generic elements
+     */
+    private static class ElementIterator<E> implements Iterator<E> {
+        private Iterator<Entry<E, E>> entries;
+
+        public ElementIterator(Iterator<Entry<E, E>> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        @Override
+        public E next() {
+            return entries.next().getKey();
+        }
+
+        @Override
+        public void remove() {
+            entries.remove();
+        }
+    }
 }